@@ -10,6 +10,7 @@ import java.util.logging.Logger;
 import com.dbeditor.model.DatabaseSchema;
 import com.dbeditor.util.FileManager;
 import com.dbeditor.util.JsonManager;
+import com.dbeditor.util.ThemeManager;
 
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
@@ -33,6 +34,7 @@ public class MainApp extends Application {
 
 	        FXMLLoader loader = new FXMLLoader(MainApp.class.getResource("/fxml/canvas.fxml"));
 	        Scene scene = new Scene(loader.load(), 1280, 720);
+			ThemeManager.getInstance().install(scene);
 
 	        stage.setTitle("Pingloo - Visual Database Editor");
 			stage.getIcons().add(new Image(MainApp.class.getResource("/img/logo-pingloo.png").toString()));
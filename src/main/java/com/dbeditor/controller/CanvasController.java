@@ -12,21 +12,33 @@ import java.util.logging.Logger;
 import com.dbeditor.MainApp;
 import com.dbeditor.controller.modifier.Visual;
 import com.dbeditor.model.DatabaseSchema;
+import com.dbeditor.model.SchemaDiff;
+import com.dbeditor.model.SchemaDiff.TableDiff;
+import com.dbeditor.model.Table;
 import com.dbeditor.sql.DbType;
+import com.dbeditor.sql.db.SqlDb;
+import com.dbeditor.util.DbDiffTask;
+import com.dbeditor.util.DbDiffTask.Migration;
+import com.dbeditor.util.DbLoadTask;
 import com.dbeditor.util.DbManager;
+import com.dbeditor.util.DbSaveTask;
 import com.dbeditor.util.FileManager;
 import com.dbeditor.util.ThemeManager;
 
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.Label;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuButton;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.control.ToolBar;
 import javafx.scene.image.Image;
@@ -53,6 +65,8 @@ public class CanvasController implements Visual {
     @FXML private Menu mSaveFile, mSaveDb;
     @FXML private MenuButton mbDatabase;
     @FXML private TextField tfDbName;
+    @FXML private ProgressBar pbLoad;
+    @FXML private Button btnCancelLoad;
     @FXML private Region spacer1, spacer2;
     @FXML private MenuItem miLightTheme, miDarkTheme, miPersoTheme;
     @FXML private Label appNameLabel;
@@ -61,6 +75,11 @@ public class CanvasController implements Visual {
     private List<ViewController> views;
     private Map<DbType, Menu> menuOpenDb;
     private Map<DbType, Menu> menuSaveDb;
+    private DbLoadTask loadTask;
+    /**
+     * Enregistrement en cours : lecture et script (DbDiffTask) puis exécution (DbSaveTask)
+     */
+    private Task<?> saveTask;
 
     @FXML
     private void initialize() {
@@ -69,8 +88,9 @@ public class CanvasController implements Visual {
         menuSaveDb = new HashMap<>();
 
         for(DbType type : DbType.values()) {
-            if(type.equals(DbType.MsSql) || type.equals(DbType.PostgreSql) || type.equals(DbType.Oracle)) continue;
+            // l'import de fichier est disponible pour toutes les bdd
             this.createMenuItemOpenFile(type);
+            if(type.equals(DbType.MsSql) || type.equals(DbType.PostgreSql) || type.equals(DbType.Oracle)) continue;
             this.createMenuItemOpenDb(type);
             this.createMenuItemSaveFile(type);
             this.createMenuItemSaveDb(type);
@@ -87,6 +107,10 @@ public class CanvasController implements Visual {
             }
         });
 
+        this.spPane.getStyleClass().add("canvas-pane");
+        this.toolBar.getStyleClass().add("app-toolbar");
+        this.appNameLabel.getStyleClass().add("app-name");
+
         HBox.setHgrow(this.spacer1, Priority.ALWAYS);
         HBox.setHgrow(this.spacer2, Priority.ALWAYS);
 
@@ -122,7 +146,7 @@ public class CanvasController implements Visual {
 
     private void sync(ViewController origin) {
         for(ViewController vc : this.views) {
-            if(vc != origin) vc.open();
+            if(vc != origin) vc.sync();
         }
     }
 
@@ -138,15 +162,8 @@ public class CanvasController implements Visual {
 
     @Override
     public void updateStyle() {
-        this.spPane.setStyle("-fx-background-color: " + T_M.getTheme().getBackgroundColor() + ";");
-
-        this.toolBar.setStyle(
-            "-fx-background-color: " + T_M.getTheme().getToolbarColor() + ";" +
-            "-fx-border-color: " + T_M.getTheme().getToolbarBorderColor() + ";" +
-            "-fx-border-width: 0 0 1 0;"
-        );
-
-        this.appNameLabel.setStyle("-fx-text-fill: " + T_M.getTheme().getTextColor() + ";");
+        // le thème perso a pu changer, les couleurs des feuilles de style sont à jour si besoin
+        T_M.refresh();
 
         for(ViewController v : this.views) {
             v.updateStyle();
@@ -199,6 +216,79 @@ public class CanvasController implements Visual {
         }
     }
 
+    /**
+     * Charge une bdd en arrière-plan : l'interface reste utilisable
+     * et les tables apparaissent dans les vues au fur et à mesure
+     */
+    private void openDb(DbType type, String dbName) {
+        if (this.loadTask != null && this.loadTask.isRunning()) {
+            CanvasController.showWarningAlert("Chargement en cours", "Une bdd est déjà en cours de chargement");
+            return;
+        }
+        if (this.saveTask != null && this.saveTask.isRunning()) {
+            CanvasController.showWarningAlert("Enregistrement en cours", "Attendez la fin de l'enregistrement de la bdd");
+            return;
+        }
+
+        // vues vides, remplies par lots
+        DatabaseSchema schema = new DatabaseSchema(dbName);
+        this.open(schema);
+
+        DbLoadTask task = new DbLoadTask(D_M.getSqlDb(type), dbName, tables -> {
+            // un fichier a été ouvert entre temps : on n'écrase pas le schema courant
+            if (MainApp.schema != schema) return;
+
+            for (Table table : tables) {
+                schema.addTable(table);
+            }
+            for (ViewController v : this.views) {
+                v.addTables(tables);
+            }
+        });
+        this.loadTask = task;
+
+        this.pbLoad.progressProperty().bind(task.progressProperty());
+        this.setLoadControlsVisible(true);
+        this.btnCancelLoad.setOnAction(e -> task.cancel());
+
+        task.setOnSucceeded(e -> this.endLoad(task, schema));
+        task.setOnCancelled(e -> this.endLoad(task, schema));
+        task.setOnFailed(e -> {
+            LOGGER.log(Level.SEVERE, "Erreur pendant le chargement de la bdd " + dbName, task.getException());
+            this.endLoad(task, schema);
+            CanvasController.showWarningAlert("Erreur", "Une erreur est survenu lors du chargement de la bdd");
+        });
+
+        Thread thread = new Thread(task, "db-load");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Termine un chargement (réussi, annulé ou en erreur) :
+     * on garde les tables déjà reçues et les vues finalisent leur affichage
+     */
+    private void endLoad(DbLoadTask task, DatabaseSchema schema) {
+        task.finish();
+        // des tables manquent : le schema ne pourra pas être enregistré dans une bdd
+        if (task.isIncomplete()) schema.incomplete = true;
+
+        this.pbLoad.progressProperty().unbind();
+        this.setLoadControlsVisible(false);
+        this.loadTask = null;
+
+        for (ViewController v : this.views) {
+            v.endLoad();
+        }
+    }
+
+    private void setLoadControlsVisible(boolean visible) {
+        this.pbLoad.setVisible(visible);
+        this.pbLoad.setManaged(visible);
+        this.btnCancelLoad.setVisible(visible);
+        this.btnCancelLoad.setManaged(visible);
+    }
+
     /**
      * Creér un Menu Item pour mOpenFile
      * @param type
@@ -238,9 +328,7 @@ public class CanvasController implements Visual {
 
         for(String dbName : D_M.getSqlTypeDatabases(type)) {
             MenuItem mi = new MenuItem(dbName);
-            mi.setOnAction(e -> {
-                this.open(D_M.getSqlDb(type).loadDb(dbName));
-            });
+            mi.setOnAction(e -> this.openDb(type, dbName));
             menu.getItems().add(mi);
         }
     }
@@ -285,18 +373,140 @@ public class CanvasController implements Visual {
 
         for(String dbName : D_M.getSqlTypeDatabases(type)) {
             MenuItem mi = new MenuItem(dbName);
-            mi.setOnAction(e -> {
-                boolean good = D_M.getSqlDb(type).executeSqlScript(D_M.getSqlExporter(type).createSql(MainApp.schema));
-                if(good) {
-                    CanvasController.showWarningAlert("Maj effectué", "La mise à jour de la bdd a été effectué");
-                } else {
-                    CanvasController.showWarningAlert("Erreur", "Une erreur est survenu lors de la mise à jour de la bdd");
-                }
-            });
+            mi.setOnAction(e -> this.saveDb(type, dbName));
             menu.getItems().add(mi);
         }
     }
 
+    /**
+     * Met à jour une bdd en arrière-plan : seules les différences avec la bdd actuelle sont appliquées.
+     * Le script est d'abord préparé (DbDiffTask) puis montré, il n'est exécuté qu'après confirmation.
+     * Le menu d'enregistrement est désactivé jusqu'à la fin
+     */
+    private void saveDb(DbType type, String dbName) {
+        if (this.loadTask != null && this.loadTask.isRunning()) {
+            CanvasController.showWarningAlert("Chargement en cours", "Attendez la fin du chargement de la bdd");
+            return;
+        }
+        if (MainApp.schema.incomplete) {
+            CanvasController.showWarningAlert("Schema incomplet",
+                "Le chargement de la bdd a été annulé ou a échoué : des tables manquent et seraient supprimées.\n" +
+                "Rechargez la bdd avant de l'enregistrer.");
+            return;
+        }
+
+        // copie : le schema peut être modifié pendant l'enregistrement
+        DatabaseSchema schema = MainApp.schema;
+        DatabaseSchema saved = schema.copy();
+        SqlDb db = D_M.getSqlDb(type);
+
+        DbDiffTask task = new DbDiffTask(db, D_M.getSqlExporter(type), dbName, saved);
+        this.saveTask = task;
+        this.mSaveDb.setDisable(true);
+
+        task.setOnSucceeded(e -> {
+            Migration migration = task.getValue();
+            if (migration.diff().isEmpty()) {
+                this.endSave();
+                CanvasController.showWarningAlert("Maj effectué", "La bdd est déjà à jour");
+                return;
+            }
+            if (!this.confirmMigration(dbName, migration)) {
+                this.endSave();
+                return;
+            }
+            this.runMigration(db, dbName, migration, schema, saved);
+        });
+        task.setOnFailed(e -> {
+            LOGGER.log(Level.SEVERE, "Erreur pendant la lecture de la bdd " + dbName, task.getException());
+            this.endSave();
+            CanvasController.showWarningAlert("Erreur", "Impossible de lire la bdd, elle n'a pas été modifiée");
+        });
+
+        Thread thread = new Thread(task, "db-save");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Montre le script de migration, les suppressions (données perdues) en premier
+     * @return true si l'utilisateur accepte de l'exécuter
+     */
+    private boolean confirmMigration(String dbName, Migration migration) {
+        SchemaDiff diff = migration.diff();
+        List<String> drops = new ArrayList<>();
+        for (Table table : diff.getDroppedTables()) {
+            drops.add("DROP TABLE " + table.name);
+        }
+        for (TableDiff td : diff.getChangedTables()) {
+            for (String column : td.droppedColumns()) drops.add("DROP COLUMN " + td.from().name + "." + column);
+        }
+
+        Alert alert = new Alert(drops.isEmpty() ? Alert.AlertType.CONFIRMATION : Alert.AlertType.WARNING, "", ButtonType.OK, ButtonType.CANCEL);
+        alert.setTitle("Mise à jour de " + dbName);
+        if (drops.isEmpty()) {
+            alert.setHeaderText("Exécuter ces requêtes sur la bdd ?");
+            alert.setContentText(diff.getAddedTables().size() + " table(s) ajoutée(s), " + diff.getChangedTables().size() + " modifiée(s), "
+                + diff.getRenamedTables().size() + " renommée(s)");
+        } else {
+            alert.setHeaderText(drops.size() + " suppression(s) : leurs données seront perdues");
+            int shown = Math.min(drops.size(), 20);
+            String text = String.join("\n", drops.subList(0, shown));
+            if (shown < drops.size()) text += "\n... et " + (drops.size() - shown) + " autre(s)";
+            alert.setContentText(text);
+            // Entrée ne doit pas valider les suppressions
+            ((Button) alert.getDialogPane().lookupButton(ButtonType.OK)).setDefaultButton(false);
+            ((Button) alert.getDialogPane().lookupButton(ButtonType.CANCEL)).setDefaultButton(true);
+        }
+
+        TextArea script = new TextArea(migration.script());
+        script.setEditable(false);
+        script.setPrefRowCount(15);
+        alert.getDialogPane().setExpandableContent(script);
+        alert.getDialogPane().setExpanded(true);
+
+        Optional<ButtonType> result = alert.showAndWait();
+        return result.isPresent() && result.get() == ButtonType.OK;
+    }
+
+    /**
+     * Exécute le script accepté par l'utilisateur
+     * @param schema schema affiché, ses renommages sont oubliés une fois enregistrés
+     * @param saved copie enregistrée
+     */
+    private void runMigration(SqlDb db, String dbName, Migration migration, DatabaseSchema schema, DatabaseSchema saved) {
+        DbSaveTask task = new DbSaveTask(db, dbName, migration.script());
+        this.saveTask = task;
+
+        task.setOnSucceeded(e -> {
+            this.endSave();
+            SchemaDiff diff = migration.diff();
+            LOGGER.info(() -> "Mise à jour de " + dbName + " : " + diff.getAddedTables().size() + " table(s) ajoutée(s), "
+                + diff.getChangedTables().size() + " modifiée(s), " + diff.getRenamedTables().size() + " renommée(s), "
+                + diff.getDroppedTables().size() + " supprimée(s)");
+
+            // les tables renommées portent maintenant leur nouveau nom dans la bdd
+            schema.clearRenamedTables(saved.getRenamedTables());
+            CanvasController.showWarningAlert("Maj effectué", "La mise à jour de la bdd a été effectué");
+        });
+        task.setOnFailed(e -> {
+            LOGGER.log(Level.SEVERE, "Erreur pendant la mise à jour de la bdd " + dbName, task.getException());
+            this.endSave();
+            // MySql valide chaque requête DDL : celles exécutées avant l'erreur restent appliquées
+            CanvasController.showWarningAlert("Erreur", "Une erreur est survenu lors de la mise à jour de la bdd.\n" +
+                "Les requêtes exécutées avant l'erreur restent appliquées.");
+        });
+
+        Thread thread = new Thread(task, "db-save");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void endSave() {
+        this.saveTask = null;
+        this.mSaveDb.setDisable(false);
+    }
+
     /**
      * Creér un Menu Item pour mDatabase
      * @param type
@@ -1,138 +1,247 @@
 package com.dbeditor.controller;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.function.BiConsumer;
 
 import com.dbeditor.controller.modifier.Draggable;
 import com.dbeditor.controller.modifier.Visual;
+import com.dbeditor.controller.view.helpers.EdgeLayer;
 import com.dbeditor.model.Column;
 import com.dbeditor.model.Table;
 import com.dbeditor.sql.DbType;
-import com.dbeditor.util.ThemeManager;
 
-import javafx.fxml.FXML;
+import javafx.css.PseudoClass;
+import javafx.geometry.HPos;
 import javafx.geometry.Insets;
+import javafx.geometry.Point2D;
+import javafx.geometry.Pos;
+import javafx.geometry.VPos;
 import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.RowConstraints;
+import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Ellipse;
+import javafx.scene.shape.StrokeType;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
 
-public class TableController implements Visual, Draggable {
+public class TableController implements Visual, Draggable, EdgeLayer.Anchor {
     public enum TableType {
         Table, Entity, Association;
     }
 
-    private static final ThemeManager T_M = ThemeManager.getInstance();
+    /**
+     * Niveau de détail du visuel, selon le zoom
+     */
+    public enum Detail {
+        /** nom, colonnes et ombre */
+        FULL,
+        /** nom seulement */
+        HEADER,
+        /** rectangle plein de la taille de la table */
+        BOX;
+
+        /**
+         * Niveau de détail lisible pour un zoom
+         */
+        public static Detail forZoom(double zoom) {
+            if (zoom >= 0.4) return FULL;
+            if (zoom >= 0.2) return HEADER;
+            return BOX;
+        }
+    }
 
-    @FXML private AnchorPane pane;
-    @FXML private Ellipse ellipse;
-    @FXML private HBox hName;
-    @FXML private Label name;
-    @FXML private GridPane grid;
+    // couleurs, bordures et ombre : /css/model.css (voir ThemeManager)
+    private static final PseudoClass SELECTED = PseudoClass.getPseudoClass("selected");
+    private static final PseudoClass FULL = PseudoClass.getPseudoClass("full");
+
+    private static final Font NAME_FONT = Font.font("System", FontWeight.BOLD, 24);
+    private static final Font COLUMN_FONT = Font.font("System", 12);
+    private static final Font COLUMN_KEY_FONT = Font.font("System", FontWeight.BOLD, 12);
+    private static final Font TYPE_FONT = Font.font("System", 11);
+    private static final Font TYPE_KEY_FONT = Font.font("System", FontWeight.BOLD, 11);
+    private static final Insets NAME_MARGIN = new Insets(1, 1, 1, 3);
+    private static final Insets TYPE_MARGIN = new Insets(1, 3, 1, 1);
+
+    private final AnchorPane pane;
+    private final Ellipse ellipse;
+    private final HBox hName;
+    private final Label name;
+    private final GridPane grid;
+
+    /**
+     * Labels des colonnes (nom, type), gardés pour être réutilisés si le node est recyclé
+     */
+    private final List<Label> colNames = new ArrayList<>();
+    private final List<Label> colTypes = new ArrayList<>();
 
     private Table table;
     private TableType type;
+    private Detail detail = Detail.FULL;
+    private boolean selected = false;
 
     // callbacks fournis par CanvasController
     private BiConsumer<Draggable, MouseEvent> onSelect;
     private BiConsumer<Draggable, MouseEvent> onDrag;
     private BiConsumer<Draggable, MouseEvent> onDragEnd;
+    private Runnable onBoundsChanged;
+
+    /**
+     * Construit le visuel vide d'une table (sans FXML),
+     * createTableController le remplit et peut être rappelé pour réutiliser le node
+     */
+    public TableController() {
+        this.ellipse = new Ellipse();
+        this.ellipse.getStyleClass().add("table-ellipse");
+        this.ellipse.setStrokeType(StrokeType.INSIDE);
+
+        this.name = new Label();
+        this.name.setAlignment(Pos.CENTER);
+        this.name.setTextAlignment(TextAlignment.CENTER);
+        this.name.setFont(NAME_FONT);
+        this.name.setTextFill(Color.WHITE);
+
+        this.hName = new HBox(this.name);
+        this.hName.getStyleClass().add("table-header");
+        this.hName.setAlignment(Pos.CENTER);
+        this.hName.setPadding(new Insets(2));
+
+        this.grid = new GridPane();
+        this.grid.setAlignment(Pos.CENTER_LEFT);
+        this.grid.setMinWidth(100);
+        this.grid.setPadding(new Insets(2));
+        for (int i = 0; i < 2; i++) {
+            ColumnConstraints cc = new ColumnConstraints();
+            cc.setHalignment(HPos.CENTER);
+            cc.setHgrow(Priority.SOMETIMES);
+            this.grid.getColumnConstraints().add(cc);
+        }
+        RowConstraints rc = new RowConstraints();
+        rc.setValignment(VPos.CENTER);
+        rc.setVgrow(Priority.SOMETIMES);
+        this.grid.getRowConstraints().add(rc);
+
+        VBox box = new VBox(this.hName, this.grid);
+        box.setAlignment(Pos.TOP_CENTER);
+
+        this.pane = new AnchorPane(this.ellipse, box);
+        this.pane.getStyleClass().add("table-card");
+        this.pane.setMinSize(0, 0);
+        this.pane.setMaxSize(Region.USE_PREF_SIZE, Region.USE_PREF_SIZE);
+
+        // la position de la table suit celle du node (déplacement par l'utilisateur).
+        // createUI recopie la position de la table : rien à écrire, une table jamais placée le reste
+        this.pane.layoutXProperty().addListener((a, b, c) -> {
+            if (this.table != null && c.doubleValue() != this.table.getPosX()) {
+                this.table.setPosition(c.doubleValue(), this.table.getPosY());
+            }
+            this.boundsChanged();
+        });
+        this.pane.layoutYProperty().addListener((a, b, c) -> {
+            if (this.table != null && c.doubleValue() != this.table.getPosY()) {
+                this.table.setPosition(this.table.getPosX(), c.doubleValue());
+            }
+            this.boundsChanged();
+        });
+        this.pane.widthProperty().addListener((a, b, c) -> this.boundsChanged());
+        this.pane.heightProperty().addListener((a, b, c) -> this.boundsChanged());
+        // déplacement en cours (Translate partagée de MultiDragManager)
+        this.pane.localToParentTransformProperty().addListener(obs -> this.boundsChanged());
+
+        this.setupDragHandlers();
+    }
 
     /**
      * Permet de mettre en place le visuel de la table.<br>
-     * Met aussi en en place l'ui et le drag
+     * Peut être rappelé sur un node recyclé (voir TableNodePool)
      */
     public void createTableController(Table table, TableType type) {
         this.table = table;
+        if (this.type != type) {
+            if (this.type != null) this.pane.getStyleClass().remove(styleClass(this.type));
+            this.pane.getStyleClass().add(styleClass(type));
+        }
         this.type = type;
         this.createUI();
-        this.setupDragHandlers();
     }
-    
+
+    /**
+     * Oublie la table et les callbacks, avant de remettre le node dans le pool
+     */
+    public void release() {
+        this.table = null;
+        this.setSelected(false);
+        this.onSelect = null;
+        this.onDrag = null;
+        this.onDragEnd = null;
+        this.onBoundsChanged = null;
+        this.pane.setOnMouseClicked(null);
+    }
+
     /**
      * Permet de créer l'UI de la table
      */
     private void createUI() {
-        this.pane.setLayoutX(table.getPosX());
-        this.pane.setLayoutY(table.getPosY());
-
-        this.hName.setPadding(new Insets(2));
+        this.pane.setLayoutX(this.table.getPosX());
+        this.pane.setLayoutY(this.table.getPosY());
 
         this.name.setText(this.table.name);
-        this.name.setFont(Font.font("System", FontWeight.BOLD, 24));
-        this.name.setTextFill(Color.WHITE);
 
-        this.grid.setPadding(new Insets(2));
+        List<Node> cells = new ArrayList<>(this.table.getColumnCount() * 2);
+        int i = 0;
+        for (Column col : this.table.getColumnsView()) {
+            if (i == this.colNames.size()) {
+                Label colName = new Label();
+                colName.getStyleClass().add("column-name");
+                GridPane.setMargin(colName, NAME_MARGIN);
+                this.colNames.add(colName);
 
-        for (int i = 0; i < this.table.getColumns().size(); i++) {
-            Column col = this.table.getColumns().get(i);
-            
-            Label colName = new Label(col.name);
-            if(col.isPrimaryKey || col.isUnique) {
-                colName.setFont(Font.font("System", FontWeight.BOLD, 12));
-                // uniquement pour les clés primaire
-                if(!col.isUnique) colName.setUnderline(true);
-            } else {
-                colName.setFont(Font.font("System", 12));
+                Label colType = new Label();
+                colType.getStyleClass().add("column-type");
+                GridPane.setMargin(colType, TYPE_MARGIN);
+                this.colTypes.add(colType);
             }
-            this.grid.add(colName, 0, i);
-            GridPane.setMargin(colName, new Insets(1, 1, 1, 3));
-            
-            Label colType = new Label(col.type.getRepr(DbType.MySql));
-            if(col.isPrimaryKey || col.isNotNull) {
-                colType.setFont(Font.font("System", FontWeight.BOLD, 11));
-            } else {
-                colType.setFont(Font.font("System", 11));
-            }
-            this.grid.add(colType, 1, i);
-            GridPane.setMargin(colType, new Insets(1, 3, 1, 1));
+
+            Label colName = this.colNames.get(i);
+            colName.setText(col.name);
+            colName.setFont(col.isPrimaryKey || col.isUnique ? COLUMN_KEY_FONT : COLUMN_FONT);
+            // uniquement pour les clés primaire
+            colName.setUnderline(col.isPrimaryKey && !col.isUnique);
+            GridPane.setConstraints(colName, 0, i);
+
+            Label colType = this.colTypes.get(i);
+            colType.setText(col.getTypeRepr(DbType.MySql));
+            colType.setFont(col.isPrimaryKey || col.isNotNull ? TYPE_KEY_FONT : TYPE_FONT);
+            GridPane.setConstraints(colType, 1, i);
+
+            cells.add(colName);
+            cells.add(colType);
+            i++;
         }
+        this.grid.getChildren().setAll(cells);
 
         this.updateStyle();
     }
     
+    /**
+     * Les couleurs viennent de la feuille de style du thème, seuls les états du node sont à jour ici
+     */
     @Override
     public void updateStyle() {
-        if(this.type == TableType.Association) {
-            this.pane.setStyle("-fx-background-color: transparent");
-            this.ellipse.setStyle(
-                "-fx-background-color: " + T_M.getTheme().getCardColor() + "; " +
-                "-fx-border-color: " + T_M.getTheme().getBorderColor() + "; " +
-                "-fx-background-radius: 8; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.3), 10, 0, 0, 2);"
-            );
-            this.hName.setStyle(
-                "-fx-translate-x: 1px; -fx-translate-y: 1px;"
-            );
-        } else {
-            this.pane.setStyle(
-                "-fx-background-color: " + T_M.getTheme().getCardColor() + "; " +
-                "-fx-border-color: " + T_M.getTheme().getBorderColor() + "; " +
-                (this.type.equals(TableType.Table) ? "-fx-border-radius: 8; -fx-background-radius: 8; " : "") +
-                "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.3), 10, 0, 0, 2);"
-            );
-            this.ellipse.setStyle("-fx-background-color: transparent");
-            this.hName.setStyle(
-                "-fx-background-color: " + T_M.getTheme().getHeaderColor() + "; " +
-                (this.type.equals(TableType.Table) ? "-fx-background-radius: 8 8 0 0; " : "") + 
-                "-fx-translate-x: 1px; -fx-translate-y: 1px;"
-            );
-        }
-
-        for (Node node : grid.getChildren()) {
-            if (node instanceof Label label) {
-                if (GridPane.getColumnIndex(node) == 0) {
-                    label.setStyle("-fx-text-fill: " + T_M.getTheme().getTextColor() + ";");
-                } else {
-                    label.setStyle("-fx-text-fill: " + T_M.getTheme().getSecondaryTextColor() + ";");
-                }
-            }
-        }
+        this.pane.pseudoClassStateChanged(SELECTED, this.selected);
+        this.pane.pseudoClassStateChanged(FULL, this.detail == Detail.FULL);
     }
 
     @Override
@@ -176,11 +285,28 @@ public class TableController implements Visual, Draggable {
 
     @Override
     public void setSelected(boolean selected) {
-        if (selected) {
-            pane.setStyle(pane.getStyle() + "; -fx-border-color: " + T_M.getTheme().getSelectionBorderColor() + ";");
-        } else {
-            this.updateStyle(); // remet le style normal
-        }
+        this.selected = selected;
+        this.pane.pseudoClassStateChanged(SELECTED, selected);
+    }
+
+    /**
+     * Change le niveau de détail sans reconstruire le visuel :
+     * <ul>
+     *  <li>FULL : tout est affiché</li>
+     *  <li>HEADER : les colonnes sont retirées du layout, la carte se réduit au nom</li>
+     *  <li>BOX : rien n'est dessiné à part le fond, la carte garde sa taille</li>
+     * </ul>
+     */
+    public void setDetail(Detail detail) {
+        if (this.detail == detail) return;
+        this.detail = detail;
+
+        this.grid.setManaged(detail != Detail.HEADER);
+        this.grid.setVisible(detail == Detail.FULL);
+        this.hName.setVisible(detail != Detail.BOX);
+
+        // l'ombre n'est dessinée qu'en FULL
+        this.pane.pseudoClassStateChanged(FULL, detail == Detail.FULL);
     }
 
     @Override
@@ -195,9 +321,35 @@ public class TableController implements Visual, Draggable {
     public void setOnDragEnd(BiConsumer<Draggable, MouseEvent> onDragEnd) {
         this.onDragEnd = onDragEnd;
     }
+    /**
+     * Appelé quand la position ou la taille du node change
+     */
+    public void setOnBoundsChanged(Runnable onBoundsChanged) {
+        this.onBoundsChanged = onBoundsChanged;
+    }
+
+    /**
+     * Classe CSS du type de table (table, entity, association)
+     */
+    private static String styleClass(TableType type) {
+        return type.name().toLowerCase(Locale.ROOT);
+    }
+
+    private void boundsChanged() {
+        if (this.onBoundsChanged != null) this.onBoundsChanged.run();
+    }
     
     public Table getTable() { return this.table; }
     @Override
     public AnchorPane getRoot() { return this.pane; }
     public TableType getType() { return this.type; }
+    public Detail getDetail() { return this.detail; }
+    /**
+     * Coin haut gauche du node dans son parent, déplacement en cours compris
+     */
+    public Point2D getPosition() { return this.pane.localToParent(0, 0); }
+    @Override
+    public double getCenterX() { return this.pane.getLocalToParentTransform().getTx() + this.pane.getWidth() / 2; }
+    @Override
+    public double getCenterY() { return this.pane.getLocalToParentTransform().getTy() + this.pane.getHeight() / 2; }
 }
@@ -1,12 +1,13 @@
 package com.dbeditor.controller;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.function.Consumer;
 
 import com.dbeditor.controller.modifier.DbUpdate;
 import com.dbeditor.controller.modifier.Visual;
 import com.dbeditor.controller.view.View;
-import com.dbeditor.util.ThemeManager;
+import com.dbeditor.model.Table;
 
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -30,8 +31,6 @@ import javafx.scene.layout.VBox;
 import javafx.stage.Popup;
 
 public class ViewController implements Visual, DbUpdate {
-    private static final ThemeManager T_M = ThemeManager.getInstance();
-
     @FXML private BorderPane root;
     @FXML private ToolBar toolbar;
     @FXML private ComboBox<String> cb;
@@ -49,6 +48,7 @@ public class ViewController implements Visual, DbUpdate {
     @FXML
     void initialize() {
         this.baseItemToolbar = FXCollections.observableArrayList(toolbar.getItems());
+        this.toolbar.getStyleClass().add("app-toolbar");
     }
 
     /**
@@ -93,11 +93,6 @@ public class ViewController implements Visual, DbUpdate {
 
     @Override
     public void updateStyle() {
-        this.toolbar.setStyle(
-            "-fx-background-color: " + T_M.getTheme().getToolbarColor() + "; " + 
-            "-fx-border-color: " + T_M.getTheme().getToolbarBorderColor() + "; " + 
-            "-fx-border-width: 0 0 1 0;"
-        );
         this.view.updateStyle();
     }
 
@@ -106,6 +101,21 @@ public class ViewController implements Visual, DbUpdate {
         this.view.open();
     }
 
+    @Override
+    public void sync() {
+        this.view.sync();
+    }
+
+    @Override
+    public void addTables(List<Table> tables) {
+        this.view.addTables(tables);
+    }
+
+    @Override
+    public void endLoad() {
+        this.view.endLoad();
+    }
+
     @Override
     public void updateType() {
         this.view.updateType();
@@ -150,6 +160,7 @@ public class ViewController implements Visual, DbUpdate {
         newPane.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
         
         Platform.runLater(() -> {
+            this.view.close();
             this.spPane.getChildren().setAll(newPane);
             this.view = newController;
             this.viewPane = newPane;
@@ -1,6 +1,9 @@
 package com.dbeditor.controller.modifier;
 
 import java.io.IOException;
+import java.util.List;
+
+import com.dbeditor.model.Table;
 
 public interface DbUpdate {
 
@@ -8,6 +11,29 @@ public interface DbUpdate {
      * Permet de charger une bdd
      */
     public abstract void open();
+
+    /**
+     * Applique les modifications de MainApp.schema faites depuis le dernier open/sync (par une autre vue).
+     * Par défaut la vue est reconstruite avec open
+     */
+    public default void sync() {
+        this.open();
+    }
+
+    /**
+     * Reçoit un lot de tables pendant un chargement en arrière-plan,
+     * elles sont déjà présentes dans MainApp.schema.
+     * Par défaut rien n'est fait, la vue est reconstruite par endLoad
+     * @param tables tables arrivées depuis le dernier lot
+     */
+    public default void addTables(List<Table> tables) {}
+
+    /**
+     * Fin (ou annulation) d'un chargement en arrière-plan
+     */
+    public default void endLoad() {
+        this.open();
+    }
     
     // /**
     //  * Envoie une notif autre vues pour toutes les mettre a jour
@@ -1,10 +1,18 @@
 package com.dbeditor.controller.view;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 import com.dbeditor.MainApp;
 import com.dbeditor.controller.ViewType;
+import com.dbeditor.controller.view.helpers.SchemaChanges;
 import com.dbeditor.model.Column;
 import com.dbeditor.model.Table;
 import com.dbeditor.model.other.DataDictionnary.DD_Nature;
@@ -71,6 +79,13 @@ public class DdController extends GridView {
     private StackPane root;
     private TableView<Data> tableView;
 
+    private final ObservableList<Data> data = FXCollections.observableArrayList();
+    /**
+     * Lignes de chaque table, elles se suivent dans data
+     */
+    private final Map<String, List<Data>> rows = new HashMap<>();
+    private final SchemaChanges changes = new SchemaChanges();
+
     @Override
     public ViewType getViewType() {
         return ViewType.DD;
@@ -83,6 +98,7 @@ public class DdController extends GridView {
         this.tableView.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_ALL_COLUMNS);
 
         setupTableColumns();
+        this.tableView.setItems(this.data);
 
         this.root = new StackPane(this.tableView);
     }
@@ -126,15 +142,83 @@ public class DdController extends GridView {
 
     @Override
     public void open() {
-        ObservableList<Data> data = FXCollections.observableArrayList();
+        this.changes.attach(MainApp.schema);
+        this.rows.clear();
+
+        List<Data> all = new ArrayList<>();
+        for (Table t : MainApp.schema.getTablesView()) {
+            List<Data> r = this.createRows(t, null);
+            this.rows.put(t.name, r);
+            all.addAll(r);
+        }
 
-        for (Table t : MainApp.schema.getTables()) {
-            for (Column c : t.getColumns()) {
-                data.add(new Data(t.name, c.name, "", DD_Type.AN, DD_Nature.E));
+        this.data.setAll(all);
+    }
+
+    /**
+     * Ne refait que les lignes des tables ajoutées, modifiées ou supprimées.
+     * Une table modifiée garde sa place et ce qui a été saisi pour ses colonnes restantes
+     */
+    @Override
+    public void sync() {
+        if (this.changes.isEmpty()) return;
+
+        Map<String, List<Data>> previous = new HashMap<>();
+        for (String name : this.changes.getNames()) {
+            List<Data> old = this.rows.remove(name);
+            if (old != null) previous.put(name, old);
+        }
+
+        List<Data> appended = new ArrayList<>();
+        for (Table t : this.changes.getTouched()) {
+            List<Data> old = previous.remove(t.name);
+            List<Data> r = this.createRows(t, old);
+            this.rows.put(t.name, r);
+
+            int from = old == null || old.isEmpty() ? -1 : this.data.indexOf(old.get(0));
+            if (from < 0) {
+                if (old != null) previous.put(t.name, old);
+                appended.addAll(r);
+            } else {
+                this.data.remove(from, from + old.size());
+                this.data.addAll(from, r);
             }
         }
+        this.changes.clear();
+
+        // tables supprimées (ou lignes introuvables)
+        Set<Data> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (List<Data> old : previous.values()) removed.addAll(old);
+        if (!removed.isEmpty()) this.data.removeAll(removed);
+
+        this.data.addAll(appended);
+    }
+
+    @Override
+    public void close() {
+        this.changes.detach();
+    }
+
+    /**
+     * Lignes d'une table
+     * @param previous anciennes lignes de la table (description, type et nature sont repris par nom de colonne), peut être null
+     */
+    private List<Data> createRows(Table t, List<Data> previous) {
+        Map<String, Data> before = new HashMap<>();
+        if (previous != null) {
+            for (Data d : previous) before.put(d.getName(), d);
+        }
 
-        this.tableView.setItems(data);
+        List<Data> r = new ArrayList<>(t.getColumnCount());
+        for (Column c : t.getColumnsView()) {
+            Data old = before.get(c.name);
+            if (old == null) {
+                r.add(new Data(t.name, c.name, "", DD_Type.AN, DD_Nature.E));
+            } else {
+                r.add(new Data(t.name, c.name, old.getDescription(), old.getType(), old.getNature()));
+            }
+        }
+        return r;
     }
 
     @Override
@@ -1,7 +1,7 @@
 package com.dbeditor.controller.view;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
 import com.dbeditor.MainApp;
 import com.dbeditor.controller.ViewType;
@@ -57,89 +57,104 @@ public class DfController extends TextView {
         this.splitPane.getItems().addAll(this.tvStackPane, this.otherStackPane);
     }
 
+    /**
+     * Lignes déjà calculées de chaque table, avec la version de la table au moment du calcul
+     */
+    private record Lines(long version, String normal, String export) {}
+
+    private Map<String, Lines> lines = new HashMap<>();
+    private long schemaVersion = -1;
+
     @Override
     public void open() {
-        List<Table> tablesSorted = DbManager.sortTables(MainApp.schema.getTables());
-
+        this.lines.clear();
 
-        this.doTextNormal(tablesSorted);
-        this.doTextExport(tablesSorted);
+        this.doText();
 
         this.updateStyle();
     }
 
+    /**
+     * Seules les lignes des tables ajoutées ou modifiées depuis le dernier affichage sont recalculées,
+     * les autres sont reprises telles quelles (l'ordre des tables peut changer)
+     */
+    @Override
+    public void sync() {
+        if (MainApp.schema.getVersion() == this.schemaVersion) return;
+
+        this.doText();
+    }
+
     @Override
     public void updateType() {
         // TODO
     }
 
-    private void doTextNormal(List<Table> tablesSorted) {
-        StringBuilder text = new StringBuilder();
+    private void doText() {
+        StringBuilder normal = new StringBuilder();
+        StringBuilder export = new StringBuilder();
+        Map<String, Lines> computed = new HashMap<>();
 
-        for (Table t : tablesSorted) {
-            List<String> pk = new ArrayList<>();
-            List<String> col = new ArrayList<>();
-            List<String> fk = new ArrayList<>();
-
-            for (Column c : t.getColumns()) {
-                if (c.isPrimaryKey) {
-                    pk.add(c.name);
-                } else {
-                    col.add(c.name);
-                }
+        for (Table t : DbManager.sortTables(MainApp.schema.getTablesView())) {
+            Lines l = this.lines.get(t.name);
+            if (l == null || l.version() != t.getVersion()) {
+                l = new Lines(t.getVersion(), this.lineNormal(t), this.lineExport(t));
             }
+            computed.put(t.name, l);
 
-            for (ForeignKey f : t.getForeignKeys()) {
-                fk.add(f.columnName);
-            }
-
-            text.append(String.join(", ", pk));
-            text.append(" -> ");
-
-            List<String> rightSide = new ArrayList<>();
-            rightSide.addAll(col);
-            rightSide.addAll(fk);
-
-            text.append(String.join(", ", rightSide));
-            text.append("\n");
+            normal.append(l.normal());
+            export.append(l.export());
         }
 
-        this.tvTextArea.setText(text.toString());
+        // les tables retirées sont oubliées
+        this.lines = computed;
+        this.schemaVersion = MainApp.schema.getVersion();
+
+        this.tvTextArea.setText(normal.toString());
+        this.otherTextArea.setText(export.toString());
     }
 
-    private void doTextExport(List<Table> tablesSorted) {
+    private String lineNormal(Table t) {
         StringBuilder text = new StringBuilder();
+        this.appendDependency(text, t, false);
+        return text.toString();
+    }
 
-        for (Table t : tablesSorted) {
-            List<String> pk = new ArrayList<>();
-            List<String> col = new ArrayList<>();
-            List<String> fk = new ArrayList<>();
-
-            for (Column c : t.getColumns()) {
-                if (c.isPrimaryKey) {
-                    pk.add(c.name);
-                } else {
-                    col.add(c.name);
-                }
-            }
-
-            for (ForeignKey f : t.getForeignKeys()) {
-                fk.add("{" + f.referencedTable + "}" + f.columnName);
-            }
+    private String lineExport(Table t) {
+        StringBuilder text = new StringBuilder();
+        text.append("[").append(t.name).append("] ");
+        this.appendDependency(text, t, true);
+        return text.toString();
+    }
 
-            text.append("[").append(t.name).append("] ");
-            text.append(String.join(", ", pk));
-            text.append(" -> ");
+    /**
+     * clés primaires -> autres colonnes, clés étrangères ({table}colonne pour l'export)
+     */
+    private void appendDependency(StringBuilder text, Table t, boolean export) {
+        String sep = "";
+        for (int i = 0; i < t.getColumnCount(); i++) {
+            Column c = t.getColumn(i);
+            if (!c.isPrimaryKey) continue;
+            text.append(sep).append(c.name);
+            sep = ", ";
+        }
 
-            List<String> rightSide = new ArrayList<>();
-            rightSide.addAll(col);
-            rightSide.addAll(fk);
+        text.append(" -> ");
 
-            text.append(String.join(", ", rightSide));
-            text.append("\n");
+        sep = "";
+        for (int i = 0; i < t.getColumnCount(); i++) {
+            Column c = t.getColumn(i);
+            if (c.isPrimaryKey) continue;
+            text.append(sep).append(c.name);
+            sep = ", ";
         }
-
-        this.otherTextArea.setText(text.toString());
+        for (ForeignKey f : t.getForeignKeysView()) {
+            text.append(sep);
+            if (export) text.append("{").append(f.referencedTable).append("}");
+            text.append(f.columnName);
+            sep = ", ";
+        }
+        text.append("\n");
     }
 
     @Override
@@ -1,11 +1,9 @@
 package com.dbeditor.controller.view;
 
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
 
 import com.dbeditor.MainApp;
 import com.dbeditor.controller.CanvasController;
@@ -19,23 +17,18 @@ import com.dbeditor.model.Column;
 import com.dbeditor.model.Table;
 import com.dbeditor.model.mcd.CardinalityValue;
 import com.dbeditor.model.mcd.ConceptualSchema;
-import com.dbeditor.model.type.__SqlType;
-import com.dbeditor.util.ThemeManager;
 
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
+import javafx.geometry.Point2D;
 import javafx.scene.control.Button;
-import javafx.scene.control.Label;
 import javafx.scene.control.ToolBar;
 import javafx.scene.input.KeyCode;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Line;
 import javafx.util.Pair;
 
 public class McdController extends ModelView {
-    private static final ThemeManager T_M = ThemeManager.getInstance();
     
     @Override
     public ViewType getViewType() {
@@ -64,7 +57,7 @@ public class McdController extends ModelView {
                     }
 
                     else if (e.getCode() == KeyCode.D && e.isControlDown()) {
-                        List<TableController> selectedTables = this.selectionModel.getSelected();
+                        List<TableController> selectedTables = new ArrayList<>(this.selectionModel.getSelected());
 
                         for(TableController tc : selectedTables) {
                             Table dupli = new Table(tc.getTable());
@@ -80,7 +73,7 @@ public class McdController extends ModelView {
                                 this.conceptualSchema.addEntity(dupli);
                             } else {
                                 List<Pair<String, CardinalityValue>> l = new ArrayList<>();
-                                for(Pair<Table, CardinalityValue> p : this.conceptualSchema.getLinks().get(tc.getTable().name)) {
+                                for(Pair<Table, CardinalityValue> p : this.conceptualSchema.getLinks(tc.getTable().name)) {
                                     l.add(new Pair<>(p.getKey().name, p.getValue()));
                                 }
                                 this.conceptualSchema.addAssociation(dupli.name, l);
@@ -93,6 +86,17 @@ public class McdController extends ModelView {
             }
         });
 
+        // double clic sur une cardinalité (dessinée par super.edges)
+        this.getRoot().addEventHandler(MouseEvent.MOUSE_CLICKED, e -> {
+            if (e.getButton() != MouseButton.PRIMARY || e.getClickCount() != 2 || e.getTarget() != this.getRoot()) return;
+
+            Point2D p = super.group.sceneToLocal(e.getSceneX(), e.getSceneY());
+            if (super.edges.labelAt(p.getX(), p.getY()) instanceof Connection c) {
+                this.editCardinality(c);
+                e.consume();
+            }
+        });
+
         this.btnEntity.setOnAction(e -> {
             this.addEntity();
         });
@@ -103,14 +107,21 @@ public class McdController extends ModelView {
 
     @Override
     public void open() {
-        this.conceptualSchema = new ConceptualSchema(MainApp.schema);
+        super.changes.attach(MainApp.schema);
+
+        // le MCD se tient à jour tant que la vue est ouverte et que le schema ne change pas d'objet
+        if (this.conceptualSchema == null || this.conceptualSchema.getSchema() != MainApp.schema) {
+            if (this.conceptualSchema != null) this.conceptualSchema.detach();
+            this.conceptualSchema = new ConceptualSchema(MainApp.schema);
+        }
 
-        // supprime tous les nodes sauf selectionRect
+        // rend les nodes au pool puis supprime tous les nodes sauf selectionRect
+        super.releaseTableNodes();
         super.group.getChildren().removeIf(node -> node != super.lasso.rect);
 
         // vider les structures
-        super.tableNodes.clear();
         super.connectionLines.clear();
+        super.edges.markDirty();
 
         // créer les nodes à partir du MCD
         this.createTableNodes();
@@ -121,6 +132,79 @@ public class McdController extends ModelView {
         super.updateStyle();
     }
 
+    @Override
+    public void close() {
+        super.close();
+        if (this.conceptualSchema != null) {
+            this.conceptualSchema.detach();
+            this.conceptualSchema = null;
+        }
+    }
+
+    @Override
+    public void addTables(List<Table> tables) {
+        // les entités s'affichent au fur et à mesure,
+        // les associations dépendent de toutes les tables et attendent endLoad
+        for (Table table : tables) {
+            if (this.conceptualSchema.getEntityTable(table.name) == table) {
+                this.createTableNode(table, TableType.Entity);
+            }
+        }
+
+        super.lasso.rect.toFront();
+    }
+
+    @Override
+    public void endLoad() {
+        super.changes.clear();
+
+        // les entités sont déjà affichées (mêmes objets Table que le schema)
+        for (Table table : this.conceptualSchema.getEntitiesTables()) {
+            if (super.tableNodes.get(table.name) == null) {
+                this.createTableNode(table, TableType.Entity);
+            }
+        }
+        this.drawConnections();
+
+        super.lasso.rect.toFront();
+
+        super.updateStyle();
+    }
+
+    /**
+     * Ne refait que les nodes des tables ajoutées, modifiées ou supprimées
+     * (et des associations qui n'existent plus ou pas encore), les autres nodes sont gardés
+     */
+    @Override
+    public void sync() {
+        if (super.changes.isEmpty()) return;
+
+        Set<String> names = super.changes.getNames();
+        super.changes.clear();
+
+        // retire les nodes modifiés ou qui ne sont plus dans le MCD
+        for (TableController tc : new ArrayList<>(super.tableNodes.values())) {
+            String name = tc.getTable().name;
+            boolean exists = tc.getType() == TableType.Entity
+                ? this.conceptualSchema.getEntityTable(name) != null
+                : this.conceptualSchema.getAssociationTable(name) != null;
+
+            if (names.contains(name) || !exists) {
+                super.hideTableNode(tc);
+            }
+        }
+
+        // nouvelles entités, puis associations et liens
+        for (Table table : this.conceptualSchema.getEntitiesTables()) {
+            if (super.tableNodes.get(table.name) == null) {
+                this.createTableNode(table, TableType.Entity);
+            }
+        }
+        this.drawConnections();
+
+        super.lasso.rect.toFront();
+    }
+
     /**
      * Crée les nodes visuels pour les entités
      */
@@ -134,18 +218,9 @@ public class McdController extends ModelView {
      * Crée un node d'entité/association
      */
     private void createTableNode(Table table, TableType tabletype) {
-        AnchorPane tcPane;
-        TableController tcController;
-        
-        try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/table.fxml"));
-            tcPane = loader.load();
-            tcController = loader.getController();
-        } catch (IOException e) { throw new Error("Une erreur est survenue lors de la création du visuel"); }
+        TableController tcController = super.acquireTableNode(table, tabletype);
+        AnchorPane tcPane = tcController.getRoot();
 
-        tcController.createTableController(table, tabletype);
-
-        super.tableNodes.put(table.name, tcController);
 
         // Gérer la sélection
         tcController.setOnSelect((tc, e) -> super.handleSelection((TableController) tc, e));
@@ -163,14 +238,13 @@ public class McdController extends ModelView {
             }
         });
 
-        // mettre a jour la position lors d'un déplacement
-        tcPane.layoutXProperty().addListener((a, b, c) -> table.setPosition(tcPane.getLayoutX(), table.getPosY()));
-        tcPane.layoutYProperty().addListener((a, b, c) -> table.setPosition(table.getPosX(), tcPane.getLayoutY()));
+        // les liens sont redessinés quand le node bouge
+        tcController.setOnBoundsChanged(super.edges::markDirty);
 
         // attache le node pour le multidrag
         super.multiDrag.attach(tcController);
 
-        super.group.getChildren().add(tcPane);
+        super.showTableNode(tcController);
     }
 
     /**
@@ -178,36 +252,38 @@ public class McdController extends ModelView {
      */
     private void drawConnections() {
         // Supprimer les anciennes lignes
-        super.connectionLines.forEach(connection -> {
-            super.group.getChildren().remove(connection.line);
-            super.group.getChildren().remove(connection.label);
-        });
         super.connectionLines.clear();
+        super.edges.markDirty();
 
         Map<String, List<Pair<Table, CardinalityValue>>> links = this.conceptualSchema.getLinks();
         for (String name : links.keySet()) {
-            Table table = this.conceptualSchema.getAssociationTable(name);
+            TableController ac = super.tableNodes.get(name);
+
+            // les associations déjà affichées (sync) gardent leur node
+            if (ac == null) {
+                Table table = this.conceptualSchema.getAssociationTable(name);
+
+                if(!table.isPositionned()) {
+                    // centrer l'association
+                    double sumX = 0;
+                    double sumY = 0;
 
-            if(!table.isPositionned()) {
-                // centrer l'association
-                double sumX = 0;
-                double sumY = 0;
+                    List<Pair<Table, CardinalityValue>> l = links.get(name);
+                    for(Pair<Table, CardinalityValue> p : l) {
+                        sumX += p.getKey().getPosX();
+                        sumY += p.getKey().getPosY();
+                    }
 
-                List<Pair<Table, CardinalityValue>> l = links.get(name);
-                for(Pair<Table, CardinalityValue> p : l) {
-                    sumX += p.getKey().getPosX();
-                    sumY += p.getKey().getPosY();
+                    table.setPosition(
+                        sumX / l.size(),
+                        sumY / l.size()
+                    );
                 }
 
-                table.setPosition(
-                    sumX / l.size(),
-                    sumY / l.size()
-                );
+                this.createTableNode(table, TableType.Association);
+                ac = super.tableNodes.get(name);
             }
 
-            this.createTableNode(table, TableType.Association);
-            TableController ac = super.tableNodes.get(name);
-
             for(Pair<Table, CardinalityValue> p : links.get(name)) {
                 TableController ec = super.tableNodes.get(p.getKey().name);
 
@@ -224,46 +300,9 @@ public class McdController extends ModelView {
         if (fromEntity == null || fromEntity.getType() != TableType.Entity) return;
         if (toAsso == null || toAsso.getType() != TableType.Association) return;
 
-        double fromX = fromEntity.getRoot().getLayoutX() + fromEntity.getRoot().getWidth() / 2;
-        double fromY = fromEntity.getRoot().getLayoutY() + fromEntity.getRoot().getHeight() / 2;
-        double toX = toAsso.getRoot().getLayoutX() + toAsso.getRoot().getWidth() / 2;
-        double toY = toAsso.getRoot().getLayoutY() + toAsso.getRoot().getHeight() / 2;
-
-        Line line = new Line(fromX, fromY, toX, toY);
-        line.setStroke(Color.web(T_M.getTheme().getSecondaryTextColor()));
-        line.setStrokeWidth(2);
-        line.getStrokeDashArray().addAll(5.0, 5.0);
-        
-        // bind la ligne aux tables
-        line.startXProperty().bind(fromEntity.getRoot().layoutXProperty().add(fromEntity.getRoot().widthProperty().divide(2)));
-        line.startYProperty().bind(fromEntity.getRoot().layoutYProperty().add(fromEntity.getRoot().heightProperty().divide(2)));
-        line.endXProperty().bind(toAsso.getRoot().layoutXProperty().add(toAsso.getRoot().widthProperty().divide(2)));
-        line.endYProperty().bind(toAsso.getRoot().layoutYProperty().add(toAsso.getRoot().heightProperty().divide(2)));
-    
-        // Texte de la cardinalité
-        Label cardinalityLabel = new Label(cardinality.toString());
-        cardinalityLabel.setOnMouseClicked(e -> {
-            if (e.getButton() == MouseButton.PRIMARY) {
-                if (e.getClickCount() == 2) {
-                    this.editCardinality(cardinalityLabel, fromEntity, toAsso);
-                }
-            }
-        });
-
-        // Bind le Label au centre de la ligne
-        cardinalityLabel.layoutXProperty().bind(
-            line.startXProperty().add(line.endXProperty().subtract(line.startXProperty()).divide(2))
-                    .subtract(cardinalityLabel.widthProperty().divide(2)) // centrer horizontalement
-        );
-        cardinalityLabel.layoutYProperty().bind(
-            line.startYProperty().add(line.endYProperty().subtract(line.startYProperty()).divide(2))
-                    .subtract(cardinalityLabel.heightProperty().divide(2)) // centrer verticalement
-        );
-
-        // ajoute la ligne derrière le node
-        super.group.getChildren().add(0, cardinalityLabel);
-        super.group.getChildren().add(0, line);
-        super.connectionLines.add(new Connection(fromEntity.getTable().name, toAsso.getTable().name, line, cardinalityLabel));
+        // dessiné par super.edges, avec la cardinalité au milieu
+        super.connectionLines.add(new Connection(fromEntity.getTable().name, toAsso.getTable().name, fromEntity, toAsso, cardinality.toString()));
+        super.edges.markDirty();
     }
 
     // TODO
@@ -271,9 +310,9 @@ public class McdController extends ModelView {
      *   // Édition inline de la cardinalité (double-clic sur le label).
      *   // Change la cardinalité dans le ConceptualSchema et rafraîchit.
      */
-    private void editCardinality(Label cardLabel, TableController entityNode, TableController assocNode) {
+    private void editCardinality(Connection connection) {
         // CardinalityValue[] values = CardinalityValue.values();
-        // String current = cardLabel.getText();
+        // String current = connection.label;
         // CardinalityValue currentCard = CardinalityValue.getCardinalityValue(current);
         // int idx = 0;
         // for (int i = 0; i < values.length; i++) {
@@ -282,8 +321,8 @@ public class McdController extends ModelView {
         // CardinalityValue next = values[(idx + 1) % values.length];
 
         // // Mettre à jour dans le modèle
-        // String entityName = entityNode.getTable().getName();
-        // String assocName  = assocNode.getTable().getName();
+        // String entityName = connection.firstTable;
+        // String assocName  = connection.secondTable;
 
         // // for (ConceptualSchema.Association assoc : this.conceptualSchema.getAssociations()) {
         // //     if (assoc.name.equals(assocName)) {
@@ -296,7 +335,8 @@ public class McdController extends ModelView {
         // //     }
         // // }
 
-        // cardLabel.setText(next.toString());
+        // connection.label = next.toString();
+        // super.edges.markDirty();
     }
 
     /**
@@ -339,45 +379,14 @@ public class McdController extends ModelView {
             return;
         }
 
-        // Mettre à jour dans le ConceptualSchema
-        this.conceptualSchema.updateEntity(oldName, modifiedTable);
-
-        // Mise à jour du schema global
-        MainApp.schema.tables.remove(oldName);
-        MainApp.schema.addTable(modifiedTable);
-
-        // Supprime l'ancien node visuel
-        super.group.getChildren().remove(tc.getRoot());
-        super.tableNodes.remove(oldName);
-
-        // Supprime les anciens liens liés à cette entité
-        Iterator<Connection> it = super.connectionLines.iterator();
-        while (it.hasNext()) {
-            Connection connection = it.next();
-
-            if (connection.firstTable.equals(oldName)) {
-                super.group.getChildren().removeAll(connection.line, connection.label);
-                it.remove();
-            }
+        // Mettre à jour dans le ConceptualSchema (et dans le schema global) : la table est renommée, pas recréée
+        if (this.conceptualSchema.updateEntity(oldName, modifiedTable) == null) {
+            CanvasController.showWarningAlert("Erreur", "Ce nom est déja utilisé.");
+            return;
         }
 
-        // Recrée le node avec le nouveau nom
-        this.createTableNode(modifiedTable, TableType.Entity);
-
-        TableController newTc = super.tableNodes.get(newName);
-
-        // Redessine uniquement les liens de cette entité
-        for (Entry<String, List<Pair<Table, CardinalityValue>>> entry : this.conceptualSchema.getLinks().entrySet()) {
-            String assocName = entry.getKey();
-            TableController assocTc = super.tableNodes.get(assocName);
-
-            for (Pair<Table, CardinalityValue> p : entry.getValue()) {
-                if (p.getKey().name.equals(newName)) {
-                    this.drawConnection(newTc, assocTc, p.getValue());
-                    break;
-                }
-            }
-        }
+        // Refait les nodes de l'entité, des tables qui la référencent et des associations concernées
+        this.sync();
     }
 
     /**
@@ -424,7 +433,7 @@ public class McdController extends ModelView {
         String oldName = oldTable.name;
 
         // TODO: erreur ici
-        Pair<String, List<Pair<Table, CardinalityValue>>> current = new Pair<>(oldName, this.conceptualSchema.getLinks().get(oldName));
+        Pair<String, List<Pair<Table, CardinalityValue>>> current = new Pair<>(oldName, this.conceptualSchema.getLinks(oldName));
         AssociationEditorDialog dialog = new AssociationEditorDialog(entities, current);
         dialog.showAndWait();
         if (!dialog.isConfirmed()) return;
@@ -439,8 +448,7 @@ public class McdController extends ModelView {
 
         // Supprime l'ancienne association
         this.conceptualSchema.removeAssociation(oldName);
-        super.group.getChildren().remove(assocTc.getRoot());
-        super.tableNodes.remove(oldName);
+        super.hideTableNode(assocTc);
         this.removeConnectionsInvolving(oldName);
 
         // Recrée la nouvelle association
@@ -480,34 +488,28 @@ public class McdController extends ModelView {
             }
 
             this.removeConnectionsInvolving(name);
-            super.group.getChildren().remove(tc.getRoot());
-            super.tableNodes.remove(name);
+            super.hideTableNode(tc);
         }
 
         super.selectionModel.clear();
     }
 
     private void applyDialogAttributesToTable(Table table, List<DialogColumnRow> rows) {
-        table.columns.clear();
+        table.clearColumns();
 
         for (DialogColumnRow row : rows) {
-            Column col = new Column(row.getName(), __SqlType.get(row.getType(), MainApp.schema.type));
+            Column col = new Column(row.getName(), row.getType(), MainApp.schema.type);
             col.isPrimaryKey = row.isPrimaryKey();
             col.isNotNull = row.isNotNull();
             col.isUnique = row.isUnique();
             col.isAutoIncrementing = row.isAutoIncrement();
             table.addColumn(col);
         }
+        table.touch();
     }
 
     private void removeConnectionsInvolving(String tableName) {
-        Iterator<Connection> it = super.connectionLines.iterator();
-        while (it.hasNext()) {
-            Connection c = it.next();
-            if (tableName.equals(c.firstTable) || tableName.equals(c.secondTable)) {
-                super.group.getChildren().removeAll(c.line, c.label);
-                it.remove();
-            }
-        }
+        super.connectionLines.removeIf(c -> c.involves(tableName));
+        super.edges.markDirty();
     }
 }
\ No newline at end of file
@@ -1,6 +1,11 @@
 package com.dbeditor.controller.view;
 
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.dbeditor.MainApp;
 import com.dbeditor.controller.CanvasController;
@@ -8,31 +13,94 @@ import com.dbeditor.controller.TableController;
 import com.dbeditor.controller.TableController.TableType;
 import com.dbeditor.controller.ViewType;
 import com.dbeditor.controller.view.dialogs.TableEditorDialog;
+import com.dbeditor.controller.view.helpers.EdgeLayer;
 import com.dbeditor.model.ForeignKey;
 import com.dbeditor.model.Table;
-import com.dbeditor.util.ThemeManager;
 
-import javafx.fxml.FXMLLoader;
+import javafx.application.Platform;
+import javafx.geometry.Bounds;
+import javafx.scene.control.ToolBar;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Line;
+import javafx.scene.transform.Transform;
 
 public class MldController extends ModelView {
-    private static final ThemeManager T_M = ThemeManager.getInstance();
+    /**
+     * Marge autour de la zone visible (en fraction de sa taille) dont les tables ont quand même un node,
+     * pour ne pas en créer à chaque petit déplacement
+     */
+    private static final double CULL_MARGIN = 0.25;
+
+    /**
+     * Taille supposée d'une table jamais affichée
+     */
+    private static final double DEFAULT_WIDTH = 160;
+    private static final double HEADER_HEIGHT = 40;
+    private static final double ROW_HEIGHT = 20;
+
+    /**
+     * Place d'une table dans le MLD, qu'elle ait un node ou pas.
+     * Les liens partent du slot : ils suivent le node quand il existe, sinon la dernière position/taille connue
+     */
+    private static final class Slot implements EdgeLayer.Anchor {
+        final Table table;
+        double x, y, width, height;
+        TableController node;
+
+        Slot(Table table) {
+            this.table = table;
+            this.x = table.getPosX();
+            this.y = table.getPosY();
+            this.width = DEFAULT_WIDTH;
+            this.height = HEADER_HEIGHT + ROW_HEIGHT * table.getColumnCount();
+        }
+
+        boolean intersects(double minX, double minY, double maxX, double maxY) {
+            return this.x < maxX && this.x + this.width > minX
+                && this.y < maxY && this.y + this.height > minY;
+        }
+
+        @Override
+        public double getCenterX() { return this.x + this.width / 2; }
+        @Override
+        public double getCenterY() { return this.y + this.height / 2; }
+    }
+
+    /**
+     * Toutes les tables du MLD, tableNodes ne contient que celles qui ont un node (visibles)
+     */
+    private final Map<String, Slot> slots = new LinkedHashMap<>();
+
+    /**
+     * Pendant un chargement : table référencée pas encore arrivée -> tables qui la référencent
+     */
+    private final Map<String, List<Slot>> pendingLinks = new HashMap<>();
+
+    private boolean cullScheduled = false;
 
     @Override
     public ViewType getViewType() {
         return ViewType.MLD;
     }
 
+    @Override
+    public void initialization(ToolBar toolbar) {
+        super.initialization(toolbar);
+        super.zoomPan.addViewportListener(this::scheduleCull);
+    }
+
     @Override
     public void open() {
-        // supprime tous les nodes sauf selectionRect
+        super.changes.attach(MainApp.schema);
+
+        // rend les nodes au pool puis supprime tous les nodes sauf selectionRect
+        super.releaseTableNodes();
         super.group.getChildren().removeIf(node -> node != super.lasso.rect);
 
-        super.tableNodes.clear();
         super.connectionLines.clear();
+        super.edges.markDirty();
+        this.slots.clear();
+        this.pendingLinks.clear();
 
         this.createTableNodes();
         this.drawConnections();
@@ -40,34 +108,151 @@ public class MldController extends ModelView {
         super.lasso.rect.toFront();
 
         super.updateStyle();
+        this.cull();
+    }
+
+    @Override
+    public void addTables(List<Table> tables) {
+        for (Table table : tables) {
+            this.slots.put(table.name, new Slot(table));
+        }
+
+        for (Table table : tables) {
+            Slot slot = this.slots.get(table.name);
+
+            // liens sortants : vers les tables déjà présentes, sinon en attente
+            for (ForeignKey fk : table.getForeignKeysView()) {
+                Slot to = this.slots.get(fk.referencedTable);
+                if (to != null) {
+                    this.drawConnection(slot, to);
+                } else {
+                    this.pendingLinks.computeIfAbsent(fk.referencedTable, k -> new ArrayList<>()).add(slot);
+                }
+            }
+
+            // liens entrants : tables arrivées avant celle-ci
+            List<Slot> waiting = this.pendingLinks.remove(table.name);
+            if (waiting != null) {
+                for (Slot from : waiting) {
+                    this.drawConnection(from, slot);
+                }
+            }
+        }
+
+        this.scheduleCull();
+    }
+
+    @Override
+    public void endLoad() {
+        // les tables jamais arrivées (chargement annulé ou hors bdd) n'ont pas de lien
+        this.pendingLinks.clear();
+
+        // les tables chargées sont déjà affichées
+        super.changes.clear();
+    }
+
+    /**
+     * Ne refait que les slots (et leurs liens) des tables ajoutées, modifiées ou supprimées
+     */
+    @Override
+    public void sync() {
+        if (super.changes.isEmpty()) return;
+
+        Set<String> names = super.changes.getNames();
+
+        for (String name : super.changes.getRemoved()) {
+            Slot slot = this.slots.remove(name);
+            if (slot != null && slot.node != null) this.removeTableNode(slot);
+        }
+
+        List<Slot> touched = new ArrayList<>();
+        for (Table table : super.changes.getTouched()) {
+            Slot old = this.slots.get(table.name);
+            if (old != null && old.node != null) this.removeTableNode(old);
+
+            Slot slot = new Slot(table);
+            this.slots.put(table.name, slot);
+            touched.add(slot);
+        }
+        super.changes.clear();
+
+        // liens : seuls ceux qui touchent une table modifiée sont refaits
+        super.connectionLines.removeIf(c -> names.contains(c.firstTable) || names.contains(c.secondTable));
+        for (Slot from : touched) {
+            for (ForeignKey fk : from.table.getForeignKeysView()) {
+                this.drawConnection(from, this.slots.get(fk.referencedTable));
+            }
+        }
+        for (Slot from : this.slots.values()) {
+            if (names.contains(from.table.name)) continue;
+            for (ForeignKey fk : from.table.getForeignKeysView()) {
+                if (names.contains(fk.referencedTable)) {
+                    this.drawConnection(from, this.slots.get(fk.referencedTable));
+                }
+            }
+        }
+        super.edges.markDirty();
+
+        this.scheduleCull();
     }
 
     /**
-     * Permet de créer le visuel des tables à partir d'un DatabaseSchema
+     * Permet de créer les slots des tables à partir d'un DatabaseSchema,
+     * les nodes sont créés par cull pour les tables visibles
      */
     private void createTableNodes() {
-        for (Table table : MainApp.schema.getTables()) {
-            this.createTableNode(table);
+        for (Table table : MainApp.schema.getTablesView()) {
+            this.slots.put(table.name, new Slot(table));
         }
     }
 
     /**
-     * Crée un node de table
-     * @param table la table à créer
+     * Demande une mise à jour des nodes visibles, un seul appel en attente à la fois
+     */
+    private void scheduleCull() {
+        if (this.cullScheduled) return;
+        this.cullScheduled = true;
+        Platform.runLater(this::cull);
+    }
+
+    /**
+     * Crée les nodes des tables dans la zone visible (plus une marge) et retire les autres.
+     * Les tables sélectionnées gardent leur node (elles peuvent être en cours de déplacement)
      */
-    private void createTableNode(Table table) {
-        AnchorPane tcPane;
-        TableController tcController;
+    private void cull() {
+        this.cullScheduled = false;
+
+        Bounds view = super.zoomPan.getViewport();
+        if (view.getWidth() <= 0 || view.getHeight() <= 0) return; // vue pas encore affichée
+
+        double mx = view.getWidth() * CULL_MARGIN;
+        double my = view.getHeight() * CULL_MARGIN;
+        double minX = view.getMinX() - mx, maxX = view.getMaxX() + mx;
+        double minY = view.getMinY() - my, maxY = view.getMaxY() + my;
+
+        boolean added = false;
+        for (Slot slot : this.slots.values()) {
+            boolean visible = slot.intersects(minX, minY, maxX, maxY);
+            if (visible && slot.node == null) {
+                this.createTableNode(slot);
+                added = true;
+            } else if (!visible && slot.node != null && !super.selectionModel.contains(slot.node)) {
+                this.removeTableNode(slot);
+            }
+        }
 
-        try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/table.fxml"));
-            tcPane = loader.load();
-            tcController = loader.getController();
-        } catch (IOException e) { throw new Error("Une erreur est survenue lors de la création du visuel"); }
+        if (added) super.lasso.rect.toFront();
+    }
 
-        tcController.createTableController(table, TableType.Table);
+    /**
+     * Crée le node d'une table
+     * @param slot la table à afficher
+     */
+    private void createTableNode(Slot slot) {
+        TableController tcController = super.acquireTableNode(slot.table, TableType.Table);
+        AnchorPane tcPane = tcController.getRoot();
 
-        super.tableNodes.put(table.name, tcController);
+        slot.node = tcController;
 
         // gérer la sélection d'un table lorsqu'elle est cliquée
         tcController.setOnSelect((tc, e) -> super.handleSelection((TableController) tc, e));
@@ -81,14 +266,28 @@ public class MldController extends ModelView {
             }
         });
 
-        // mettre a jour la position lors d'un déplacement
-        tcPane.layoutXProperty().addListener((a, b, c) -> table.setPosition(tcPane.getLayoutX(), table.getPosY()));
-        tcPane.layoutYProperty().addListener((a, b, c) -> table.setPosition(table.getPosX(), tcPane.getLayoutY()));
+        // le slot suit le node (la table, elle, est mise à jour par TableController)
+        tcController.setOnBoundsChanged(() -> {
+            Transform t = tcPane.getLocalToParentTransform();
+            slot.x = t.getTx();
+            slot.y = t.getTy();
+            slot.width = tcPane.getWidth();
+            slot.height = tcPane.getHeight();
+            super.edges.markDirty();
+        });
 
         // attache le node pour le multidrag
         super.multiDrag.attach(tcController);
 
-        super.group.getChildren().add(tcPane);
+        super.showTableNode(tcController);
+    }
+
+    /**
+     * Retire le node d'une table sortie de la zone visible, le slot garde sa position et sa taille
+     */
+    private void removeTableNode(Slot slot) {
+        super.hideTableNode(slot.node);
+        slot.node = null;
     }
 
     /**
@@ -96,16 +295,13 @@ public class MldController extends ModelView {
      */
     private void drawConnections() {
         // Supprimer les anciennes lignes
-        super.connectionLines.forEach(connection -> super.group.getChildren().remove(connection.line));
         super.connectionLines.clear();
 
-        for (TableController fromNode : super.tableNodes.values()) {
-
-            Table fromTable = fromNode.getTable();
-            for (ForeignKey fk : fromTable.getForeignKeys()) {
-                TableController toNode = super.tableNodes.get(fk.referencedTable);
-                if (toNode != null) {
-                    this.drawConnection(fromNode, toNode);
+        for (Slot from : this.slots.values()) {
+            for (ForeignKey fk : from.table.getForeignKeysView()) {
+                Slot to = this.slots.get(fk.referencedTable);
+                if (to != null) {
+                    this.drawConnection(from, to);
                 }
             }
         }
@@ -116,28 +312,12 @@ public class MldController extends ModelView {
      * @param from -> table 1
      * @param to -> table 2
      */
-    private void drawConnection(TableController from, TableController to) {
+    private void drawConnection(Slot from, Slot to) {
         if (from == null || to == null) return;
-        
-        double fromX = from.getRoot().getLayoutX() + from.getRoot().getWidth() / 2;
-        double fromY = from.getRoot().getLayoutY() + from.getRoot().getHeight() / 2;
-        double toX = to.getRoot().getLayoutX() + to.getRoot().getWidth() / 2;
-        double toY = to.getRoot().getLayoutY() + to.getRoot().getHeight() / 2;
-
-        Line line = new Line(fromX, fromY, toX, toY);
-        line.setStroke(Color.web(T_M.getTheme().getSecondaryTextColor()));
-        line.setStrokeWidth(2);
-        line.getStrokeDashArray().addAll(5.0, 5.0);
-        
-        // bind la ligne aux tables
-        line.startXProperty().bind(from.getRoot().layoutXProperty().add(from.getRoot().widthProperty().divide(2)));
-        line.startYProperty().bind(from.getRoot().layoutYProperty().add(from.getRoot().heightProperty().divide(2)));
-        line.endXProperty().bind(to.getRoot().layoutXProperty().add(to.getRoot().widthProperty().divide(2)));
-        line.endYProperty().bind(to.getRoot().layoutYProperty().add(to.getRoot().heightProperty().divide(2)));
-    
-        // ajoute la ligne derrière le node
-        super.group.getChildren().add(0, line);
-        super.connectionLines.add(new Connection(from.getTable().name, to.getTable().name, line, null));
+
+        // dessiné par super.edges, derrière les nodes
+        super.connectionLines.add(new Connection(from.table.name, to.table.name, from, to, null));
+        super.edges.markDirty();
     }
 
     /**
@@ -155,7 +335,7 @@ public class MldController extends ModelView {
         String newName = modifiedTable.name;
         
         // Si le nom a changé, vérifier qu'il n'existe pas déjà
-        if (!oldName.equals(newName) && MainApp.schema.tables.get(newName) != null) {
+        if (!oldName.equals(newName) && MainApp.schema.hasTable(newName)) {
             CanvasController.showWarningAlert("Erreur", "Une table avec ce nom existe déjà.");
             return;
         }
@@ -6,10 +6,17 @@ import java.util.List;
 import java.util.Map;
 
 import com.dbeditor.controller.TableController;
+import com.dbeditor.controller.TableController.Detail;
+import com.dbeditor.controller.TableController.TableType;
+import com.dbeditor.controller.view.helpers.EdgeLayer;
 import com.dbeditor.controller.view.helpers.LassoSelector;
 import com.dbeditor.controller.view.helpers.MultiDragManager;
+import com.dbeditor.controller.view.helpers.SchemaChanges;
 import com.dbeditor.controller.view.helpers.SelectionModel;
+import com.dbeditor.controller.view.helpers.SpatialIndex;
+import com.dbeditor.controller.view.helpers.TableNodePool;
 import com.dbeditor.controller.view.helpers.ZoomPanHandler;
+import com.dbeditor.model.Table;
 import com.dbeditor.util.ThemeManager;
 
 import javafx.scene.Group;
@@ -17,24 +24,27 @@ import javafx.scene.control.Label;
 import javafx.scene.control.ToolBar;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.Pane;
-import javafx.scene.shape.Line;
+import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 
 public abstract class ModelView extends View {
 
-    protected class Connection {
+    protected class Connection implements EdgeLayer.Edge {
         public final String firstTable;
         public final String secondTable;
-        public final Line line;
-        public final Label label;
+        public final EdgeLayer.Anchor from;
+        public final EdgeLayer.Anchor to;
+        public String label;
 
         /**
          * pour le MCD : entité, association, ...
+         * @param label texte au milieu du lien (cardinalité), null si aucun
          */
-        public Connection(String firstTable, String secondTable, Line line, Label label) {
+        public Connection(String firstTable, String secondTable, EdgeLayer.Anchor from, EdgeLayer.Anchor to, String label) {
             this.firstTable = firstTable;
             this.secondTable = secondTable;
-            this.line = line;
+            this.from = from;
+            this.to = to;
             this.label = label;
         }
 
@@ -42,22 +52,42 @@ public abstract class ModelView extends View {
             return this.firstTable.equals(tableName) || this.secondTable.equals(tableName);
         }
 
-        public void removeFrom(Group group) {
-            group.getChildren().removeAll(this.line, this.label);
-        }
+        @Override
+        public EdgeLayer.Anchor from() { return this.from; }
+        @Override
+        public EdgeLayer.Anchor to() { return this.to; }
+        @Override
+        public String label() { return this.label; }
     }
 
     private static final ThemeManager T_M = ThemeManager.getInstance();
+    protected static final TableNodePool T_N_P = TableNodePool.getInstance();
 
     // Nodes visuels
     protected final Map<String, TableController> tableNodes = new HashMap<>();
     protected final List<Connection> connectionLines = new ArrayList<>();
 
+    /**
+     * Dessine connectionLines, markDirty après chaque modification de la liste
+     */
+    protected EdgeLayer edges;
+
+    /**
+     * Modifications de MainApp.schema depuis le dernier open/sync
+     */
+    protected final SchemaChanges changes = new SchemaChanges();
+
     // Helpers
     protected ZoomPanHandler zoomPan;
     protected SelectionModel<TableController> selectionModel;
     protected LassoSelector<TableController> lasso;
     protected MultiDragManager<TableController> multiDrag;
+    protected SpatialIndex<TableController> index;
+
+    /**
+     * Niveau de détail des tables, suit le zoom
+     */
+    protected Detail detail = Detail.FULL;
 
     protected Label zlLabel;
     private Pane pane;
@@ -66,18 +96,22 @@ public abstract class ModelView extends View {
     @Override
     public void initialization(ToolBar toolbar) {
         this.zlLabel = new Label("");
+        this.zlLabel.getStyleClass().add("zoom-label");
         toolbar.getItems().add(this.zlLabel);
 
         this.pane = new Pane();
+        this.pane.getStyleClass().add("model-view");
         this.group = new Group();
         this.pane.getChildren().add(this.group);
-        
+        this.edges = new EdgeLayer(this.pane, this.group, this.connectionLines);
+
         // Initialiser le modèle de sélection -> visualizer appelle setSelected sur TableController
         this.selectionModel = new SelectionModel<>((tc, selected) -> tc.setSelected(selected));
         
         // Initialiser le zoom/pan
         this.zoomPan = new ZoomPanHandler(this.pane, this.group);
         this.zoomPan.setupEvents(this.zlLabel);
+        this.zoomPan.addViewportListener(this::updateDetail);
 
         // Initialiser le multidrag
         this.multiDrag = new MultiDragManager<>(this.selectionModel);
@@ -89,7 +123,8 @@ public abstract class ModelView extends View {
         this.pane.setClip(clip);
 
         // Initialiser le lasso avec la liste partagée (vide pour l'instant)
-        this.lasso = new LassoSelector<>(this.pane, this.group, this.tableNodes, this.selectionModel);
+        this.index = new SpatialIndex<>();
+        this.lasso = new LassoSelector<>(this.pane, this.group, this.index, this.selectionModel);
         this.lasso.setupEvents();
 
         this.updateStyle();
@@ -97,29 +132,79 @@ public abstract class ModelView extends View {
 
     @Override
     public void updateStyle() {
-        this.pane.setStyle("-fx-background-color: " + T_M.getTheme().getBackgroundColor() + ";");
-        
-        this.zlLabel.setStyle("-fx-text-fill: " + T_M.getTheme().getTextColor() + ";");
-        
+        // pane, label et tables : feuille de style du thème (ThemeManager), seul le canvas des liens a besoin des couleurs
+        this.edges.setColors(
+            Color.web(T_M.getTheme().getSecondaryTextColor()),
+            Color.web(T_M.getTheme().getTextColor()),
+            Color.web(T_M.getTheme().getBackgroundColor())
+        );
+    }
+
+    @Override
+    public void updateType() {
         for (TableController tc : this.tableNodes.values()) {
-            tc.updateStyle();
+            tc.updateType();
         }
+    }
+
+    @Override
+    public void close() {
+        this.changes.detach();
+        this.releaseTableNodes();
+    }
 
-        for(Connection c : this.connectionLines) {
-            if(c.label == null) continue;
-            c.label.setStyle(
-                "-fx-background-color: " + T_M.getTheme().getBackgroundColor() + "; " + 
-                "-fx-text-fill: " + T_M.getTheme().getTextColor() + ";" +
-                "-fx-font-size: 15;"
-            );
+    /**
+     * Renvoie un node du pool pour la table, au niveau de détail actuel
+     */
+    protected TableController acquireTableNode(Table table, TableType type) {
+        TableController tc = T_N_P.acquire(table, type);
+        tc.setDetail(this.detail);
+        return tc;
+    }
+
+    /**
+     * Met à jour le niveau de détail des tables si le zoom a franchi un seuil
+     */
+    private void updateDetail() {
+        Detail d = Detail.forZoom(this.zoomPan.getZoomLevel());
+        if (d == this.detail) return;
+
+        this.detail = d;
+        for (TableController tc : this.tableNodes.values()) {
+            tc.setDetail(d);
         }
     }
 
-    @Override
-    public void updateType() {
+    /**
+     * Affiche le node d'une table : ajouté au group, à tableNodes et à l'index
+     */
+    protected void showTableNode(TableController tc) {
+        this.tableNodes.put(tc.getTable().name, tc);
+        this.index.add(tc);
+        this.group.getChildren().add(tc.getRoot());
+    }
+
+    /**
+     * Retire le node d'une table de la vue et le rend au pool
+     */
+    protected void hideTableNode(TableController tc) {
+        this.selectionModel.deselect(tc);
+        this.index.remove(tc);
+        // la table a pu être renommée entre temps
+        if (!this.tableNodes.remove(tc.getTable().name, tc)) this.tableNodes.values().remove(tc);
+        T_N_P.release(tc);
+    }
+
+    /**
+     * Rend au pool tous les nodes de table de la vue
+     */
+    protected void releaseTableNodes() {
+        this.selectionModel.clear();
+        this.index.clear();
         for (TableController tc : this.tableNodes.values()) {
-            tc.updateType();
+            T_N_P.release(tc);
         }
+        this.tableNodes.clear();
     }
 
     /**
@@ -13,19 +13,21 @@ import com.dbeditor.controller.modifier.Visual;
 import com.dbeditor.controller.view.helpers.LassoSelector;
 import com.dbeditor.controller.view.helpers.MultiDragManager;
 import com.dbeditor.controller.view.helpers.SelectionModel;
+import com.dbeditor.controller.view.helpers.SpatialIndex;
 import com.dbeditor.controller.view.helpers.ZoomPanHandler;
 import com.dbeditor.model.Column;
 import com.dbeditor.model.ForeignKey;
 import com.dbeditor.model.Table;
 import com.dbeditor.util.ThemeManager;
 
+import javafx.beans.binding.Bindings;
+import javafx.css.PseudoClass;
 import javafx.scene.Group;
 import javafx.scene.control.Label;
 import javafx.scene.control.ToolBar;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.Pane;
-import javafx.scene.paint.Color;
 import javafx.scene.shape.Line;
 import javafx.scene.shape.Polygon;
 import javafx.scene.shape.Rectangle;
@@ -36,6 +38,7 @@ public class SdfController extends View {
 
         public LabelSdf(String text) {
             super(text);
+            this.getStyleClass().add("sdf-label");
         }
 
         // callbacks fournis par CanvasController
@@ -78,11 +81,7 @@ public class SdfController extends View {
 
         @Override
         public void setSelected(boolean selected) {
-            if (selected) {
-                this.setStyle(this.getStyle() + "-fx-text-fill: " + T_M.getTheme().getSelectionBorderColor() + ";");
-            } else {
-                this.updateStyle(); // remet le style normal
-            }
+            this.pseudoClassStateChanged(SELECTED, selected);
         }
 
         @Override
@@ -103,10 +102,7 @@ public class SdfController extends View {
 
         @Override
         public void updateStyle() {
-            this.setStyle(
-                "-fx-text-fill: " + T_M.getTheme().getTextColor() + "; " +
-                "-fx-background-color: " + T_M.getTheme().getBackgroundColor() + ";"
-            );
+            // couleurs : feuille de style du thème (ThemeManager)
         }
 
         @Override
@@ -114,7 +110,7 @@ public class SdfController extends View {
 
     }
 
-    private static final ThemeManager T_M = ThemeManager.getInstance();
+    private static final PseudoClass SELECTED = PseudoClass.getPseudoClass("selected");
 
     // Nodes visuels
     private final Map<String, LabelSdf> labels = new HashMap<>();
@@ -124,6 +120,7 @@ public class SdfController extends View {
     private SelectionModel<LabelSdf> selectionModel;
     private LassoSelector<LabelSdf> lasso;
     private MultiDragManager<LabelSdf> multiDrag;
+    private SpatialIndex<LabelSdf> index;
 
     private Label zlLabel;
     private Pane pane;
@@ -137,9 +134,11 @@ public class SdfController extends View {
     @Override
     public void initialization(ToolBar toolbar) {
         this.zlLabel = new Label("");
+        this.zlLabel.getStyleClass().add("zoom-label");
         toolbar.getItems().add(this.zlLabel);
 
         this.pane = new Pane();
+        this.pane.getStyleClass().add("model-view");
         this.group = new Group();
         this.pane.getChildren().add(this.group);
         
@@ -160,7 +159,8 @@ public class SdfController extends View {
         this.pane.setClip(clip);
 
         // Initialiser le lasso avec la liste partagée (vide pour l'instant)
-        this.lasso = new LassoSelector<>(this.pane, this.group, this.labels, this.selectionModel);
+        this.index = new SpatialIndex<>();
+        this.lasso = new LassoSelector<>(this.pane, this.group, this.index, this.selectionModel);
         this.lasso.setupEvents();
 
         this.updateStyle();
@@ -173,13 +173,14 @@ public class SdfController extends View {
 
         // vider les structures
         this.labels.clear();
+        this.index.clear();
 
         // créer les nodes et liens des tables
         List<Column> keys = new ArrayList<>();
         List<Column> columns = new ArrayList<>();
         
-        for(Table t : MainApp.schema.getTables()) {
-            for(Column c : t.getColumns()) {
+        for(Table t : MainApp.schema.getTablesView()) {
+            for(Column c : t.getColumnsView()) {
                 if(c.isPrimaryKey) {
                     keys.add(c);
                 } else {
@@ -211,11 +212,11 @@ public class SdfController extends View {
         
         // lien entre les tables
         // TODO: les cercles (attr1, attr2 -> attr3)
-        for(Table t : MainApp.schema.getTables()) {
-            for(ForeignKey fk : t.getForeignKeys()) {
+        for(Table t : MainApp.schema.getTablesView()) {
+            for(ForeignKey fk : t.getForeignKeysView()) {
                 LabelSdf lf = this.labels.get(fk.referencedTable+"-"+fk.referencedColumn);
 
-                for(Column c : t.getColumns()) {
+                for(Column c : t.getColumnsView()) {
                     LabelSdf lt = this.labels.get(this.getLabelText(t, c));
                     this.drawArrows(lf, lt);
                 }
@@ -238,6 +239,7 @@ public class SdfController extends View {
         ls.setupDragHandlers();
         ls.setOnSelect((d, e) -> this.handleSelection((LabelSdf) d, e));
         this.labels.put(name, ls);
+        this.index.add(ls);
         this.group.getChildren().add(ls);
         this.multiDrag.attach(ls);
     }
@@ -246,17 +248,17 @@ public class SdfController extends View {
         if(from == null || to == null) return;
 
         Line line = new Line();
-        line.setStroke(Color.web(T_M.getTheme().getSecondaryTextColor()));
+        line.getStyleClass().add("sdf-arrow");
         line.setStrokeWidth(2);
 
-        line.startXProperty().bind(from.layoutXProperty().add(from.widthProperty().divide(2)));
-        line.startYProperty().bind(from.layoutYProperty().add(from.heightProperty().divide(2)));
-        line.endXProperty().bind(to.layoutXProperty().add(to.widthProperty().divide(2)));
-        line.endYProperty().bind(to.layoutYProperty().add(to.heightProperty().divide(2)));
+        // boundsInParent : suit aussi le déplacement en cours (Translate de MultiDragManager)
+        line.startXProperty().bind(Bindings.createDoubleBinding(() -> from.getBoundsInParent().getCenterX(), from.boundsInParentProperty()));
+        line.startYProperty().bind(Bindings.createDoubleBinding(() -> from.getBoundsInParent().getCenterY(), from.boundsInParentProperty()));
+        line.endXProperty().bind(Bindings.createDoubleBinding(() -> to.getBoundsInParent().getCenterX(), to.boundsInParentProperty()));
+        line.endYProperty().bind(Bindings.createDoubleBinding(() -> to.getBoundsInParent().getCenterY(), to.boundsInParentProperty()));
 
         Polygon arrowHead = new Polygon();
-        arrowHead.setFill(Color.web(T_M.getTheme().getSecondaryTextColor()));
-        arrowHead.setStroke(Color.web(T_M.getTheme().getSecondaryTextColor()));
+        arrowHead.getStyleClass().add("sdf-arrow");
 
         Runnable updateArrow = () -> {
             double fromX = line.getStartX();
@@ -295,13 +297,7 @@ public class SdfController extends View {
 
     @Override
     public void updateStyle() {
-        this.pane.setStyle("-fx-background-color: " + T_M.getTheme().getBackgroundColor() + ";");
-        
-        this.zlLabel.setStyle("-fx-text-fill: " + T_M.getTheme().getTextColor() + ";");
-        
-        for (Draggable d : this.labels.values()) {
-            if(d instanceof LabelSdf ls) ls.updateStyle();
-        }
+        // pane, label et labels SDF : feuille de style du thème (ThemeManager)
     }
 
     @Override
@@ -21,14 +21,14 @@ public class ValueController extends GridView {
     public void initialization(ToolBar toolbar) {
         this.combobox = new ComboBox<>();
 
-        for(Table table : MainApp.schema.getTables()) {
+        for(Table table : MainApp.schema.getTablesView()) {
             this.combobox.getItems().add(table.name);
         }
 
         this.combobox.valueProperty().addListener((obs, oldValue, newValue) -> {
             if (newValue.equals(oldValue)) return;
 
-            this.openTable(MainApp.schema.tables.get(newValue));
+            this.openTable(MainApp.schema.getTable(newValue));
         });
 
         toolbar.getItems().add(this.combobox);
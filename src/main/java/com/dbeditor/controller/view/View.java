@@ -25,6 +25,12 @@ public abstract class View implements Visual, DbUpdate {
      */
     public abstract Pane getRoot();
 
+    /**
+     * Appelé quand la vue est remplacée par une autre,
+     * pour rendre ce qui peut être réutilisé (ex : nodes des tables)
+     */
+    public void close() {}
+
     protected Button createButton(String text) {
         Button button = new Button(text);
         return button;
@@ -128,10 +128,10 @@ public class AssociationEditorDialog extends EditorDialog {
         this.attributeData = FXCollections.observableArrayList();
 
         if (existingTable != null) {
-            for (Column col : existingTable.getColumns()) {
+            for (Column col : existingTable.getColumnsView()) {
                 this.attributeData.add(new DialogColumnRow(
                     col.name,
-                    col.type.getRepr(MainApp.schema.type),
+                    col.getTypeRepr(MainApp.schema.type),
                     col.isPrimaryKey,
                     col.isNotNull,
                     col.isUnique,
@@ -6,7 +6,6 @@ import com.dbeditor.model.Column;
 import com.dbeditor.model.Table;
 import com.dbeditor.model.type.IntSql;
 import com.dbeditor.model.type.VarcharSql;
-import com.dbeditor.model.type.__SqlType;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -46,8 +45,7 @@ public class EntityEditorDialog extends EditorDialog {
         this.resultTable = new Table("a renommer");
 
         // Ajouter une ligne vide par défaut pour une nouvelle table
-        IntSql intSql = new IntSql();
-        this.columnData.add(new DialogColumnRow("id", intSql.getRepr(MainApp.schema.type), true, true, false, true));
+        this.columnData.add(new DialogColumnRow("id", IntSql.INSTANCE.getRepr(MainApp.schema.type), true, true, false, true));
         this.initUI("");
     }
 
@@ -62,10 +60,10 @@ public class EntityEditorDialog extends EditorDialog {
         this.resultTable = new Table(table);
 
         // charger les données de la table
-        for (Column col : table.getColumns()) {
+        for (Column col : table.getColumnsView()) {
             this.columnData.add(new DialogColumnRow(
                 col.name,
-                col.type.getRepr(MainApp.schema.type),
+                col.getTypeRepr(MainApp.schema.type),
                 col.isPrimaryKey,
                 col.isNotNull,
                 col.isUnique,
@@ -169,8 +167,7 @@ public class EntityEditorDialog extends EditorDialog {
      * Ajoute une nouvelle colonne vide
      */
     private void addColumn() {
-        VarcharSql varcharSql = new VarcharSql(255);
-        this.columnData.add(new DialogColumnRow("nouvelle_colonne", varcharSql.getRepr(MainApp.schema.type), false, false, false, false));
+        this.columnData.add(new DialogColumnRow("nouvelle_colonne", VarcharSql.of(255).getRepr(MainApp.schema.type), false, false, false, false));
         
         // Sélectionner la nouvelle ligne et démarrer l'édition du nom
         int lastIndex = this.columnData.size() - 1;
@@ -216,9 +213,9 @@ public class EntityEditorDialog extends EditorDialog {
 
         // Créer la table résultat
         this.resultTable.name = name;
-        this.resultTable.columns.clear();
+        this.resultTable.clearColumns();
         for (DialogColumnRow row : this.columnData) {
-            Column col = new Column(row.getName(), __SqlType.get(row.getType(), MainApp.schema.type));
+            Column col = new Column(row.getName(), row.getType(), MainApp.schema.type);
             col.isPrimaryKey = row.isPrimaryKey();
             col.isNotNull = row.isNotNull();
             col.isUnique = row.isUnique();
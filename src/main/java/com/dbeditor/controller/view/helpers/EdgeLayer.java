@@ -0,0 +1,188 @@
+package com.dbeditor.controller.view.helpers;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Bounds;
+import javafx.geometry.VPos;
+import javafx.scene.Group;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+import javafx.scene.transform.Affine;
+
+/**
+ * Dessine tous les liens d'une vue sur un seul Canvas, placé derrière le contenu et de la taille du pane.
+ * Aucun binding : les liens sont redessinés au plus une fois par pulse, uniquement si markDirty a été appelé
+ * (déplacement d'une table, zoom, pan, ajout/suppression de liens, ...).
+ * Les coordonnées des liens sont celles du contenu, le zoom/pan est appliqué au dessin.
+ */
+public class EdgeLayer {
+    private static final double LINE_WIDTH = 2;
+    private static final Font LABEL_FONT = Font.font("System", 15);
+    private static final double LABEL_PADDING = 2;
+
+    /**
+     * Extrémité d'un lien (centre d'une table), en coordonnées du contenu
+     */
+    public interface Anchor {
+        double getCenterX();
+        double getCenterY();
+    }
+
+    /**
+     * Un lien entre deux extrémités, avec un texte optionnel au milieu
+     */
+    public interface Edge {
+        Anchor from();
+        Anchor to();
+
+        /**
+         * Texte au milieu du lien, null si aucun
+         */
+        default String label() { return null; }
+    }
+
+    private final Pane viewportPane;
+    private final Group content;
+    private final List<? extends Edge> edges;
+    private final Canvas canvas = new Canvas();
+
+    private Color stroke = Color.GRAY;
+    private Color labelText = Color.BLACK;
+    private Color labelBackground = Color.WHITE;
+
+    /**
+     * Largeur des textes déjà mesurés (les cardinalités ne prennent que quelques valeurs)
+     */
+    private final Map<String, double[]> labelSizes = new HashMap<>();
+
+    private boolean dirty = false;
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            paint();
+        }
+    };
+
+    /**
+     * @param viewportPane pane qui affiche le contenu, le canvas est ajouté derrière
+     * @param content contenu zoomé/translaté
+     * @param edges liens à dessiner (la liste est lue à chaque dessin)
+     */
+    public EdgeLayer(Pane viewportPane, Group content, List<? extends Edge> edges) {
+        this.viewportPane = viewportPane;
+        this.content = content;
+        this.edges = edges;
+
+        // ne reçoit pas les clics : ils vont au pane comme avant
+        this.canvas.setMouseTransparent(true);
+        this.canvas.setManaged(false);
+        this.canvas.widthProperty().bind(viewportPane.widthProperty());
+        this.canvas.heightProperty().bind(viewportPane.heightProperty());
+        this.canvas.widthProperty().addListener(obs -> this.markDirty());
+        this.canvas.heightProperty().addListener(obs -> this.markDirty());
+        this.content.localToParentTransformProperty().addListener(obs -> this.markDirty());
+
+        this.viewportPane.getChildren().add(0, this.canvas);
+    }
+
+    /**
+     * Couleurs des liens et des textes (thème)
+     */
+    public void setColors(Color stroke, Color labelText, Color labelBackground) {
+        this.stroke = stroke;
+        this.labelText = labelText;
+        this.labelBackground = labelBackground;
+        this.markDirty();
+    }
+
+    /**
+     * Demande un nouveau dessin au prochain pulse
+     */
+    public void markDirty() {
+        if (this.dirty) return;
+        this.dirty = true;
+        this.timer.start();
+    }
+
+    /**
+     * Renvoie le lien dont le texte contient le point (coordonnées du contenu), null si aucun
+     */
+    public Edge labelAt(double x, double y) {
+        for (Edge edge : this.edges) {
+            String label = edge.label();
+            if (label == null) continue;
+
+            double[] size = this.labelSize(label);
+            double cx = (edge.from().getCenterX() + edge.to().getCenterX()) / 2;
+            double cy = (edge.from().getCenterY() + edge.to().getCenterY()) / 2;
+            if (Math.abs(x - cx) <= size[0] / 2 && Math.abs(y - cy) <= size[1] / 2) return edge;
+        }
+        return null;
+    }
+
+    private void paint() {
+        this.dirty = false;
+        this.timer.stop();
+
+        GraphicsContext gc = this.canvas.getGraphicsContext2D();
+        gc.setTransform(new Affine());
+        gc.clearRect(0, 0, this.canvas.getWidth(), this.canvas.getHeight());
+        if (this.edges.isEmpty()) return;
+
+        // zone visible dans les coordonnées du contenu, les liens en dehors ne sont pas dessinés
+        Bounds view = this.content.parentToLocal(this.canvas.getBoundsInParent());
+        double minX = view.getMinX(), minY = view.getMinY(), maxX = view.getMaxX(), maxY = view.getMaxY();
+
+        gc.setTransform(new Affine(this.content.getLocalToParentTransform()));
+        gc.setStroke(this.stroke);
+        gc.setLineWidth(LINE_WIDTH);
+        gc.setLineDashes(5, 5);
+
+        boolean hasLabels = false;
+        for (Edge edge : this.edges) {
+            double x1 = edge.from().getCenterX(), y1 = edge.from().getCenterY();
+            double x2 = edge.to().getCenterX(), y2 = edge.to().getCenterY();
+            if (Math.max(x1, x2) < minX || Math.min(x1, x2) > maxX || Math.max(y1, y2) < minY || Math.min(y1, y2) > maxY) continue;
+
+            gc.strokeLine(x1, y1, x2, y2);
+            hasLabels |= edge.label() != null;
+        }
+        if (!hasLabels) return;
+
+        // textes au milieu des liens, par dessus toutes les lignes
+        gc.setFont(LABEL_FONT);
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        for (Edge edge : this.edges) {
+            String label = edge.label();
+            if (label == null) continue;
+
+            double cx = (edge.from().getCenterX() + edge.to().getCenterX()) / 2;
+            double cy = (edge.from().getCenterY() + edge.to().getCenterY()) / 2;
+            if (cx < minX || cx > maxX || cy < minY || cy > maxY) continue;
+
+            double[] size = this.labelSize(label);
+            gc.setFill(this.labelBackground);
+            gc.fillRect(cx - size[0] / 2, cy - size[1] / 2, size[0], size[1]);
+            gc.setFill(this.labelText);
+            gc.fillText(label, cx, cy);
+        }
+    }
+
+    private double[] labelSize(String label) {
+        return this.labelSizes.computeIfAbsent(label, l -> {
+            Text text = new Text(l);
+            text.setFont(LABEL_FONT);
+            Bounds b = text.getLayoutBounds();
+            return new double[] { b.getWidth() + 2 * LABEL_PADDING, b.getHeight() + 2 * LABEL_PADDING };
+        });
+    }
+}
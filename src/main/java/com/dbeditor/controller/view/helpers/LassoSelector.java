@@ -1,6 +1,7 @@
 package com.dbeditor.controller.view.helpers;
 
-import java.util.Map;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import com.dbeditor.controller.modifier.Draggable;
 
@@ -14,23 +15,24 @@ import javafx.scene.shape.Rectangle;
 
 /**
  * Lasso rectangulaire : attache des handlers sur le 'viewportPane' et ajoute une Rectangle dans 'content'.
- * nodes : la liste des Node à tester.
+ * index : les Node à tester, rangés par position.
+ * À chaque mouvement, seuls les nodes qui entrent ou sortent du rectangle changent de sélection.
  */
 public class LassoSelector<D extends Draggable> {
     private final Pane viewportPane;   // reçoit les events (scene coords)
     private final Group content;   // parent local pour le rectangle
     private final SelectionModel<D> selectionModel;
     public final Rectangle rect;
-    private final Map<String, D> nodes;
+    private final SpatialIndex<D> index;
 
     private Point2D startLocal;
     private boolean dragging = false;
 
-    public LassoSelector(Pane viewportPane, Group content, Map<String, D> nodes, SelectionModel<D> selectionModel) {
+    public LassoSelector(Pane viewportPane, Group content, SpatialIndex<D> index, SelectionModel<D> selectionModel) {
         this.viewportPane = viewportPane;
         this.content = content;
         this.selectionModel = selectionModel;
-        this.nodes = nodes;
+        this.index = index;
 
         // le lasso
         this.rect = new Rectangle();
@@ -100,14 +102,11 @@ public class LassoSelector<D extends Draggable> {
         this.rect.setWidth(w);
         this.rect.setHeight(h);
 
-        // sélectionner les tables qui intersectent
+        // sélectionner les tables qui intersectent, en ne touchant qu'à celles qui entrent ou sortent
         Bounds rectBounds = this.rect.getBoundsInParent();
-        this.selectionModel.clear();
-        for (D node : this.nodes.values()) {
-            if (node.getRoot().getBoundsInParent().intersects(rectBounds)) {
-                this.selectionModel.select(node);
-            }
-        }
+        Set<D> inside = new LinkedHashSet<>();
+        this.index.query(rectBounds, inside::add);
+        this.selectionModel.replaceWith(inside);
 
         e.consume();
     }
@@ -1,26 +1,30 @@
 package com.dbeditor.controller.view.helpers;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.dbeditor.controller.modifier.Draggable;
 
 import javafx.geometry.Point2D;
+import javafx.scene.Node;
 import javafx.scene.input.MouseEvent;
+import javafx.scene.transform.Translate;
 
 /**
  * Manager qui permet de déplacer plusieurs Node "Drag" ensemble.
  * Il s'appuie sur les callbacks fournis par Node "Drag" (setOnDrag, setOnDragEnd).
+ * Pendant le geste, tous les nodes déplacés partagent une même Translate : un mouvement de souris
+ * ne modifie qu'elle, quel que soit le nombre de nodes. Les positions (layoutX/Y, donc les tables)
+ * ne sont écrites qu'au relâchement.
  */
 public class MultiDragManager<D extends Draggable> {
     private final SelectionModel<D> selectionModel;
-    private final Map<D, Point2D> dragStartPositions;
+    private final List<D> dragged = new ArrayList<>();
+    private final Translate dragTranslate = new Translate();
     private Point2D dragStartMouse;
 
     public MultiDragManager(SelectionModel<D> selectionModel) {
         this.selectionModel = selectionModel;
-        this.dragStartPositions = new HashMap<>();
     }
 
     /**
@@ -31,13 +35,22 @@ public class MultiDragManager<D extends Draggable> {
         node.setOnDragEnd((t, e) -> this.handleDragEnd(e));
     }
 
+    /**
+     * Vrai pendant un déplacement
+     */
+    public boolean isDragging() {
+        return this.dragStartMouse != null;
+    }
+
     private void handleDrag(D node, MouseEvent e) {
         // position de la souris dans le parent du node
         Point2D mouseInParent = node.getRoot().getParent().sceneToLocal(e.getSceneX(), e.getSceneY());
 
         if (this.dragStartMouse == null) {
             this.dragStartMouse = mouseInParent;
-            this.dragStartPositions.clear();
+            this.dragged.clear();
+            this.dragTranslate.setX(0);
+            this.dragTranslate.setY(0);
 
             if (!this.selectionModel.contains(node)) {
                 this.selectionModel.clear();
@@ -45,26 +58,33 @@ public class MultiDragManager<D extends Draggable> {
             }
 
             for (D selected : this.selectionModel.getSelected()) {
-                this.dragStartPositions.put(selected, new Point2D(selected.getRoot().getLayoutX(), selected.getRoot().getLayoutY()));
+                this.dragged.add(selected);
+                selected.getRoot().getTransforms().add(this.dragTranslate);
                 selected.getRoot().toFront();
             }
         }
 
-        double dx = mouseInParent.getX() - this.dragStartMouse.getX();
-        double dy = mouseInParent.getY() - this.dragStartMouse.getY();
-
-        for (Entry<D, Point2D> entry : this.dragStartPositions.entrySet()) {
-            D n = entry.getKey();
-            Point2D s = entry.getValue();
-            n.getRoot().setLayoutX(s.getX() + dx);
-            n.getRoot().setLayoutY(s.getY() + dy);
-        }
+        this.dragTranslate.setX(mouseInParent.getX() - this.dragStartMouse.getX());
+        this.dragTranslate.setY(mouseInParent.getY() - this.dragStartMouse.getY());
 
         e.consume();
     }
 
     private void handleDragEnd(MouseEvent e) {
-        this.dragStartPositions.clear();
+        if (this.dragStartMouse != null) {
+            double dx = this.dragTranslate.getX();
+            double dy = this.dragTranslate.getY();
+
+            // reporte le déplacement sur les positions
+            for (D d : this.dragged) {
+                Node n = d.getRoot();
+                n.getTransforms().remove(this.dragTranslate);
+                n.setLayoutX(n.getLayoutX() + dx);
+                n.setLayoutY(n.getLayoutY() + dy);
+            }
+        }
+
+        this.dragged.clear();
         this.dragStartMouse = null;
         e.consume();
     }
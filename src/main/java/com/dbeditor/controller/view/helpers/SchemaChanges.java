@@ -0,0 +1,96 @@
+package com.dbeditor.controller.view.helpers;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.dbeditor.model.DatabaseSchema;
+import com.dbeditor.model.SchemaListener;
+import com.dbeditor.model.Table;
+
+/**
+ * Accumule les modifications d'un DatabaseSchema entre deux synchronisations d'une vue.
+ * Une vue n'a alors à traiter que :
+ * <ul>
+ *  <li>removed : noms des tables qui ne sont plus dans le schema sous ce nom (à retirer de la vue)</li>
+ *  <li>touched : tables ajoutées, renommées ou modifiées (à créer ou refaire dans la vue)</li>
+ * </ul>
+ * Un nom peut être dans les deux (table remplacée) : retirer d'abord, puis refaire.
+ */
+public class SchemaChanges implements SchemaListener {
+    private DatabaseSchema schema;
+    private final Set<String> removed = new HashSet<>();
+    private final Map<String, Table> touched = new LinkedHashMap<>();
+
+    /**
+     * Suit un nouveau schema (et oublie le précédent), les modifications en attente sont vidées
+     */
+    public void attach(DatabaseSchema schema) {
+        if (this.schema != schema) {
+            this.detach();
+            this.schema = schema;
+            if (schema != null) schema.addListener(this);
+        }
+        this.clear();
+    }
+
+    public void detach() {
+        if (this.schema != null) this.schema.removeListener(this);
+        this.schema = null;
+        this.clear();
+    }
+
+    public void clear() {
+        this.removed.clear();
+        this.touched.clear();
+    }
+
+    public boolean isEmpty() {
+        return this.removed.isEmpty() && this.touched.isEmpty();
+    }
+
+    public Set<String> getRemoved() {
+        return this.removed;
+    }
+
+    /**
+     * Tables à refaire, toujours présentes dans le schema
+     */
+    public Collection<Table> getTouched() {
+        return this.touched.values();
+    }
+
+    /**
+     * Noms concernés par une modification (retirés ou à refaire)
+     */
+    public Set<String> getNames() {
+        Set<String> names = new HashSet<>(this.removed);
+        names.addAll(this.touched.keySet());
+        return names;
+    }
+
+    @Override
+    public void tableAdded(Table table) {
+        this.touched.put(table.name, table);
+    }
+
+    @Override
+    public void tableRemoved(Table table) {
+        this.touched.remove(table.name);
+        this.removed.add(table.name);
+    }
+
+    @Override
+    public void tableRenamed(Table table, String oldName) {
+        this.touched.remove(oldName);
+        this.removed.add(oldName);
+        this.touched.put(table.name, table);
+    }
+
+    @Override
+    public void tableChanged(Table table) {
+        this.touched.put(table.name, table);
+    }
+}
@@ -2,16 +2,21 @@ package com.dbeditor.controller.view.helpers;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.BiConsumer;
 
 import com.dbeditor.controller.modifier.Draggable;
 
 /**
- * Modèle simple de sélection
+ * Modèle simple de sélection.
+ * Les nodes sont gardés dans l'ordre de sélection, toutes les opérations sur un node sont en O(1)
  */
 public class SelectionModel<D extends Draggable> {
-    private final List<D> selected = new ArrayList<>();
+    private final Set<D> selected = new LinkedHashSet<>();
+    private final Set<D> selectedView = Collections.unmodifiableSet(this.selected);
     // callback pour appliquer visuellement la sélection : (Node, selected?)
     private final BiConsumer<D, Boolean> visualizer;
 
@@ -23,8 +28,7 @@ public class SelectionModel<D extends Draggable> {
      * Sélectionne le node si il n'est pas déja sélectionné
      */
     public void select(D node) {
-        if (!this.selected.contains(node)) {
-            this.selected.add(node);
+        if (this.selected.add(node)) {
             this.visualizer.accept(node, true);
         }
     }
@@ -54,17 +58,28 @@ public class SelectionModel<D extends Draggable> {
      * Déselectionne toutes les value
      */
     public void clear() {
-        for (D node : new ArrayList<>(this.selected)) {
-            this.deselect(node);
+        if (this.selected.isEmpty()) return;
+
+        List<D> old = new ArrayList<>(this.selected);
+        this.selected.clear();
+        for (D node : old) {
+            this.visualizer.accept(node, false);
         }
     }
 
     /**
-     * Retourne tout les node sélectionnées
-     * @return
+     * Retourne tout les node sélectionnées, dans l'ordre de sélection.<br>
+     * Vue en lecture seule (sans copie) : la copier avant de modifier la sélection en la parcourant
+     */
+    public Set<D> getSelected() {
+        return this.selectedView;
+    }
+
+    /**
+     * Nombre de nodes sélectionnés
      */
-    public List<D> getSelected() {
-        return List.copyOf(this.selected);
+    public int size() {
+        return this.selected.size();
     }
 
     /**
@@ -76,6 +91,26 @@ public class SelectionModel<D extends Draggable> {
         }
     }
 
+    /**
+     * Remplace la sélection par nodes :
+     * seuls les nodes qui sortent ou entrent dans la sélection sont mis à jour visuellement
+     */
+    public void replaceWith(Collection<D> nodes) {
+        Set<D> next = nodes instanceof Set<D> set ? set : new LinkedHashSet<>(nodes);
+
+        List<D> removed = new ArrayList<>();
+        this.selected.removeIf(node -> {
+            if (next.contains(node)) return false;
+            removed.add(node);
+            return true;
+        });
+        for (D node : removed) {
+            this.visualizer.accept(node, false);
+        }
+
+        this.selectAll(next);
+    }
+
     /**
      * Vérifie si le node est déja sélectionné
      * @return bool
@@ -0,0 +1,177 @@
+package com.dbeditor.controller.view.helpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.dbeditor.controller.modifier.Draggable;
+
+import javafx.beans.InvalidationListener;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+
+/**
+ * Grille uniforme sur les bounds (dans le parent) des nodes, pour le lasso et la recherche au point.
+ * Chaque node est rangé dans les cases que ses bounds recouvrent.
+ * Un déplacement ou redimensionnement (drag, changement de niveau de détail, ...) marque seulement le node,
+ * il est rangé à nouveau à la prochaine recherche : un drag ne coûte rien tant que personne ne cherche.
+ */
+public class SpatialIndex<D extends Draggable> {
+    public static final double DEFAULT_CELL_SIZE = 512;
+
+    /**
+     * Cases recouvertes par un node et listener posé sur ses bounds
+     */
+    private final class Entry {
+        int minCx, minCy, maxCx, maxCy;
+        boolean placed = false;
+        final InvalidationListener listener;
+
+        Entry(D node) {
+            this.listener = obs -> dirty.add(node);
+        }
+    }
+
+    private final double cellSize;
+    private final Map<Long, List<D>> cells = new HashMap<>();
+    private final Map<D, Entry> entries = new IdentityHashMap<>();
+    private final Set<D> dirty = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public SpatialIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    public SpatialIndex(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Ajoute un node, ses bounds sont suivies jusqu'à remove
+     */
+    public void add(D node) {
+        if (this.entries.containsKey(node)) return;
+
+        Entry entry = new Entry(node);
+        this.entries.put(node, entry);
+        node.getRoot().boundsInParentProperty().addListener(entry.listener);
+        this.dirty.add(node);
+    }
+
+    public void remove(D node) {
+        Entry entry = this.entries.remove(node);
+        if (entry == null) return;
+
+        node.getRoot().boundsInParentProperty().removeListener(entry.listener);
+        this.dirty.remove(node);
+        if (entry.placed) this.unplace(node, entry);
+    }
+
+    public void clear() {
+        for (D node : new ArrayList<>(this.entries.keySet())) {
+            this.remove(node);
+        }
+    }
+
+    /**
+     * Donne à out chaque node dont les bounds intersectent area (une seule fois par node)
+     */
+    public void query(Bounds area, Consumer<D> out) {
+        this.flush();
+
+        Set<D> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        int minCx = this.cell(area.getMinX()), maxCx = this.cell(area.getMaxX());
+        int minCy = this.cell(area.getMinY()), maxCy = this.cell(area.getMaxY());
+
+        for (int cx = minCx; cx <= maxCx; cx++) {
+            for (int cy = minCy; cy <= maxCy; cy++) {
+                List<D> list = this.cells.get(key(cx, cy));
+                if (list == null) continue;
+
+                for (D node : list) {
+                    if (seen.add(node) && node.getRoot().getBoundsInParent().intersects(area)) {
+                        out.accept(node);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Renvoie le node au premier plan qui contient le point (coordonnées du parent), null si aucun
+     */
+    public D nodeAt(Point2D pInParent) {
+        this.flush();
+
+        List<D> list = this.cells.get(key(this.cell(pInParent.getX()), this.cell(pInParent.getY())));
+        if (list == null) return null;
+
+        D found = null;
+        int foundIndex = -1;
+        for (D node : list) {
+            if (!node.contains(pInParent)) continue;
+
+            // le node le plus haut dans l'ordre d'affichage
+            int index = node.getRoot().getParent() == null ? -1 : node.getRoot().getParent().getChildrenUnmodifiable().indexOf(node.getRoot());
+            if (found == null || index > foundIndex) {
+                found = node;
+                foundIndex = index;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Range à nouveau les nodes qui ont bougé depuis la dernière recherche
+     */
+    private void flush() {
+        if (this.dirty.isEmpty()) return;
+
+        for (D node : this.dirty) {
+            Entry entry = this.entries.get(node);
+            Bounds b = node.getRoot().getBoundsInParent();
+            int minCx = this.cell(b.getMinX()), maxCx = this.cell(b.getMaxX());
+            int minCy = this.cell(b.getMinY()), maxCy = this.cell(b.getMaxY());
+
+            // toujours dans les mêmes cases
+            if (entry.placed && entry.minCx == minCx && entry.maxCx == maxCx && entry.minCy == minCy && entry.maxCy == maxCy) continue;
+
+            if (entry.placed) this.unplace(node, entry);
+            entry.minCx = minCx;
+            entry.maxCx = maxCx;
+            entry.minCy = minCy;
+            entry.maxCy = maxCy;
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                for (int cy = minCy; cy <= maxCy; cy++) {
+                    this.cells.computeIfAbsent(key(cx, cy), k -> new ArrayList<>()).add(node);
+                }
+            }
+            entry.placed = true;
+        }
+        this.dirty.clear();
+    }
+
+    private void unplace(D node, Entry entry) {
+        for (int cx = entry.minCx; cx <= entry.maxCx; cx++) {
+            for (int cy = entry.minCy; cy <= entry.maxCy; cy++) {
+                List<D> list = this.cells.get(key(cx, cy));
+                if (list == null) continue;
+                list.remove(node);
+                if (list.isEmpty()) this.cells.remove(key(cx, cy));
+            }
+        }
+        entry.placed = false;
+    }
+
+    private int cell(double v) {
+        return (int) Math.floor(v / this.cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,62 @@
+package com.dbeditor.controller.view.helpers;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.dbeditor.controller.TableController;
+import com.dbeditor.controller.TableController.TableType;
+import com.dbeditor.model.Table;
+
+import javafx.scene.Group;
+import javafx.scene.Parent;
+import javafx.scene.layout.Pane;
+
+/**
+ * Réserve de nodes de table partagée par les vues :
+ * un node retiré d'une vue (culling, suppression, changement de vue) est réutilisé au lieu d'en construire un nouveau.
+ * À utiliser sur le thread JavaFX.
+ */
+public class TableNodePool {
+    private static TableNodePool instance;
+
+    /**
+     * Nombre maximum de nodes gardés en réserve
+     */
+    private static final int MAX_IDLE = 512;
+
+    private final Deque<TableController> idle = new ArrayDeque<>();
+
+    private TableNodePool() {}
+
+    public static TableNodePool getInstance() {
+        if (instance == null) {
+            instance = new TableNodePool();
+        }
+        return instance;
+    }
+
+    /**
+     * Renvoie un node affichant la table, recyclé si possible
+     */
+    public TableController acquire(Table table, TableType type) {
+        TableController tc = this.idle.poll();
+        if (tc == null) tc = new TableController();
+        tc.createTableController(table, type);
+        return tc;
+    }
+
+    /**
+     * Retire le node de son parent et le garde pour un prochain acquire
+     */
+    public void release(TableController tc) {
+        Parent parent = tc.getRoot().getParent();
+        if (parent instanceof Group g) {
+            g.getChildren().remove(tc.getRoot());
+        } else if (parent instanceof Pane p) {
+            p.getChildren().remove(tc.getRoot());
+        }
+
+        tc.release();
+        if (this.idle.size() < MAX_IDLE) this.idle.push(tc);
+    }
+}
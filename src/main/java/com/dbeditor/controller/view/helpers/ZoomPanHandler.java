@@ -1,5 +1,11 @@
 package com.dbeditor.controller.view.helpers;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.beans.InvalidationListener;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.scene.Cursor;
 import javafx.scene.Group;
@@ -26,10 +32,39 @@ public class ZoomPanHandler {
     private double lastMouseX, lastMouseY;
     private boolean middleMouseDown = false;
 
+    private final List<Runnable> viewportListeners = new ArrayList<>();
+
     public ZoomPanHandler(Pane viewportPane, Group content) {
         this.viewportPane = viewportPane;
         this.content = content;
         this.content.getTransforms().add(this.scale);
+
+        // zoom, déplacement ou redimensionnement -> la zone visible change
+        InvalidationListener onViewport = obs -> this.viewportListeners.forEach(Runnable::run);
+        this.scale.xProperty().addListener(onViewport);
+        this.content.translateXProperty().addListener(onViewport);
+        this.content.translateYProperty().addListener(onViewport);
+        this.viewportPane.widthProperty().addListener(onViewport);
+        this.viewportPane.heightProperty().addListener(onViewport);
+    }
+
+    /**
+     * Appelé à chaque changement de la zone visible (zoom, pan, taille du pane).
+     * Peut être appelé plusieurs fois par évènement : à regrouper côté appelant
+     */
+    public void addViewportListener(Runnable listener) {
+        this.viewportListeners.add(listener);
+    }
+
+    /**
+     * Zone visible du pane, dans les coordonnées du contenu
+     */
+    public Bounds getViewport() {
+        return this.content.parentToLocal(new BoundingBox(0, 0, this.viewportPane.getWidth(), this.viewportPane.getHeight()));
+    }
+
+    public double getZoomLevel() {
+        return this.zoomLevel;
     }
 
     /**
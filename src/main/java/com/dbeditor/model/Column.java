@@ -1,26 +1,59 @@
 package com.dbeditor.model;
 
 import com.dbeditor.model.type.__SqlType;
+import com.dbeditor.sql.DbType;
 
 public class Column {
     public String name;
     public __SqlType type;
+    /**
+     * Écriture du type dans la source (fichier, bdd), gardée seulement quand type est inconnu (null)
+     */
+    public String typeName;
     public boolean isPrimaryKey;
     public boolean isNotNull;
     public boolean isUnique;
     public boolean isAutoIncrementing;
     
     public Column(String name, __SqlType type) {
-        this.name = name;
+        this.name = Names.intern(name);
         this.type = type;
     }
+
+    /**
+     * Colonne dont le type est retrouvé à partir de son écriture
+     * @param typeName écriture du type (ex : "varchar(255)")
+     * @param dbType bdd d'où vient le type
+     */
+    public Column(String name, String typeName, DbType dbType) {
+        this(name, __SqlType.get(typeName, dbType));
+        if (this.type == null) this.typeName = typeName;
+    }
     
     public Column(Column other) {
         this.name = other.name;
         this.type = other.type;
+        this.typeName = other.typeName;
         this.isPrimaryKey = other.isPrimaryKey;
         this.isNotNull = other.isNotNull;
         this.isUnique = other.isUnique;
         this.isAutoIncrementing = other.isAutoIncrementing;
     }
+
+    /**
+     * Type écrit pour la bdd, ou son écriture d'origine s'il est inconnu
+     */
+    public String getTypeRepr(DbType dbType) {
+        if (this.type != null) return this.type.getRepr(dbType);
+        return this.typeName != null ? this.typeName : "?";
+    }
+
+    /**
+     * Les types sont partagés : comparés par référence, ou par leur écriture s'ils sont inconnus
+     */
+    public boolean hasSameType(Column other) {
+        if (this.type != other.type) return false;
+        if (this.type != null) return true;
+        return this.typeName == null ? other.typeName == null : this.typeName.equalsIgnoreCase(other.typeName);
+    }
 }
\ No newline at end of file
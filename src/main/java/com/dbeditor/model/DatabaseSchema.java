@@ -1,28 +1,221 @@
 package com.dbeditor.model;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import com.dbeditor.sql.DbType;
 
+/**
+ * Schema d'une bdd.<br>
+ * Les tables ne sont modifiables qu'à travers le schema et Table, ce qui permet de suivre les modifications :
+ * <ul>
+ *  <li>un numéro de version, augmenté à chaque modification (getVersion)</li>
+ *  <li>la version de chaque table à sa dernière modification (Table.isModifiedSince)</li>
+ *  <li>des listeners prévenus de chaque modification (addListener)</li>
+ * </ul>
+ * Une structure calculée à partir du schema (MCD, DF, export, index, ...) peut garder la version qu'elle a vue
+ * et ne recalculer que les tables modifiées depuis.
+ */
 public class DatabaseSchema {
     public String name;
     public DbType type;
-    public final Map<String, Table> tables;
+    /**
+     * Vrai si le schema vient d'un chargement annulé ou en erreur : des tables peuvent manquer.
+     * Il ne doit pas être enregistré dans une bdd, les tables manquantes y seraient supprimées
+     */
+    public boolean incomplete = false;
+    private final Map<String, Table> tables;
+    private final Collection<Table> tablesView;
+
+    private final List<SchemaListener> listeners = new ArrayList<>();
+    private long version = 0;
+
+    /**
+     * Tables renommées depuis le dernier enregistrement : nouveau nom -> nom d'origine
+     */
+    private final Map<String, String> renamedFrom = new HashMap<>();
+    private final Map<String, String> renamedFromView = Collections.unmodifiableMap(this.renamedFrom);
     
     public DatabaseSchema(String name) {
         this.name = name;
         if(name == null || name.isBlank()) this.name = "db";
         this.type = DbType.MySql;
         this.tables = new HashMap<>();
+        this.tablesView = Collections.unmodifiableCollection(this.tables.values());
     }
 
+    /**
+     * Ajoute une table, remplace celle qui avait le même nom
+     */
     public void addTable(Table table) {
-        this.tables.put(table.name, table);
+        Table old = this.tables.put(table.name, table);
+        if (old == table) return;
+
+        if (old != null) {
+            old.schema = null;
+            this.renamedFrom.remove(table.name);
+            for (SchemaListener l : this.listeners) l.tableRemoved(old);
+        }
+        table.schema = this;
+        table.version = ++this.version;
+        for (SchemaListener l : this.listeners) l.tableAdded(table);
+    }
+
+    /**
+     * Retire une table
+     * @return la table retirée, null si aucune table n'a ce nom
+     */
+    public Table removeTable(String name) {
+        Table table = this.tables.remove(name);
+        if (table == null) return null;
+
+        table.schema = null;
+        this.renamedFrom.remove(name);
+        this.version++;
+        for (SchemaListener l : this.listeners) l.tableRemoved(table);
+        return table;
+    }
+
+    /**
+     * Retire toutes les tables
+     */
+    public void clear() {
+        for (Table table : new ArrayList<>(this.tables.values())) {
+            this.removeTable(table.name);
+        }
+    }
+
+    /**
+     * Renomme une table (le même objet Table reste dans le schema),
+     * les clés étrangères qui la référencent suivent le nouveau nom
+     * @return false si la table n'existe pas ou si le nouveau nom est déjà pris
+     */
+    public boolean renameTable(String oldName, String newName) {
+        if (oldName.equals(newName) || this.tables.containsKey(newName)) return false;
+        Table table = this.tables.remove(oldName);
+        if (table == null) return false;
+
+        table.name = newName;
+        this.tables.put(newName, table);
+
+        List<Table> referencing = new ArrayList<>();
+        for (Table other : this.tables.values()) {
+            boolean changed = false;
+            for (ForeignKey fk : other.getForeignKeysView()) {
+                if (oldName.equals(fk.referencedTable)) {
+                    fk.referencedTable = Names.intern(newName);
+                    changed = true;
+                }
+            }
+            if (changed) referencing.add(other);
+        }
+
+        // renommée plusieurs fois : seul le nom d'origine compte
+        String origin = this.renamedFrom.remove(oldName);
+        if (origin == null) origin = oldName;
+        if (!origin.equals(newName)) this.renamedFrom.put(newName, origin);
+        table.version = ++this.version;
+        for (SchemaListener l : this.listeners) l.tableRenamed(table, oldName);
+        for (Table other : referencing) this.tableChanged(other);
+        return true;
+    }
+
+    /**
+     * Appelé par Table quand ses colonnes ou ses clés étrangères changent
+     */
+    void tableChanged(Table table) {
+        if (this.tables.get(table.name) != table) return;
+
+        table.version = ++this.version;
+        for (SchemaListener l : this.listeners) l.tableChanged(table);
+    }
+
+    /**
+     * Tables renommées (renameTable) depuis le dernier enregistrement : nouveau nom -> nom d'origine (lecture seule)
+     */
+    public Map<String, String> getRenamedTables() {
+        return this.renamedFromView;
+    }
+
+    /**
+     * Oublie les renommages enregistrés dans la bdd : les tables renommées depuis repartent de leur nom enregistré
+     * @param saved copie de getRenamedTables prise au moment de l'enregistrement
+     */
+    public void clearRenamedTables(Map<String, String> saved) {
+        // nom d'origine -> nom maintenant dans la bdd
+        Map<String, String> savedNames = new HashMap<>();
+        for (Map.Entry<String, String> rename : saved.entrySet()) savedNames.put(rename.getValue(), rename.getKey());
+
+        Iterator<Map.Entry<String, String>> it = this.renamedFrom.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, String> rename = it.next();
+            String savedName = savedNames.get(rename.getValue());
+            if (savedName == null) continue;
+
+            if (savedName.equals(rename.getKey())) it.remove();
+            else rename.setValue(savedName);
+        }
+    }
+
+    /**
+     * Copie des tables et des renommages, sans les listeners
+     */
+    public DatabaseSchema copy() {
+        DatabaseSchema copy = new DatabaseSchema(this.name);
+        copy.type = this.type;
+        copy.incomplete = this.incomplete;
+        for (Table table : this.tables.values()) copy.addTable(new Table(table));
+        copy.renamedFrom.putAll(this.renamedFrom);
+        return copy;
+    }
+
+    public Table getTable(String name) {
+        return this.tables.get(name);
+    }
+    public boolean hasTable(String name) {
+        return this.tables.containsKey(name);
+    }
+    public int getTableCount() {
+        return this.tables.size();
     }
     public List<Table> getTables() {
         return new ArrayList<>(this.tables.values());
     }
-}
\ No newline at end of file
+    /**
+     * Tables du schema, sans copie (lecture seule)
+     */
+    public Collection<Table> getTablesView() {
+        return this.tablesView;
+    }
+
+    /**
+     * Version actuelle du schema, augmente à chaque modification
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Tables ajoutées ou modifiées après la version donnée
+     * (les tables retirées ne sont connues que des listeners)
+     */
+    public List<Table> getTablesModifiedSince(long version) {
+        List<Table> modified = new ArrayList<>();
+        for (Table table : this.tables.values()) {
+            if (table.isModifiedSince(version)) modified.add(table);
+        }
+        return modified;
+    }
+
+    public void addListener(SchemaListener listener) {
+        this.listeners.add(listener);
+    }
+    public void removeListener(SchemaListener listener) {
+        this.listeners.remove(listener);
+    }
+}
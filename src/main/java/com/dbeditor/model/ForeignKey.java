@@ -12,9 +12,9 @@ public class ForeignKey {
 
     public ForeignKey(String fkName, String columnName, String referencedTable, String referencedColumn, CardinalityValue cardinalityValue) {
         this.fkName = fkName;
-        this.columnName = columnName;
-        this.referencedTable = referencedTable;
-        this.referencedColumn = referencedColumn;
+        this.columnName = Names.intern(columnName);
+        this.referencedTable = Names.intern(referencedTable);
+        this.referencedColumn = Names.intern(referencedColumn);
         this.isPrimaryKey = false;
         this.cardinalityValue = cardinalityValue;
     }
@@ -0,0 +1,18 @@
+package com.dbeditor.model;
+
+/**
+ * Partage des noms de colonnes, de tables référencées, ... entre toutes les tables.<br>
+ * Un gros schema répète souvent les mêmes noms (id, created_at, ...) : une seule instance de chaque nom est gardée.
+ * Utilise la table de String.intern, dont les noms qui ne sont plus utilisés sont libérés par le GC.
+ */
+public final class Names {
+
+    private Names() {}
+
+    /**
+     * Instance partagée du nom (null si name est null)
+     */
+    public static String intern(String name) {
+        return name == null ? null : name.intern();
+    }
+}
@@ -0,0 +1,241 @@
+package com.dbeditor.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.dbeditor.model.type._OneModifier;
+import com.dbeditor.model.type._TwoModifier;
+import com.dbeditor.model.type.__SqlType;
+
+/**
+ * Différences entre deux schema : celui de la bdd (from) et celui modifié dans l'application (to).<br>
+ * Chaque table est d'abord comparée par son empreinte (fingerprint) : seules les tables dont l'empreinte
+ * a changé sont comparées colonne par colonne. Modifier une table sur 2000 ne donne donc qu'une table modifiée.<br>
+ * Seuls les renommages faits dans l'application (DatabaseSchema.renameTable) sont des renommages :
+ * une table supprimée et une table ajoutée restent un DROP et un CREATE, même si elles ont le même contenu.
+ * Un renommage de colonne est vu comme une colonne supprimée et une colonne ajoutée.<br>
+ * Les tables vides de to (Table.isEmpty) sont ignorées : ni créées, ni modifiées, ni supprimées.
+ */
+public class SchemaDiff {
+
+    /**
+     * Colonne modifiée (type, clé, NOT NULL, ...)
+     */
+    public record ColumnChange(Column from, Column to) {}
+
+    /**
+     * Table renommée (ses autres modifications sont dans getChangedTables)
+     */
+    public record Rename(Table from, Table to) {}
+
+    /**
+     * Modifications d'une table présente dans les deux schema
+     * @param addedColumns colonnes de to absentes de from
+     * @param droppedColumns noms des colonnes (ou colonnes de clés étrangères) de from absentes de to
+     * @param modifiedColumns colonnes présentes des deux côtés mais différentes
+     * @param addedForeignKeys clés étrangères de to nouvelles ou modifiées
+     * @param droppedForeignKeys clés étrangères de from retirées ou modifiées
+     * @param primaryKeyChanged vrai si les colonnes de la clé primaire ont changé
+     */
+    public record TableDiff(Table from, Table to,
+                            List<Column> addedColumns, List<String> droppedColumns, List<ColumnChange> modifiedColumns,
+                            List<ForeignKey> addedForeignKeys, List<ForeignKey> droppedForeignKeys,
+                            boolean primaryKeyChanged) {}
+
+    public final DatabaseSchema from;
+    public final DatabaseSchema to;
+
+    private final List<Table> addedTables = new ArrayList<>();
+    private final List<Table> droppedTables = new ArrayList<>();
+    private final List<Rename> renamedTables = new ArrayList<>();
+    private final List<TableDiff> changedTables = new ArrayList<>();
+
+    public SchemaDiff(DatabaseSchema from, DatabaseSchema to) {
+        this.from = from;
+        this.to = to;
+
+        // nouveau nom -> ancien nom, seulement si l'ancienne table est dans la bdd et que le nouveau nom est libre
+        Map<String, String> renames = new HashMap<>();
+        for (Map.Entry<String, String> rename : to.getRenamedTables().entrySet()) {
+            if (from.hasTable(rename.getValue()) && !from.hasTable(rename.getKey())) {
+                renames.put(rename.getKey(), rename.getValue());
+            }
+        }
+        // un nom renommé peut avoir été repris par une nouvelle table
+        Set<String> renamedNames = new HashSet<>(renames.values());
+
+        for (Table table : to.getTablesView()) {
+            if (table.isEmpty()) continue;
+
+            String oldName = renames.get(table.name);
+            Table old;
+            if (oldName != null) {
+                old = from.getTable(oldName);
+                this.renamedTables.add(new Rename(old, table));
+            } else {
+                old = renamedNames.contains(table.name) ? null : from.getTable(table.name);
+            }
+
+            if (old == null) {
+                this.addedTables.add(table);
+            } else if (fingerprint(old) != fingerprint(table)) {
+                // même empreinte -> table inchangée, pas de comparaison détaillée
+                TableDiff diff = compare(old, table, renames);
+                if (diff != null) this.changedTables.add(diff);
+            }
+        }
+
+        for (Table old : from.getTablesView()) {
+            if (!to.hasTable(old.name) && !renamedNames.contains(old.name)) this.droppedTables.add(old);
+        }
+    }
+
+    public List<Table> getAddedTables() {
+        return this.addedTables;
+    }
+
+    public List<Table> getDroppedTables() {
+        return this.droppedTables;
+    }
+
+    public List<Rename> getRenamedTables() {
+        return this.renamedTables;
+    }
+
+    public List<TableDiff> getChangedTables() {
+        return this.changedTables;
+    }
+
+    /**
+     * Vrai si les deux schema sont identiques (rien à faire sur la bdd)
+     */
+    public boolean isEmpty() {
+        return this.addedTables.isEmpty() && this.droppedTables.isEmpty()
+            && this.renamedTables.isEmpty() && this.changedTables.isEmpty();
+    }
+
+    /**
+     * Compare deux versions d'une table, null si elles sont identiques
+     * @param renames nouveau nom -> ancien nom des tables renommées (cibles des clés étrangères)
+     */
+    private static TableDiff compare(Table from, Table to, Map<String, String> renames) {
+        List<Column> addedColumns = new ArrayList<>();
+        List<String> droppedColumns = new ArrayList<>();
+        List<ColumnChange> modifiedColumns = new ArrayList<>();
+        List<ForeignKey> addedForeignKeys = new ArrayList<>();
+        List<ForeignKey> droppedForeignKeys = new ArrayList<>();
+
+        for (Column col : to.getColumnsView()) {
+            Column old = from.getColumn(col.name);
+            if (old == null) {
+                // une ancienne clé étrangère existe déjà comme colonne dans la bdd
+                if (!from.hasAttribut(col.name)) addedColumns.add(col);
+            } else if (!sameColumn(old, col)) {
+                modifiedColumns.add(new ColumnChange(old, col));
+            }
+        }
+        for (Column old : from.getColumnsView()) {
+            if (!to.hasAttribut(old.name)) droppedColumns.add(old.name);
+        }
+
+        for (ForeignKey fk : to.getForeignKeysView()) {
+            ForeignKey old = from.getForeignKey(fk.columnName);
+            if (old == null || !sameForeignKey(old, fk, renames)) addedForeignKeys.add(fk);
+        }
+        for (ForeignKey old : from.getForeignKeysView()) {
+            ForeignKey fk = to.getForeignKey(old.columnName);
+            if (fk == null || !sameForeignKey(old, fk, renames)) droppedForeignKeys.add(old);
+            if (!to.hasAttribut(old.columnName) && from.getColumn(old.columnName) == null) droppedColumns.add(old.columnName);
+        }
+
+        boolean primaryKeyChanged = !primaryKey(from).equals(primaryKey(to));
+
+        if (addedColumns.isEmpty() && droppedColumns.isEmpty() && modifiedColumns.isEmpty()
+            && addedForeignKeys.isEmpty() && droppedForeignKeys.isEmpty() && !primaryKeyChanged) {
+            return null;
+        }
+        return new TableDiff(from, to, addedColumns, droppedColumns, modifiedColumns, addedForeignKeys, droppedForeignKeys, primaryKeyChanged);
+    }
+
+    private static boolean sameColumn(Column a, Column b) {
+        return a.hasSameType(b)
+            && a.isPrimaryKey == b.isPrimaryKey
+            && a.isNotNull == b.isNotNull
+            && a.isUnique == b.isUnique
+            && a.isAutoIncrementing == b.isAutoIncrementing;
+    }
+
+    /**
+     * Le nom de la contrainte n'est pas comparé : seule la cible compte.
+     * Une clé de to vers une table renommée est comparée avec l'ancien nom (la bdd la suit au RENAME TABLE)
+     */
+    private static boolean sameForeignKey(ForeignKey a, ForeignKey b, Map<String, String> renames) {
+        return Objects.equals(a.referencedTable, renames.getOrDefault(b.referencedTable, b.referencedTable))
+            && Objects.equals(a.referencedColumn, b.referencedColumn);
+    }
+
+    /**
+     * Colonnes de la clé primaire (colonnes puis clés étrangères), dans l'ordre de la table
+     */
+    public static List<String> primaryKey(Table table) {
+        List<String> names = new ArrayList<>();
+        for (Column col : table.getColumnsView()) {
+            if (col.isPrimaryKey) names.add(col.name);
+        }
+        for (ForeignKey fk : table.getForeignKeysView()) {
+            if (fk.isPrimaryKey) names.add(fk.columnName);
+        }
+        return names;
+    }
+
+    /* ============================================================================================================================= */
+
+    /**
+     * Empreinte du contenu de la table (colonnes, types, contraintes, clés étrangères), sans son nom ni sa position.
+     * Deux tables identiques ont la même empreinte, quel que soit le schema d'où elles viennent
+     */
+    public static long fingerprint(Table table) {
+        long h = 1;
+        for (Column col : table.getColumnsView()) {
+            h = mix(h, Objects.hashCode(col.name));
+            h = mix(h, col.type != null ? typeHash(col.type) : Objects.hashCode(col.typeName));
+            h = mix(h, (col.isPrimaryKey ? 1 : 0) | (col.isNotNull ? 2 : 0) | (col.isUnique ? 4 : 0) | (col.isAutoIncrementing ? 8 : 0));
+        }
+
+        // sépare les colonnes des clés étrangères
+        h = mix(h, -1);
+
+        for (ForeignKey fk : table.getForeignKeysView()) {
+            h = mix(h, Objects.hashCode(fk.columnName));
+            h = mix(h, Objects.hashCode(fk.referencedTable));
+            h = mix(h, Objects.hashCode(fk.referencedColumn));
+            h = mix(h, fk.isPrimaryKey ? 1 : 0);
+        }
+        return h;
+    }
+
+    /**
+     * Ne dépend que de la classe du type et de ses modificateurs (identique d'une exécution à l'autre)
+     */
+    private static int typeHash(__SqlType type) {
+        if (type == null) return 0;
+
+        int h = type.getClass().getName().hashCode();
+        if (type instanceof _OneModifier om) {
+            h = h * 31 + om.getData();
+        } else if (type instanceof _TwoModifier tm) {
+            h = (h * 31 + tm.getData1()) * 31 + tm.getData2();
+        }
+        return h;
+    }
+
+    private static long mix(long h, int value) {
+        h = (h ^ value) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+}
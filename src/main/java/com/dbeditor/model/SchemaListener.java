@@ -0,0 +1,28 @@
+package com.dbeditor.model;
+
+/**
+ * Reçoit les modifications d'un DatabaseSchema (voir DatabaseSchema.addListener).
+ * Les événements sont envoyés sur le thread qui modifie le schema, juste après la modification
+ */
+public interface SchemaListener {
+
+    /**
+     * Une table a été ajoutée au schema
+     */
+    public default void tableAdded(Table table) {}
+
+    /**
+     * Une table a été retirée du schema
+     */
+    public default void tableRemoved(Table table) {}
+
+    /**
+     * Une table a été renommée, elle est déjà rangée sous son nouveau nom
+     */
+    public default void tableRenamed(Table table, String oldName) {}
+
+    /**
+     * Les colonnes ou les clés étrangères d'une table ont changé
+     */
+    public default void tableChanged(Table table) {}
+}
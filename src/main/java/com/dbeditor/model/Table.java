@@ -1,52 +1,254 @@
 package com.dbeditor.model;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public final class Table {
     public String name;
-    private final LinkedHashMap<String, Boolean> attributs; // si true -> colonne
-    public final LinkedHashMap<String, Column> columns;
-    public final LinkedHashMap<String, ForeignKey> foreignKeys;
+    /**
+     * Colonnes (Column) et clés étrangères (ForeignKey) dans l'ordre d'ajout, par nom de colonne
+     */
+    private final LinkedHashMap<String, Object> attributs;
+    /**
+     * Index des colonnes de attributs par position (mêmes objets, pour getColumn(int) et les vues sans copie)
+     */
+    private final ArrayList<Column> columns;
+    /**
+     * Index des clés étrangères de attributs par nom de colonne
+     */
+    private final LinkedHashMap<String, ForeignKey> foreignKeys;
+
+    // vues en lecture seule, sans copie (suivent les modifications de la table)
+    private final List<Column> columnsView;
+    private final Collection<ForeignKey> foreignKeysView;
+
+    /**
+     * Schema qui contient la table (mis par DatabaseSchema), prévenu des modifications
+     */
+    DatabaseSchema schema;
+
+    /**
+     * Version du schema à la dernière modification de la table
+     */
+    long version = 0;
     
     public Table(String name) {
         this.name = name;
         this.attributs = new LinkedHashMap<>();
-        this.columns = new LinkedHashMap<>();
+        this.columns = new ArrayList<>();
         this.foreignKeys = new LinkedHashMap<>();
+        this.columnsView = Collections.unmodifiableList(this.columns);
+        this.foreignKeysView = Collections.unmodifiableCollection(this.foreignKeys.values());
     }
 
     public Table(Table other) {
         this(other.name);
-        for(Column col : other.columns.values()) this.addColumn(new Column(col));
+        this.columns.ensureCapacity(other.columns.size());
+        for(Column col : other.columns) this.addColumn(new Column(col));
         for(ForeignKey fk : other.foreignKeys.values()) this.addForeignKey(new ForeignKey(fk));
         if(other.positionned) this.setPosition(other.posX, other.posY);
     }
 
+    /**
+     * Ajoute une colonne, remplace la colonne ou la clé étrangère qui avait le même nom
+     */
     public void addColumn(Column col) {
-        this.columns.put(col.name, col);
-        this.attributs.put(col.name, true);
+        Object old = this.attributs.put(Names.intern(col.name), col);
+        if (old instanceof Column oldCol) {
+            this.columns.set(this.columns.indexOf(oldCol), col);
+        } else {
+            // la clé étrangère remplacée ne doit pas rester dans foreignKeys
+            if (old instanceof ForeignKey fk) this.foreignKeys.remove(fk.columnName);
+            this.columns.add(col);
+        }
+        this.changed();
+    }
+    /**
+     * Colonne par son nom, null si ce n'est pas une colonne (ou si c'est une clé étrangère)
+     */
+    public Column getColumn(String name) {
+        return this.attributs.get(name) instanceof Column col ? col : null;
+    }
+    /**
+     * Colonne par sa position (0 &lt;= index &lt; getColumnCount())
+     */
+    public Column getColumn(int index) {
+        return this.columns.get(index);
+    }
+    /**
+     * Retire toutes les colonnes (les clés étrangères restent)
+     */
+    public void clearColumns() {
+        if (this.columns.isEmpty()) return;
+
+        this.attributs.values().removeIf(v -> v instanceof Column);
+        this.columns.clear();
+        this.changed();
+    }
+    /**
+     * Remplace les colonnes et les clés étrangères par des copies de celles de other (le nom et la position restent)
+     */
+    public void setAttributs(Table other) {
+        this.attributs.clear();
+        this.columns.clear();
+        this.foreignKeys.clear();
+        for (Column col : other.columns) {
+            Column copy = new Column(col);
+            this.attributs.put(Names.intern(copy.name), copy);
+            this.columns.add(copy);
+        }
+        for (ForeignKey fk : other.foreignKeys.values()) {
+            ForeignKey copy = new ForeignKey(fk);
+            this.attributs.put(copy.columnName, copy);
+            this.foreignKeys.put(copy.columnName, copy);
+        }
+        this.changed();
     }
+    /**
+     * Copie des colonnes, pour parcourir en modifiant la table (sinon getColumnsView)
+     */
     public List<Column> getColumns() {
-        return new ArrayList<>(this.columns.values());
+        return new ArrayList<>(this.columns);
+    }
+    /**
+     * Colonnes dans l'ordre, sans copie (lecture seule)
+     */
+    public List<Column> getColumnsView() {
+        return this.columnsView;
+    }
+    public int getColumnCount() {
+        return this.columns.size();
+    }
+    /**
+     * Parcourt les colonnes dans l'ordre, sans copie
+     */
+    public void forEachColumn(Consumer<Column> action) {
+        for (int i = 0; i < this.columns.size(); i++) action.accept(this.columns.get(i));
     }
 
     public void addForeignKey(ForeignKey fk) {
         this.foreignKeys.put(fk.columnName, fk);
         // la colonne sera (surement) déja référencé, donc on l'enlève
-        if(this.attributs.get(fk.columnName)) {
-            fk.isPrimaryKey = this.columns.get(fk.columnName).isPrimaryKey;
-            this.columns.remove(fk.columnName);
+        if(this.attributs.put(fk.columnName, fk) instanceof Column col) {
+            fk.isPrimaryKey = col.isPrimaryKey;
+            this.columns.remove(col);
         }
-        this.attributs.put(fk.columnName, false);
+        this.changed();
     }
+    /**
+     * Clé étrangère par le nom de sa colonne, null si aucune
+     */
+    public ForeignKey getForeignKey(String columnName) {
+        return this.foreignKeys.get(columnName);
+    }
+    /**
+     * Retire les clés étrangères vers une table
+     * @return true si au moins une clé a été retirée
+     */
+    public boolean removeForeignKeysTo(String tableName) {
+        boolean removed = false;
+        Iterator<ForeignKey> it = this.foreignKeys.values().iterator();
+        while (it.hasNext()) {
+            ForeignKey fk = it.next();
+            if (tableName.equals(fk.referencedTable)) {
+                it.remove();
+                this.attributs.remove(fk.columnName, fk);
+                removed = true;
+            }
+        }
+        if (removed) this.changed();
+        return removed;
+    }
+    /**
+     * Copie des clés étrangères, pour parcourir en modifiant la table (sinon getForeignKeysView)
+     */
     public List<ForeignKey> getForeignKeys() {
         return new ArrayList<>(this.foreignKeys.values());
     }
+    /**
+     * Clés étrangères dans l'ordre, sans copie (lecture seule)
+     */
+    public Collection<ForeignKey> getForeignKeysView() {
+        return this.foreignKeysView;
+    }
+    public int getForeignKeyCount() {
+        return this.foreignKeys.size();
+    }
+    /**
+     * Parcourt les clés étrangères dans l'ordre, sans copie
+     */
+    public void forEachForeignKey(Consumer<ForeignKey> action) {
+        this.foreignKeys.values().forEach(action);
+    }
 
+    /**
+     * nom -> true si colonne, false si clé étrangère (copie)
+     */
     public LinkedHashMap<String, Boolean> getAttributs() {
-        return new LinkedHashMap<>(this.attributs);
+        LinkedHashMap<String, Boolean> attributs = new LinkedHashMap<>();
+        this.forEachAttribut(attributs::put);
+        return attributs;
+    }
+    /**
+     * Parcourt les colonnes et clés étrangères dans l'ordre : nom, true si colonne, false si clé étrangère
+     */
+    public void forEachAttribut(BiConsumer<String, Boolean> action) {
+        this.attributs.forEach((name, value) -> action.accept(name, value instanceof Column));
+    }
+    /**
+     * Vrai si le nom est celui d'une colonne ou d'une clé étrangère de la table
+     */
+    public boolean hasAttribut(String name) {
+        return this.attributs.containsKey(name);
+    }
+    /**
+     * Vrai si la table n'a ni colonne ni clé étrangère (ex : association créée dans le MCD) :
+     * elle n'existe que dans l'application, elle n'est ni exportée ni comparée à la bdd
+     */
+    public boolean isEmpty() {
+        return this.attributs.isEmpty();
+    }
+
+    /* =================================================================== */
+    //                      suivi des modifications                         //
+    /* =================================================================== */
+
+    /**
+     * Version du schema à la dernière modification de la table (voir DatabaseSchema.getVersion)
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Vrai si la table a été ajoutée ou modifiée après la version donnée du schema
+     */
+    public boolean isModifiedSince(long version) {
+        return this.version > version;
+    }
+
+    /**
+     * Signale une modification faite directement sur une colonne ou une clé étrangère (ex : column.isNotNull)
+     */
+    public void touch() {
+        this.changed();
+    }
+
+    /**
+     * Prévient le schema (s'il y en a un) que les colonnes ou les clés étrangères ont changé
+     */
+    private void changed() {
+        if (this.schema != null) {
+            this.schema.tableChanged(this);
+        } else {
+            this.version++;
+        }
     }
 
     /* =================================================================== */
@@ -1,185 +1,418 @@
 package com.dbeditor.model.mcd;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
-import com.dbeditor.MainApp;
 import com.dbeditor.model.Column;
 import com.dbeditor.model.DatabaseSchema;
 import com.dbeditor.model.ForeignKey;
+import com.dbeditor.model.SchemaListener;
 import com.dbeditor.model.Table;
 
 import javafx.util.Pair;
 
 /**
- * Permet de représenter un MCD
+ * Permet de représenter un MCD.<br>
+ * Construit une fois à partir du schema puis tenu à jour par ses événements (SchemaListener) :
+ * une modification ne recalcule que la table concernée et les associations qui en dépendent.
+ * detach doit être appelé quand le MCD n'est plus utilisé.
  */
-public class ConceptualSchema {
-    private final Map<String, Entity> entities = new HashMap<>();
+public class ConceptualSchema implements SchemaListener {
+    private final DatabaseSchema schema;
+
+    private final Map<String, Table> entities = new HashMap<>();
     private final Map<String, Association> associations = new HashMap<>();
 
+    /**
+     * entité -> noms des associations où elle apparaît
+     * (sert aussi à retrouver les tables associatives qui la référencent)
+     */
+    private final Map<String, Set<String>> byEntity = new HashMap<>();
+
+    /**
+     * table -> noms des associations calculées à partir de ses clés étrangères
+     */
+    private final Map<String, List<String>> bySource = new HashMap<>();
+
+    /**
+     * entité absente -> tables dont une clé étrangère la référence (à recalculer quand elle arrive)
+     */
+    private final Map<String, Set<String>> pending = new HashMap<>();
+
     public ConceptualSchema(DatabaseSchema schema) {
-        if(schema.tables.isEmpty()) return;
-
-        // Identifier les entités et les associations
-        // créer les tables et attendre avant de créer les assos
-        List<Table> assoToCreate = new ArrayList<>();
-        for(Table table : schema.tables.values()) {
-            if(this.isAssociativeTable(table)) {
-                assoToCreate.add(table);
-            } else {
-                this.entities.put(table.name, new Entity(table));
+        this.schema = schema;
+
+        // Identifier les entités, puis les associations (elles ont besoin de toutes les entités)
+        for(Table table : schema.getTablesView()) {
+            if(!ConceptualSchema.isAssociativeTable(table)) {
+                this.entities.put(table.name, table);
             }
         }
-
-        // créer les associations (tables associatives)
-        for(Table table : assoToCreate) {
-            this.createAssociationFromTable(table);
+        for(Table table : schema.getTablesView()) {
+            this.derive(table);
         }
 
-        // Ajouter les associations basées sur les FK des entités
-        for(Entity entity : entities.values()) {
-            for(ForeignKey fk : entity.table.getForeignKeys()) {
-                // si != null alors lien entre table hors association
-                Entity target = entities.get(fk.referencedTable);
-                if(target == null) continue;
-
-                // colonne FK dans la table référençante (entity)
-                Column referencingCol = entity.table.columns.get(fk.columnName);
-                if(referencingCol == null) continue;
-
-                // Déterminer la cardinalité côté référençant (entity)
-                // chaque ligne référençante pointe vers une et une seule entité référence -> max = 1
-                // min = 1 si NOT NULL sinon 0
-                CardinalityValue referencingCard = referencingCol.isNotNull ? CardinalityValue._11_ : CardinalityValue._01_;
-
-                // Déterminer la cardinalité côté référencé (target)
-                // par défaut B peut être référencé par plusieurs A -> 0..N
-                // si la colonne FK dans A est unique (détectée ici si elle est PK), alors max = 1
-                CardinalityValue targetCard;
-                if (referencingCol.isPrimaryKey) {
-                    // FK est PK => relation 1-1 ou 0-1 selon nullabilité de la FK (dans A)
-                    targetCard = referencingCol.isNotNull ? CardinalityValue._11_ : CardinalityValue._01_;
-                } else {
-                    Column fkColumn = entity.table.columns.get(fk.columnName);
-                    // FK non-unique => côté référencé = 0..N (par défaut pas d'obligation)
-                    targetCard = fkColumn.isNotNull ? CardinalityValue._1N_ : CardinalityValue._0N_;
-                }
-
-                List<Pair<Entity, CardinalityValue>> linkedEntitiesCard = new ArrayList<>();
-                // ordre : premier = référençant (entity), second = référencé (target)
-                linkedEntitiesCard.add(new Pair<>(entity, referencingCard));
-                linkedEntitiesCard.add(new Pair<>(target, targetCard));
-
-                Association association = new Association(linkedEntitiesCard, null);
-                this.associations.put(association.referencedTable.name, association);
-            }
-        }
+        schema.addListener(this);
+    }
+
+    /**
+     * Arrête de suivre le schema
+     */
+    public void detach() {
+        this.schema.removeListener(this);
+    }
+
+    public DatabaseSchema getSchema() {
+        return this.schema;
     }
 
     /**
      * Vérifie si la table est un association
      * telle que -> (pk === fk) >= 2
      */
-    private boolean isAssociativeTable(Table table) {
-        List<Column> tablePkList = new ArrayList<>();
-        for(Column col : table.getColumns()) {
-            if(col.isPrimaryKey) {
-                tablePkList.add(col);
+    public static boolean isAssociativeTable(Table table) {
+        // les colonnes des clés étrangères ne sont plus dans les colonnes (Table.addForeignKey) :
+        // aucune colonne simple dans la clé primaire, et toutes les clés étrangères dedans
+        for(Column col : table.getColumnsView()) {
+            if(col.isPrimaryKey) return false;
+        }
+        if(table.getForeignKeyCount() < 2) return false;
+
+        for(ForeignKey fk : table.getForeignKeysView()) {
+            if(!fk.isPrimaryKey) return false;
+        }
+        return true;
+    }
+
+    /* ================================================================================ */
+    //                     suivi du schema (SchemaListener)                             //
+    /* ================================================================================ */
+
+    @Override
+    public void tableAdded(Table table) {
+        this.refresh(table);
+    }
+
+    @Override
+    public void tableChanged(Table table) {
+        this.refresh(table);
+    }
+
+    @Override
+    public void tableRemoved(Table table) {
+        this.forget(table.name, table);
+    }
+
+    @Override
+    public void tableRenamed(Table table, String oldName) {
+        this.forget(oldName, table);
+        this.refresh(table);
+    }
+
+    /**
+     * Recalcule ce qui vient d'une table : entité ou table associative, et ses associations
+     */
+    private void refresh(Table table) {
+        // association créée dans le MCD : ses liens ne viennent pas du schema
+        Association a = this.associations.get(table.name);
+        if (a != null && a.source == null && a.referencedTable == table) return;
+
+        this.removeDerivedFrom(table.name);
+
+        if (ConceptualSchema.isAssociativeTable(table)) {
+            if (this.entities.remove(table.name) != null) this.entityRemoved(table.name);
+            this.derive(table);
+        } else {
+            boolean isNew = this.entities.put(table.name, table) != table;
+            this.derive(table);
+            if (isNew) this.entityAdded(table.name);
+            this.entityChanged(table.name);
+        }
+    }
+
+    /**
+     * Oublie tout ce qui vient de la table (retirée ou renommée)
+     */
+    private void forget(String name, Table table) {
+        this.removeDerivedFrom(name);
+
+        Association a = this.associations.get(name);
+        if (a != null && a.referencedTable == table) this.unregister(a);
+
+        if (this.entities.get(name) == table) {
+            this.entities.remove(name);
+            this.entityRemoved(name);
+        }
+    }
+
+    /**
+     * Une entité vient d'arriver : les tables qui la référençaient sans la trouver sont recalculées
+     */
+    private void entityAdded(String name) {
+        Set<String> sources = this.pending.remove(name);
+        if (sources == null) return;
+
+        for (String source : sources) {
+            Table table = this.schema.getTable(source);
+            if (table == null || source.equals(name)) continue;
+
+            this.removeDerivedFrom(source);
+            this.derive(table);
+        }
+    }
+
+    /**
+     * Une entité a changé : les tables associatives qui la référencent lisent ses colonnes (cardinalités),
+     * leurs associations sont recalculées
+     */
+    private void entityChanged(String name) {
+        Set<String> names = this.byEntity.get(name);
+        if (names == null) return;
+
+        Set<String> sources = new HashSet<>();
+        for (String assocName : names) {
+            Association a = this.associations.get(assocName);
+            if (a != null && a.source != null && a.source.equals(a.referencedTable.name) && !a.source.equals(name)) {
+                sources.add(a.source);
             }
         }
 
-        if(tablePkList.isEmpty()) return false;
-        Set<String> pkCols = new HashSet<>();
-        for(Column c : tablePkList) pkCols.add(c.name);
-        Set<String> fkCols = new HashSet<>();
-        for(ForeignKey fk : table.getForeignKeys()) fkCols.add(fk.columnName);
+        for (String source : sources) {
+            Table table = this.schema.getTable(source);
+            if (table == null) continue;
 
-        return pkCols.equals(fkCols) && fkCols.size() >= 2;
+            this.removeDerivedFrom(source);
+            this.derive(table);
+        }
+    }
+
+    /**
+     * Une entité a disparu : ses associations sont retirées,
+     * celles calculées depuis une autre table sont recalculées (et attendront l'entité)
+     */
+    private void entityRemoved(String name) {
+        Set<String> names = this.byEntity.remove(name);
+        if (names == null) return;
+
+        Set<String> sources = new HashSet<>();
+        for (String assocName : names) {
+            Association a = this.associations.get(assocName);
+            if (a == null) continue;
+
+            if (a.source != null && !a.source.equals(name)) sources.add(a.source);
+            this.unregister(a);
+        }
+
+        for (String source : sources) {
+            Table table = this.schema.getTable(source);
+            if (table == null) continue;
+
+            this.removeDerivedFrom(source);
+            this.derive(table);
+        }
+    }
+
+    /* ================================================================================ */
+    //                      calcul des associations                                     //
+    /* ================================================================================ */
+
+    private void derive(Table table) {
+        if (ConceptualSchema.isAssociativeTable(table)) {
+            this.createAssociationFromTable(table);
+        } else if (this.entities.get(table.name) == table) {
+            this.createAssociationsFromForeignKeys(table);
+        }
     }
 
     /**
      * Permet de créer les associations (tables d'association -> relation n-n)
      */
     private void createAssociationFromTable(Table table) {
-        List<Pair<Entity, CardinalityValue>> linkedEntitiesCard = new ArrayList<>();
-        for(ForeignKey fk : table.getForeignKeys()) {
-            Entity target = entities.get(fk.referencedTable);
-            if(target == null) continue;
-            
+        Association association = new Association(table, table.name);
+        for(ForeignKey fk : table.getForeignKeysView()) {
+            Table target = this.entities.get(fk.referencedTable);
+            if(target == null) {
+                this.waitFor(fk.referencedTable, table.name);
+                continue;
+            }
+
             // Pour une table associative, côté entité la multiplicité est généralement 0..N
             // (une entité peut ne participer à aucune association ou à plusieurs)
-            Column fkColumn = target.table.columns.get(fk.columnName);
+            Column fkColumn = target.getColumn(fk.columnName);
             CardinalityValue cardForEntity;
-            if (fkColumn.isNotNull) {
+            if (fkColumn != null && fkColumn.isNotNull) {
                 cardForEntity = CardinalityValue._1N_;
             } else {
                 cardForEntity = CardinalityValue._0N_;
             }
-            linkedEntitiesCard.add(new Pair<>(target, cardForEntity));
+            association.linkedEntities.put(target.name, cardForEntity);
+        }
+        this.register(association);
+    }
+
+    /**
+     * Ajoute les associations basées sur les FK d'une entité
+     */
+    private void createAssociationsFromForeignKeys(Table entity) {
+        for(ForeignKey fk : entity.getForeignKeysView()) {
+            // si != null alors lien entre table hors association
+            Table target = this.entities.get(fk.referencedTable);
+            if(target == null) {
+                this.waitFor(fk.referencedTable, entity.name);
+                continue;
+            }
+
+            // colonne FK dans la table référençante (entity)
+            Column referencingCol = entity.getColumn(fk.columnName);
+            if(referencingCol == null) continue;
+
+            // Déterminer la cardinalité côté référençant (entity)
+            // chaque ligne référençante pointe vers une et une seule entité référence -> max = 1
+            // min = 1 si NOT NULL sinon 0
+            CardinalityValue referencingCard = referencingCol.isNotNull ? CardinalityValue._11_ : CardinalityValue._01_;
+
+            // Déterminer la cardinalité côté référencé (target)
+            // par défaut B peut être référencé par plusieurs A -> 0..N
+            // si la colonne FK dans A est unique (détectée ici si elle est PK), alors max = 1
+            CardinalityValue targetCard;
+            if (referencingCol.isPrimaryKey) {
+                // FK est PK => relation 1-1 ou 0-1 selon nullabilité de la FK (dans A)
+                targetCard = referencingCol.isNotNull ? CardinalityValue._11_ : CardinalityValue._01_;
+            } else {
+                // FK non-unique => côté référencé = 0..N (par défaut pas d'obligation)
+                targetCard = referencingCol.isNotNull ? CardinalityValue._1N_ : CardinalityValue._0N_;
+            }
+
+            // ordre : premier = référençant (entity), second = référencé (target)
+            Association association = new Association(new Table(entity.name + "_" + target.name + "_"), entity.name);
+            association.linkedEntities.put(entity.name, referencingCard);
+            association.linkedEntities.put(target.name, targetCard);
+            this.register(association);
+        }
+    }
+
+    private void waitFor(String entityName, String source) {
+        this.pending.computeIfAbsent(entityName, k -> new HashSet<>()).add(source);
+    }
+
+    /**
+     * Retire les associations calculées à partir de la table
+     */
+    private void removeDerivedFrom(String source) {
+        List<String> names = this.bySource.remove(source);
+        if (names == null) return;
+
+        for (String name : names) {
+            Association a = this.associations.get(name);
+            if (a != null && source.equals(a.source)) this.unregister(a);
+        }
+    }
+
+    /**
+     * Range une association et l'ajoute aux index (remplace celle qui avait le même nom)
+     */
+    private void register(Association association) {
+        String name = association.referencedTable.name;
+        Association old = this.associations.get(name);
+        if (old != null) this.unregister(old);
+
+        this.associations.put(name, association);
+        for (String entity : association.linkedEntities.keySet()) {
+            this.byEntity.computeIfAbsent(entity, k -> new HashSet<>()).add(name);
+        }
+        if (association.source != null) {
+            this.bySource.computeIfAbsent(association.source, k -> new ArrayList<>()).add(name);
+        }
+    }
+
+    /**
+     * Retire une association et la retire des index
+     */
+    private void unregister(Association association) {
+        String name = association.referencedTable.name;
+        if (!this.associations.remove(name, association)) return;
+
+        for (String entity : association.linkedEntities.keySet()) {
+            Set<String> names = this.byEntity.get(entity);
+            if (names == null) continue;
+            names.remove(name);
+            if (names.isEmpty()) this.byEntity.remove(entity);
+        }
+        if (association.source != null) {
+            List<String> names = this.bySource.get(association.source);
+            if (names != null) {
+                names.remove(name);
+                if (names.isEmpty()) this.bySource.remove(association.source);
+            }
         }
-        this.associations.put(table.name, new Association(linkedEntitiesCard, table));
     }
 
+    /* ================================================================================ */
+    //                      modifications depuis le MCD                                 //
+    /* ================================================================================ */
+
     public boolean nameExists(String name) {
         return this.entities.containsKey(name) || this.associations.containsKey(name);
     }
 
     /**
      * Permet d'ajouter une entité.
-     * L'ajoute aussi dans le schema de MainApp
+     * L'ajoute aussi dans le schema
      */
     public void addEntity(Table table) {
-        this.entities.put(table.name, new Entity(table));
-        MainApp.schema.addTable(table);
+        this.schema.addTable(table);
     }
 
     /**
      * Met à jour une entité et toutes les associations associés.
-     * Le fait aussi dans le schema de MainApp
+     * Le fait aussi dans le schema : la table du schema est renommée (DatabaseSchema.renameTable) et modifiée,
+     * pas remplacée, l'enregistrement fait un RENAME TABLE et pas un DROP + CREATE qui perdrait les données
+     * @param updatedTable nouveau nom, colonnes et clés étrangères (copiées)
+     * @return la table de l'entité dans le schema, null si l'entité n'existe pas ou si le nouveau nom est pris
      */
-    public void updateEntity(String oldName, Table updatedTable) {
-        Entity old = entities.remove(oldName);
-        if (old == null) return;
-
-        Entity updated = new Entity(updatedTable);
-        entities.put(updatedTable.name, updated);
+    public Table updateEntity(String oldName, Table updatedTable) {
+        Table table = this.entities.get(oldName);
+        if (table == null) return null;
+
+        String newName = updatedTable.name;
+        boolean renamed = !oldName.equals(newName);
+        if (renamed && this.schema.hasTable(newName)) return null;
+
+        // les associations créées dans le MCD suivent l'entité, les autres sont recalculées depuis le schema
+        Map<Association, CardinalityValue> kept = new HashMap<>();
+        for (String assocName : this.byEntity.getOrDefault(oldName, Collections.emptySet())) {
+            Association a = this.associations.get(assocName);
+            if (a != null && a.source == null) kept.put(a, a.linkedEntities.get(oldName));
+        }
+        for (Association a : kept.keySet()) this.unregister(a);
 
-        MainApp.schema.tables.remove(oldName);
-        MainApp.schema.addTable(updatedTable);
+        if (renamed) this.schema.renameTable(oldName, newName);
+        table.setAttributs(updatedTable);
 
-        // mettre à jour les associations qui référencent l'ancienne entité
-        for (Association assoc : this.associations.values()) {
-            CardinalityValue card = assoc.linkedEntities.remove(old);
-            if (card != null) {
-                assoc.linkedEntities.put(updated, card);
-            }
+        for (Map.Entry<Association, CardinalityValue> entry : kept.entrySet()) {
+            Association a = entry.getKey();
+            a.linkedEntities.remove(oldName);
+            a.linkedEntities.put(newName, entry.getValue());
+            this.register(a);
         }
+        return table;
     }
 
     /**
      * Supprime une entité et toutes les associations associés.
-     * La supprime aussi dans le schema de MainApp
+     * La supprime aussi dans le schema
      */
     public void removeEntity(String name) {
-        Entity e = entities.remove(name);
-        if (e == null) return;
+        if (!this.entities.containsKey(name)) return;
 
-        MainApp.schema.tables.remove(name);
-
-        // supprimer les associations qui contiennent cette entité
-        this.associations.entrySet().removeIf(entry -> entry.getValue().linkedEntities.containsKey(e));
-        for(Entry<String, Association> entry : this.associations.entrySet()) {
-            if(entry.getValue().linkedEntities.keySet().contains(e)) {
-                this.removeAssociation(entry.getKey());
-            }
-        }
+        // les associations sont retirées par tableRemoved -> entityRemoved
+        this.schema.removeTable(name);
     }
 
     /**
@@ -189,15 +422,17 @@ public class ConceptualSchema {
     public Table addAssociation(String name, List<Pair<String, CardinalityValue>> links) {
         Table table = new Table(name);
 
-        List<Pair<Entity, CardinalityValue>> en = new ArrayList<>();
+        Association association = new Association(table, null);
         for(Pair<String, CardinalityValue> p : links) {
-            en.add(new Pair<>(this.entities.get(p.getKey()), p.getValue()));
+            if (this.entities.containsKey(p.getKey())) {
+                association.linkedEntities.put(p.getKey(), p.getValue());
+            }
         }
+        this.register(association);
 
-        this.associations.put(table.name, new Association(en, table));
-
-        // TODO: modification de MainApp.schema
-        MainApp.schema.addTable(table);
+        // TODO: clés étrangères vers les entités
+        // en attendant la table est vide : ni exportée ni comparée à la bdd (Table.isEmpty)
+        this.schema.addTable(table);
 
         return table;
     }
@@ -220,30 +455,22 @@ public class ConceptualSchema {
      * Supprime une association par son nom.
      */
     public void removeAssociation(String name) {
-        if (!this.nameExists(name)) return;
-
-        this.associations.remove(name);
-        MainApp.schema.tables.remove(name);
-
-        for (Table t : MainApp.schema.tables.values()) {
-            Iterator<Map.Entry<String, ForeignKey>> it = t.foreignKeys.entrySet().iterator();
-            while (it.hasNext()) {
-                ForeignKey fk = it.next().getValue();
-                if (name.equals(fk.referencedTable)) {
-                    it.remove();
-                }
-            }
+        Association a = this.associations.get(name);
+        if (a == null) return;
+
+        this.unregister(a);
+        this.schema.removeTable(name);
+
+        for (Table t : this.schema.getTables()) {
+            t.removeForeignKeysTo(name);
         }
     }
-    
+
     /**
      * Retourne toutes les tables associés aux entités
      */
     public List<Table> getEntitiesTables() {
-        List<Table> tables = new ArrayList<>();
-        for(Entity e : this.entities.values()) {
-            tables.add(e.table);
-        } return tables;
+        return new ArrayList<>(this.entities.values());
     }
 
     /**
@@ -251,8 +478,7 @@ public class ConceptualSchema {
      * null si elle n'existe pas
      */
     public Table getEntityTable(String name) {
-        Entity e = this.entities.get(name);
-        return e == null ? null : e.table;
+        return this.entities.get(name);
     }
 
     /**
@@ -263,52 +489,52 @@ public class ConceptualSchema {
         Association a = this.associations.get(name);
         return a == null ? null : a.referencedTable;
     }
-    
+
     /**
      * retourne le nécessaire pour tracé les liens entre les entités et les associations + les cardinalités
      */
     public Map<String, List<Pair<Table, CardinalityValue>>> getLinks() {
         Map<String, List<Pair<Table, CardinalityValue>>> links = new HashMap<>();
         for(Association assoc : this.associations.values()) {
-            List<Pair<Table, CardinalityValue>> tablesCard = new ArrayList<>();
-            for(Entity entity : assoc.linkedEntities.keySet()) {
-                tablesCard.add(new Pair<>(entity.table, assoc.linkedEntities.get(entity)));
-            }
-
-            links.put(
-                assoc.referencedTable.name,
-                tablesCard
-            );
+            links.put(assoc.referencedTable.name, this.links(assoc));
         }
         return links;
     }
 
-    /* =========================================================================================== */
-
-    private final class Entity {
-        public final Table table;
+    /**
+     * Liens d'une seule association, null si elle n'existe pas
+     */
+    public List<Pair<Table, CardinalityValue>> getLinks(String associationName) {
+        Association assoc = this.associations.get(associationName);
+        return assoc == null ? null : this.links(assoc);
+    }
 
-        public Entity(Table table) {
-            this.table = table;
+    private List<Pair<Table, CardinalityValue>> links(Association assoc) {
+        List<Pair<Table, CardinalityValue>> tablesCard = new ArrayList<>(assoc.linkedEntities.size());
+        for(Map.Entry<String, CardinalityValue> entry : assoc.linkedEntities.entrySet()) {
+            Table entity = this.entities.get(entry.getKey());
+            if (entity != null) tablesCard.add(new Pair<>(entity, entry.getValue()));
         }
+        return tablesCard;
     }
 
-    private final class Association {
-        public final Map<Entity, CardinalityValue> linkedEntities = new HashMap<>();
-        public final Table referencedTable;
-
-        public Association(List<Pair<Entity, CardinalityValue>> entitiesCard, Table rfTable) {
-            if(rfTable != null) {
-                this.referencedTable = rfTable;
-            } else {
-                String nom = "";
-                for(Pair<Entity, CardinalityValue> p : entitiesCard) { nom += p.getKey().table.name + "_"; }
-                this.referencedTable = new Table(nom);
-            }
+    /* =========================================================================================== */
 
-            for(Pair<Entity, CardinalityValue> p : entitiesCard) {
-                this.linkedEntities.put(p.getKey(), p.getValue());
-            }
+    private static final class Association {
+        /**
+         * entité -> cardinalité, dans l'ordre des liens
+         */
+        public final Map<String, CardinalityValue> linkedEntities = new LinkedHashMap<>();
+        public final Table referencedTable;
+        /**
+         * table dont l'association est calculée (elle-même pour une table associative),
+         * null si l'association a été créée dans le MCD
+         */
+        public final String source;
+
+        public Association(Table referencedTable, String source) {
+            this.referencedTable = referencedTable;
+            this.source = source;
         }
     }
-}
\ No newline at end of file
+}
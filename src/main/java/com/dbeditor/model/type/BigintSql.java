@@ -3,6 +3,9 @@ package com.dbeditor.model.type;
 import com.dbeditor.sql.DbType;
 
 public class BigintSql extends __SqlType {
+    public static final BigintSql INSTANCE = new BigintSql();
+
+    private BigintSql() {}
 
     @Override
     public boolean isConform(String data) {
@@ -12,12 +15,11 @@ public class BigintSql extends __SqlType {
 
     @Override
     public String getRepr(DbType dbType) {
-        // TODO
         return switch (dbType) {
             case MySql -> "BIGINT";
-            case MsSql -> "";
-            case PostgreSql -> "";
-            case Oracle -> "";
+            case MsSql -> "BIGINT";
+            case PostgreSql -> "BIGINT";
+            case Oracle -> "NUMBER(19)";
             default -> null;
         };
     }
@@ -0,0 +1,26 @@
+package com.dbeditor.model.type;
+
+import com.dbeditor.sql.DbType;
+
+public class BlobSql extends __SqlType {
+    public static final BlobSql INSTANCE = new BlobSql();
+
+    private BlobSql() {}
+
+    @Override
+    public boolean isConform(String data) {
+        // TODO
+        return false;
+    }
+
+    @Override
+    public String getRepr(DbType dbType) {
+        return switch (dbType) {
+            case MySql -> "BLOB";
+            case MsSql -> "VARBINARY(MAX)";
+            case PostgreSql -> "BYTEA";
+            case Oracle -> "BLOB";
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package com.dbeditor.model.type;
+
+import com.dbeditor.sql.DbType;
+
+public class BooleanSql extends __SqlType {
+    public static final BooleanSql INSTANCE = new BooleanSql();
+
+    private BooleanSql() {}
+
+    @Override
+    public boolean isConform(String data) {
+        // TODO
+        return false;
+    }
+
+    @Override
+    public String getRepr(DbType dbType) {
+        return switch (dbType) {
+            case MySql -> "BOOLEAN";
+            case MsSql -> "BIT";
+            case PostgreSql -> "BOOLEAN";
+            case Oracle -> "NUMBER(1)"; // pas de BOOLEAN avant Oracle 23
+            default -> null;
+        };
+    }
+}
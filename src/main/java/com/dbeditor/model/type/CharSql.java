@@ -1,23 +1,33 @@
 package com.dbeditor.model.type;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import com.dbeditor.sql.DbType;
 
+/**
+ * Immuable : une seule instance par taille (voir of)
+ */
 public class CharSql extends __SqlType implements _OneModifier {
+    private static final Map<Integer, CharSql> INSTANCES = new ConcurrentHashMap<>();
+
+    private final int size;
 
-    private int size;
+    private CharSql(int size) {
+        this.size = size;
+    }
 
     /**
      * @param size > 0
      */
-    public CharSql(int size) {
-        if (size <= 0) return;
-        this.size = size;
+    public static CharSql of(int size) {
+        if (size <= 0) throw new IllegalArgumentException("Taille invalide : " + size);
+        return INSTANCES.computeIfAbsent(size, CharSql::new);
     }
 
     @Override
-    public void updateData(int data) {
-        if (data <= 0) return;
-        this.size = data;
+    public int getData() {
+        return this.size;
     }
 
     @Override
@@ -28,12 +38,11 @@ public class CharSql extends __SqlType implements _OneModifier {
 
     @Override
     public String getRepr(DbType dbType) {
-        // TODO
         return switch (dbType) {
             case MySql -> "CHAR(%d)".formatted(this.size);
-            case MsSql -> "";
-            case PostgreSql -> "";
-            case Oracle -> "";
+            case MsSql -> "CHAR(%d)".formatted(this.size);
+            case PostgreSql -> "CHAR(%d)".formatted(this.size);
+            case Oracle -> "CHAR(%d)".formatted(this.size);
             default -> null;
         };
     }
@@ -3,6 +3,9 @@ package com.dbeditor.model.type;
 import com.dbeditor.sql.DbType;
 
 public class DateSql extends __SqlType {
+    public static final DateSql INSTANCE = new DateSql();
+
+    private DateSql() {}
 
     @Override
     public boolean isConform(String data) {
@@ -12,12 +15,11 @@ public class DateSql extends __SqlType {
 
     @Override
     public String getRepr(DbType dbType) {
-        // TODO
         return switch (dbType) {
             case MySql -> "DATE";
-            case MsSql -> "";
-            case PostgreSql -> "";
-            case Oracle -> "";
+            case MsSql -> "DATE";
+            case PostgreSql -> "DATE";
+            case Oracle -> "DATE";
             default -> null;
         };
     }
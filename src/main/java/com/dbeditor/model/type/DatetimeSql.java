@@ -3,6 +3,9 @@ package com.dbeditor.model.type;
 import com.dbeditor.sql.DbType;
 
 public class DatetimeSql extends __SqlType {
+    public static final DatetimeSql INSTANCE = new DatetimeSql();
+
+    private DatetimeSql() {}
 
     @Override
     public boolean isConform(String data) {
@@ -12,12 +15,11 @@ public class DatetimeSql extends __SqlType {
 
     @Override
     public String getRepr(DbType dbType) {
-        // TODO
         return switch (dbType) {
             case MySql -> "DATETIME";
-            case MsSql -> "";
-            case PostgreSql -> "";
-            case Oracle -> "";
+            case MsSql -> "DATETIME";
+            case PostgreSql -> "TIMESTAMP";
+            case Oracle -> "DATE"; // DATE contient aussi l'heure
             default -> null;
         };
     }
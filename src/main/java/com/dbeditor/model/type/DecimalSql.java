@@ -1,27 +1,43 @@
 package com.dbeditor.model.type;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import com.dbeditor.sql.DbType;
 
+/**
+ * Immuable : une seule instance par précision (voir of)
+ */
 public class DecimalSql extends __SqlType implements _TwoModifier {
+    private static final Map<Long, DecimalSql> INSTANCES = new ConcurrentHashMap<>();
 
-    private int before;
-    private int after;
+    private final int before;
+    private final int after;
 
-    /**
-     * @param before > 0
-     * @param after > 0
-     */
-    public DecimalSql(int before, int after) {
-        if (before <= 0 || after <= 0) return;
+    private DecimalSql(int before, int after) {
         this.before = before;
         this.after = after;
     }
 
+    /**
+     * @param before > 0 (nombre total de chiffres)
+     * @param after >= 0 et <= before (chiffres après la virgule)
+     */
+    public static DecimalSql of(int before, int after) {
+        if (before <= 0 || after < 0 || after > before) {
+            throw new IllegalArgumentException("Précision invalide : " + before + ", " + after);
+        }
+        return INSTANCES.computeIfAbsent(((long) before << 32) | after, k -> new DecimalSql(before, after));
+    }
+
     @Override
-    public void updateData(int data1, int data2) {
-        if (data1 <= 0 || data2 <= 0) return;
-        this.before = data1;
-        this.after = data2;
+    public int getData1() {
+        return this.before;
+    }
+
+    @Override
+    public int getData2() {
+        return this.after;
     }
 
     @Override
@@ -32,12 +48,11 @@ public class DecimalSql extends __SqlType implements _TwoModifier {
 
     @Override
     public String getRepr(DbType dbType) {
-        // TODO
         return switch (dbType) {
             case MySql -> "DECIMAL(%d, %d)".formatted(this.before, this.after);
-            case MsSql -> "";
-            case PostgreSql -> "";
-            case Oracle -> "";
+            case MsSql -> "DECIMAL(%d, %d)".formatted(this.before, this.after);
+            case PostgreSql -> "NUMERIC(%d, %d)".formatted(this.before, this.after);
+            case Oracle -> "NUMBER(%d, %d)".formatted(this.before, this.after);
             default -> null;
         };
     }
@@ -0,0 +1,29 @@
+package com.dbeditor.model.type;
+
+import com.dbeditor.sql.DbType;
+
+/**
+ * Réel en double précision
+ */
+public class DoubleSql extends __SqlType {
+    public static final DoubleSql INSTANCE = new DoubleSql();
+
+    private DoubleSql() {}
+
+    @Override
+    public boolean isConform(String data) {
+        // TODO
+        return false;
+    }
+
+    @Override
+    public String getRepr(DbType dbType) {
+        return switch (dbType) {
+            case MySql -> "DOUBLE";
+            case MsSql -> "FLOAT";
+            case PostgreSql -> "DOUBLE PRECISION";
+            case Oracle -> "BINARY_DOUBLE";
+            default -> null;
+        };
+    }
+}
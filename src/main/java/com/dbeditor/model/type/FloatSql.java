@@ -0,0 +1,29 @@
+package com.dbeditor.model.type;
+
+import com.dbeditor.sql.DbType;
+
+/**
+ * Réel en simple précision
+ */
+public class FloatSql extends __SqlType {
+    public static final FloatSql INSTANCE = new FloatSql();
+
+    private FloatSql() {}
+
+    @Override
+    public boolean isConform(String data) {
+        // TODO
+        return false;
+    }
+
+    @Override
+    public String getRepr(DbType dbType) {
+        return switch (dbType) {
+            case MySql -> "FLOAT";
+            case MsSql -> "REAL";
+            case PostgreSql -> "REAL";
+            case Oracle -> "BINARY_FLOAT";
+            default -> null;
+        };
+    }
+}
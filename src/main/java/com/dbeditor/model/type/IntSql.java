@@ -3,6 +3,9 @@ package com.dbeditor.model.type;
 import com.dbeditor.sql.DbType;
 
 public class IntSql extends __SqlType {
+    public static final IntSql INSTANCE = new IntSql();
+
+    private IntSql() {}
 
     @Override
     public boolean isConform(String data) {
@@ -12,12 +15,11 @@ public class IntSql extends __SqlType {
 
     @Override
     public String getRepr(DbType dbType) {
-        // TODO
         return switch (dbType) {
             case MySql -> "INT";
-            case MsSql -> "";
-            case PostgreSql -> "";
-            case Oracle -> "";
+            case MsSql -> "INT";
+            case PostgreSql -> "INTEGER";
+            case Oracle -> "NUMBER(10)";
             default -> null;
         };
     }
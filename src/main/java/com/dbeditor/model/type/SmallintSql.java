@@ -3,6 +3,9 @@ package com.dbeditor.model.type;
 import com.dbeditor.sql.DbType;
 
 public class SmallintSql extends __SqlType {
+    public static final SmallintSql INSTANCE = new SmallintSql();
+
+    private SmallintSql() {}
 
     @Override
     public boolean isConform(String data) {
@@ -12,12 +15,11 @@ public class SmallintSql extends __SqlType {
 
     @Override
     public String getRepr(DbType dbType) {
-        // TODO
         return switch (dbType) {
             case MySql -> "SMALLINT";
-            case MsSql -> "";
-            case PostgreSql -> "";
-            case Oracle -> "";
+            case MsSql -> "SMALLINT";
+            case PostgreSql -> "SMALLINT";
+            case Oracle -> "NUMBER(5)";
             default -> null;
         };
     }
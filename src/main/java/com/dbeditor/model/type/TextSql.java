@@ -3,6 +3,9 @@ package com.dbeditor.model.type;
 import com.dbeditor.sql.DbType;
 
 public class TextSql extends __SqlType {
+    public static final TextSql INSTANCE = new TextSql();
+
+    private TextSql() {}
 
     @Override
     public boolean isConform(String data) {
@@ -12,12 +15,11 @@ public class TextSql extends __SqlType {
 
     @Override
     public String getRepr(DbType dbType) {
-        // TODO
         return switch (dbType) {
             case MySql -> "TEXT";
-            case MsSql -> "";
-            case PostgreSql -> "";
-            case Oracle -> "";
+            case MsSql -> "VARCHAR(MAX)";
+            case PostgreSql -> "TEXT";
+            case Oracle -> "CLOB";
             default -> null;
         };
     }
@@ -3,6 +3,9 @@ package com.dbeditor.model.type;
 import com.dbeditor.sql.DbType;
 
 public class TimeSql extends __SqlType {
+    public static final TimeSql INSTANCE = new TimeSql();
+
+    private TimeSql() {}
 
     @Override
     public boolean isConform(String data) {
@@ -12,12 +15,11 @@ public class TimeSql extends __SqlType {
 
     @Override
     public String getRepr(DbType dbType) {
-        // TODO
         switch (dbType) {
             case MySql : return "TIME";
-            case MsSql : return "";
-            case PostgreSql : return "";
-            case Oracle : return "";        
+            case MsSql : return "TIME";
+            case PostgreSql : return "TIME";
+            case Oracle : return "TIMESTAMP"; // pas de type TIME
             default: return null;
         }
     }
@@ -3,6 +3,9 @@ package com.dbeditor.model.type;
 import com.dbeditor.sql.DbType;
 
 public class TimestampSql extends __SqlType {
+    public static final TimestampSql INSTANCE = new TimestampSql();
+
+    private TimestampSql() {}
 
     @Override
     public boolean isConform(String data) {
@@ -12,12 +15,11 @@ public class TimestampSql extends __SqlType {
 
     @Override
     public String getRepr(DbType dbType) {
-        // TODO
         return switch (dbType) {
             case MySql -> "TIMESTAMP";
-            case MsSql -> "";
-            case PostgreSql -> "";
-            case Oracle -> "";
+            case MsSql -> "DATETIME2"; // TIMESTAMP est un rowversion
+            case PostgreSql -> "TIMESTAMP";
+            case Oracle -> "TIMESTAMP";
             default -> null;
         };
     }
@@ -3,6 +3,9 @@ package com.dbeditor.model.type;
 import com.dbeditor.sql.DbType;
 
 public class TinyintSQL extends __SqlType {
+    public static final TinyintSQL INSTANCE = new TinyintSQL();
+
+    private TinyintSQL() {}
 
     @Override
     public boolean isConform(String data) {
@@ -12,12 +15,11 @@ public class TinyintSQL extends __SqlType {
 
     @Override
     public String getRepr(DbType dbType) {
-        // TODO
         return switch (dbType) {
             case MySql -> "TINYINT";
-            case MsSql -> "";
-            case PostgreSql -> "";
-            case Oracle -> "";
+            case MsSql -> "TINYINT";
+            case PostgreSql -> "SMALLINT"; // pas de TINYINT
+            case Oracle -> "NUMBER(3)";
             default -> null;
         };
     }
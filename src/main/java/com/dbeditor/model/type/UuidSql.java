@@ -0,0 +1,26 @@
+package com.dbeditor.model.type;
+
+import com.dbeditor.sql.DbType;
+
+public class UuidSql extends __SqlType {
+    public static final UuidSql INSTANCE = new UuidSql();
+
+    private UuidSql() {}
+
+    @Override
+    public boolean isConform(String data) {
+        // TODO
+        return false;
+    }
+
+    @Override
+    public String getRepr(DbType dbType) {
+        return switch (dbType) {
+            case MySql -> "CHAR(36)"; // pas de type UUID
+            case MsSql -> "UNIQUEIDENTIFIER";
+            case PostgreSql -> "UUID";
+            case Oracle -> "RAW(16)";
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package com.dbeditor.model.type;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.dbeditor.sql.DbType;
+
+/**
+ * Immuable : une seule instance par taille (voir of)
+ */
+public class VarbinarySql extends __SqlType implements _OneModifier {
+    private static final Map<Integer, VarbinarySql> INSTANCES = new ConcurrentHashMap<>();
+
+    private final int size;
+
+    private VarbinarySql(int size) {
+        this.size = size;
+    }
+
+    /**
+     * @param size > 0
+     */
+    public static VarbinarySql of(int size) {
+        if (size <= 0) throw new IllegalArgumentException("Taille invalide : " + size);
+        return INSTANCES.computeIfAbsent(size, VarbinarySql::new);
+    }
+
+    @Override
+    public int getData() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isConform(String data) {
+        // TODO
+        return false;
+    }
+
+    @Override
+    public String getRepr(DbType dbType) {
+        return switch (dbType) {
+            case MySql -> "VARBINARY(%d)".formatted(this.size);
+            case MsSql -> "VARBINARY(%d)".formatted(this.size);
+            case PostgreSql -> "BYTEA"; // pas de taille
+            case Oracle -> "RAW(%d)".formatted(this.size);
+            default -> null;
+        };
+    }
+}
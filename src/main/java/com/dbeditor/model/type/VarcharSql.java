@@ -1,23 +1,33 @@
 package com.dbeditor.model.type;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import com.dbeditor.sql.DbType;
 
+/**
+ * Immuable : une seule instance par taille (voir of)
+ */
 public class VarcharSql extends __SqlType implements _OneModifier {
+    private static final Map<Integer, VarcharSql> INSTANCES = new ConcurrentHashMap<>();
+
+    private final int size;
 
-    private int size;
+    private VarcharSql(int size) {
+        this.size = size;
+    }
 
     /**
      * @param size > 0
      */
-    public VarcharSql(int size) {
-        if (size <= 0) return;
-        this.size = size;
+    public static VarcharSql of(int size) {
+        if (size <= 0) throw new IllegalArgumentException("Taille invalide : " + size);
+        return INSTANCES.computeIfAbsent(size, VarcharSql::new);
     }
 
     @Override
-    public void updateData(int data) {
-        if (data <= 0) return;
-        this.size = data;
+    public int getData() {
+        return this.size;
     }
 
     @Override
@@ -28,12 +38,11 @@ public class VarcharSql extends __SqlType implements _OneModifier {
 
     @Override
     public String getRepr(DbType dbType) {
-        // TODO
         return switch (dbType) {
             case MySql -> "VARCHAR(%d)".formatted(this.size);
-            case MsSql -> "";
-            case PostgreSql -> "";
-            case Oracle -> "";
+            case MsSql -> "VARCHAR(%d)".formatted(this.size);
+            case PostgreSql -> "VARCHAR(%d)".formatted(this.size);
+            case Oracle -> "VARCHAR2(%d)".formatted(this.size);
             default -> null;
         };
     }
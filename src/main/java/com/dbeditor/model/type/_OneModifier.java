@@ -1,5 +1,5 @@
 package com.dbeditor.model.type;
 
 public interface _OneModifier {
-    public void updateData(int data);
-}
\ No newline at end of file
+    public int getData();
+}
@@ -1,5 +1,6 @@
 package com.dbeditor.model.type;
 
 public interface _TwoModifier {
-    public void updateData(int data1, int data2);
-}
\ No newline at end of file
+    public int getData1();
+    public int getData2();
+}
@@ -1,62 +1,264 @@
 package com.dbeditor.model.type;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
 
 import com.dbeditor.sql.DbType;
 
+/**
+ * Type d'une colonne.<br>
+ * Les types sont immuables et partagés : une seule instance par type et par modificateurs
+ * (INSTANCE pour les types sans modificateur, of(...) pour les autres).<br>
+ * get peut être appelé depuis plusieurs threads (SqlParser.ParsePipeline) : la correspondance nom -> type
+ * est en lecture seule et les instances de of(...) sont gardées dans des ConcurrentHashMap.
+ */
 public abstract class __SqlType {
 
     public abstract boolean isConform(String data);
     public abstract String getRepr(DbType dbType);
 
+    /**
+     * Crée (ou retrouve) le type à partir des modificateurs lus :
+     * NONE si le modificateur est absent, OTHER s'il n'est pas un entier (ex : MAX)
+     */
+    @FunctionalInterface
+    private interface Factory {
+        int NONE = -1;
+        int OTHER = -2;
+
+        __SqlType create(int m1, int m2);
+    }
+
+    /**
+     * bdd -> nom du type (en majuscule, sans modificateur) -> type
+     */
+    private static final Map<DbType, Map<String, Factory>> LOOKUP = new EnumMap<>(DbType.class);
+
+    /**
+     * Retrouve le type d'une colonne à partir de son écriture dans la bdd (ex : "varchar(255)", "DECIMAL(10, 2)"),
+     * null si le type n'est pas connu ou s'il a une précision que le type ne garde pas
+     * (ex : "int unsigned", "datetime(6)") : la colonne garde alors son écriture (Column.typeName)
+     */
     public static __SqlType get(String baseType, DbType dbType) {
-        String type = clean(baseType);
-
-        for(__SqlType d : AllSqlType.ALL_SQL_TYPE) {
-            String data = clean(d.getRepr(dbType));
-            if(data.equals(type)) {
-                if(d instanceof _OneModifier om) {
-                    String m = baseType.trim().replace(" ", "").split("\\(")[1].split("\\)")[0];
-                    om.updateData(Integer.parseInt(m));
-                }
-                else if(d instanceof _TwoModifier tm) {
-                    String m = baseType.trim().replace(" ", "").split("\\(")[1].split("\\)")[0];
-                    tm.updateData(
-                        Integer.parseInt(m.split(", ")[0]),
-                        Integer.parseInt(m.split(", ")[1])
-                    );
-                }
-                return d;
+        if (baseType == null || dbType == null) return null;
+
+        int open = baseType.indexOf('(');
+        int close = open < 0 ? -1 : baseType.indexOf(')', open);
+        String name = normalize(baseType, 0, open < 0 ? baseType.length() : open);
+        // mots après les modificateurs, ex : "int(10) unsigned"
+        if (close >= 0) {
+            String suffix = normalize(baseType, close + 1, baseType.length());
+            if (!suffix.isEmpty()) name = name.isEmpty() ? suffix : name + " " + suffix;
+        }
+
+        Map<String, Factory> names = LOOKUP.get(dbType);
+        Factory factory = names.get(name);
+        if (factory == null) {
+            // ex : TIMESTAMP WITH TIME ZONE
+            int space = name.indexOf(' ');
+            if (space < 0 || isUnrepresented(name.substring(space + 1))) return null;
+            if ((factory = names.get(name.substring(0, space))) == null) return null;
+        }
+
+        int m1 = Factory.NONE, m2 = Factory.NONE;
+        if (open >= 0) {
+            int end = close < 0 ? baseType.length() : close;
+            int comma = baseType.indexOf(',', open);
+            if (comma < 0 || comma > end) {
+                m1 = modifier(baseType, open + 1, end);
+            } else {
+                m1 = modifier(baseType, open + 1, comma);
+                m2 = modifier(baseType, comma + 1, end);
+            }
+        }
+        return factory.create(m1, m2);
+    }
+
+    /**
+     * Attributs que les types ne gardent pas (MySql) : ignorés, ils changeraient la colonne à l'export
+     */
+    private static boolean isUnrepresented(String words) {
+        return words.contains("UNSIGNED") || words.contains("ZEROFILL");
+    }
+
+    /**
+     * Nom du type en majuscule, espaces réduits
+     */
+    private static String normalize(String type, int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        boolean space = false;
+        for (int i = start; i < end; i++) {
+            char c = type.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+            } else {
+                if (space) sb.append(' ');
+                sb.append(Character.toUpperCase(c));
+                space = false;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Entier entre start et end (espaces ignorés), NONE si vide, OTHER si ce n'est pas un entier
+     */
+    private static int modifier(String type, int start, int end) {
+        int value = Factory.NONE;
+        for (int i = start; i < end; i++) {
+            char c = type.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 1_000_000_000) return Factory.OTHER;
+            } else if (!Character.isWhitespace(c)) {
+                return Factory.OTHER;
             }
         }
-        return null;
+        return value;
     }
 
-    private static String clean(String data) {
-        data = data.trim().replace(" ", "");
-        data = data.split("\\(")[0];
-        return data;
+    private static int orDefault(int modifier, int defaultValue) {
+        return modifier > 0 ? modifier : defaultValue;
     }
 
-    private static class AllSqlType {
-        public final static BigintSql BIGINT = new BigintSql();
-        public final static CharSql CHAR = new CharSql(1);
-        public final static DateSql DATE = new DateSql();
-        public final static DatetimeSql DATETIME = new DatetimeSql();
-        public final static DecimalSql DECIMAL = new DecimalSql(1, 1);
-        public final static IntSql INT = new IntSql();
-        public final static SmallintSql SMALLINT = new SmallintSql();
-        public final static TextSql TEXT = new TextSql();
-        public final static TimeSql TIME = new TimeSql();
-        public final static TimestampSql TIMESTAMP = new TimestampSql();
-        public final static TinyintSQL TINYINT = new TinyintSQL();
-        public final static VarcharSql VARCHAR = new VarcharSql(1);
-
-        public final static List<__SqlType> ALL_SQL_TYPE = new ArrayList<>();
-        static {
-            ALL_SQL_TYPE.addAll(Arrays.asList(BIGINT, CHAR, DATE, DATETIME, DECIMAL, INT, SMALLINT, TEXT, TIME, TIMESTAMP, TINYINT, VARCHAR));
+    /* ============================================================================================================================= */
+
+    static {
+        Factory bigint = (m1, m2) -> BigintSql.INSTANCE;
+        Factory integer = (m1, m2) -> IntSql.INSTANCE;
+        Factory smallint = (m1, m2) -> SmallintSql.INSTANCE;
+        Factory tinyint = (m1, m2) -> TinyintSQL.INSTANCE;
+        Factory text = (m1, m2) -> TextSql.INSTANCE;
+        Factory date = (m1, m2) -> DateSql.INSTANCE;
+        Factory datetime = (m1, m2) -> DatetimeSql.INSTANCE;
+        Factory time = (m1, m2) -> TimeSql.INSTANCE;
+        Factory timestamp = (m1, m2) -> TimestampSql.INSTANCE;
+        Factory character = (m1, m2) -> CharSql.of(orDefault(m1, 1));
+        // VARCHAR(MAX) de MsSql -> texte
+        Factory varchar = (m1, m2) -> m1 == Factory.OTHER ? TextSql.INSTANCE : VarcharSql.of(orDefault(m1, 255));
+        Factory decimal = (m1, m2) -> {
+            int before = orDefault(m1, 10);
+            return DecimalSql.of(before, Math.min(Math.max(m2, 0), before));
+        };
+        Factory bool = (m1, m2) -> BooleanSql.INSTANCE;
+        Factory real = (m1, m2) -> FloatSql.INSTANCE;
+        Factory doublePrecision = (m1, m2) -> DoubleSql.INSTANCE;
+        // FLOAT(p) : simple précision jusqu'à 24 bits, double au delà ou sans précision
+        Factory floating = (m1, m2) -> m1 > 0 && m1 <= 24 ? FloatSql.INSTANCE : DoubleSql.INSTANCE;
+        Factory uuid = (m1, m2) -> UuidSql.INSTANCE;
+        Factory blob = (m1, m2) -> BlobSql.INSTANCE;
+        // VARBINARY(MAX) de MsSql -> blob
+        Factory varbinary = (m1, m2) -> m1 == Factory.OTHER ? BlobSql.INSTANCE : VarbinarySql.of(orDefault(m1, 255));
+
+        for (DbType dbType : DbType.values()) {
+            Map<String, Factory> names = new HashMap<>();
+            names.put("BIGINT", bigint);
+            names.put("INT", integer);
+            names.put("INTEGER", integer);
+            names.put("SMALLINT", smallint);
+            names.put("CHAR", character);
+            names.put("CHARACTER", character);
+            names.put("VARCHAR", varchar);
+            names.put("CHARACTER VARYING", varchar);
+            names.put("DECIMAL", decimal);
+            names.put("DEC", decimal);
+            names.put("NUMERIC", decimal);
+            names.put("TEXT", text);
+            names.put("DATE", date);
+            names.put("TIME", time);
+            names.put("TIMESTAMP", timestamp);
+            names.put("FLOAT", floating);
+            names.put("REAL", real);
+            names.put("DOUBLE PRECISION", doublePrecision);
+
+            switch (dbType) {
+                case MySql -> {
+                    // seulement les synonymes exacts : un type plus petit ou plus grand (MEDIUMINT, LONGTEXT, JSON, ...)
+                    // reste inconnu et garde son écriture, un MODIFY COLUMN ne doit pas changer la colonne
+                    names.put("TINYINT", tinyint);
+                    // pas de booléen dans MySql : BOOLEAN est un TINYINT(1) et se relit comme tel
+                    names.put("BOOL", tinyint);
+                    names.put("BOOLEAN", tinyint);
+                    // fractions de seconde (1 à 6) : pas gardées par les types
+                    names.put("DATETIME", (m1, m2) -> m1 > 0 && m1 <= 6 ? null : DatetimeSql.INSTANCE);
+                    names.put("TIME", (m1, m2) -> m1 > 0 && m1 <= 6 ? null : TimeSql.INSTANCE);
+                    names.put("TIMESTAMP", (m1, m2) -> m1 > 0 && m1 <= 6 ? null : TimestampSql.INSTANCE);
+                    // FLOAT sans précision est en simple précision dans MySql
+                    names.put("FLOAT", (m1, m2) -> m2 != Factory.NONE ? null : m1 > 24 ? DoubleSql.INSTANCE : FloatSql.INSTANCE);
+                    names.put("REAL", doublePrecision); // REAL = DOUBLE par défaut
+                    names.put("DOUBLE", (m1, m2) -> m2 != Factory.NONE ? null : DoubleSql.INSTANCE);
+                    names.put("VARBINARY", varbinary);
+                    names.put("BLOB", blob);
+                }
+                case MsSql -> {
+                    names.put("TINYINT", tinyint);
+                    names.put("DATETIME", datetime);
+                    names.put("SMALLDATETIME", datetime);
+                    names.put("DATETIME2", timestamp);
+                    names.put("NCHAR", character);
+                    names.put("NVARCHAR", varchar);
+                    names.put("NTEXT", text);
+                    names.put("DATETIMEOFFSET", timestamp);
+                    names.put("BIT", bool);
+                    names.put("UNIQUEIDENTIFIER", uuid);
+                    names.put("MONEY", (m1, m2) -> DecimalSql.of(19, 4));
+                    names.put("SMALLMONEY", (m1, m2) -> DecimalSql.of(10, 4));
+                    names.put("VARBINARY", varbinary);
+                    names.put("IMAGE", blob);
+                    // TIMESTAMP est un rowversion, pas une date
+                    names.remove("TIMESTAMP");
+                }
+                case PostgreSql -> {
+                    names.put("INT2", smallint);
+                    names.put("INT4", integer);
+                    names.put("INT8", bigint);
+                    names.put("SMALLSERIAL", smallint);
+                    names.put("SERIAL", integer);
+                    names.put("BIGSERIAL", bigint);
+                    names.put("SERIAL2", smallint);
+                    names.put("SERIAL4", integer);
+                    names.put("SERIAL8", bigint);
+                    names.put("BPCHAR", character);
+                    names.put("BOOLEAN", bool);
+                    names.put("BOOL", bool);
+                    names.put("FLOAT4", real);
+                    names.put("FLOAT8", doublePrecision);
+                    names.put("UUID", uuid);
+                    names.put("JSON", text);
+                    names.put("JSONB", text);
+                    names.put("TIMESTAMPTZ", timestamp);
+                    names.put("TIMETZ", time);
+                    names.put("BYTEA", blob);
+                }
+                case Oracle -> {
+                    // NUMBER(p) : entier selon la précision, NUMBER(p, s) : décimal
+                    names.put("NUMBER", (m1, m2) -> {
+                        if (m2 > 0) return decimal.create(m1, m2);
+                        return switch (m1) {
+                            case 3 -> TinyintSQL.INSTANCE;
+                            case 5 -> SmallintSql.INSTANCE;
+                            case 10 -> IntSql.INSTANCE;
+                            case 19 -> BigintSql.INSTANCE;
+                            default -> decimal.create(orDefault(m1, 38), 0);
+                        };
+                    });
+                    names.put("VARCHAR2", varchar);
+                    names.put("NVARCHAR2", varchar);
+                    names.put("NCHAR", character);
+                    names.put("CLOB", text);
+                    names.put("NCLOB", text);
+                    names.put("LONG", text);
+                    names.put("REAL", doublePrecision); // FLOAT(63)
+                    names.put("BINARY_FLOAT", real);
+                    names.put("BINARY_DOUBLE", doublePrecision);
+                    names.put("RAW", varbinary);
+                    names.put("LONG RAW", blob);
+                    names.put("BLOB", blob);
+                }
+            }
+
+            LOOKUP.put(dbType, Map.copyOf(names));
         }
     }
 }
@@ -1,8 +1,5 @@
 package com.dbeditor.sql.db;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.StringReader;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
@@ -14,7 +11,6 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
@@ -25,7 +21,6 @@ import com.dbeditor.model.DatabaseSchema;
 import com.dbeditor.model.ForeignKey;
 import com.dbeditor.model.Table;
 import com.dbeditor.model.mcd.CardinalityValue;
-import com.dbeditor.model.type.__SqlType;
 import com.dbeditor.sql.DbType;
 
 public class MsSqlDb extends SqlDb {
@@ -44,21 +39,16 @@ public class MsSqlDb extends SqlDb {
      * Connecte au serveur MSSQL et sélectionne la base passée en paramètre.
      * URL JDBC MSSQL : jdbc:sqlserver://host:port;databaseName=DB;...
      */
+    @Override
     public void connect(String dbName) {
         if (this.isConnected()) {
             LOGGER.info("Déjà connecté.");
             return;
         }
 
-        // Paramètres recommandés : encrypt et trustServerCertificate selon ton infra
-        String url = "jdbc:sqlserver://"+this.dbHost+":"+this.dbPort+";databaseName="+dbName;
-
         try {
-            // Driver Microsoft JDBC pour SQL Server
-            Class.forName("com.microsoft.sqlserver.jdbc.SQLServerDriver");
-            this.connection = DriverManager.getConnection(url, this.dbUser, this.dbPassword);
-            this.connection.setAutoCommit(true);
-            LOGGER.info(() -> "Connexion MSSQL établie vers " + url);
+            this.connection = this.openConnection(dbName);
+            LOGGER.info(() -> "Connexion MSSQL établie vers " + this.getUrl(dbName));
         } catch (ClassNotFoundException e) {
             LOGGER.log(Level.SEVERE, "Driver JDBC MSSQL introuvable. Ajoute le driver 'mssql-jdbc' au classpath.", e);
         } catch (SQLException e) {
@@ -66,6 +56,21 @@ public class MsSqlDb extends SqlDb {
         }
     }
 
+    @Override
+    protected Connection openConnection(String dbName) throws SQLException, ClassNotFoundException {
+        // Driver Microsoft JDBC pour SQL Server
+        Class.forName("com.microsoft.sqlserver.jdbc.SQLServerDriver");
+        Connection c = DriverManager.getConnection(this.getUrl(dbName), this.dbUser, this.dbPassword);
+        c.setAutoCommit(true);
+        return c;
+    }
+
+    private String getUrl(String dbName) {
+        // Paramètres recommandés : encrypt et trustServerCertificate selon ton infra
+        return "jdbc:sqlserver://"+this.dbHost+":"+this.dbPort+";databaseName="+dbName;
+    }
+
+    @Override
     public void deconnect() {
         if (this.connection == null) return;
         try {
@@ -89,12 +94,13 @@ public class MsSqlDb extends SqlDb {
     }
 
     @Override
-    public DatabaseSchema loadDb(String dbName) {
+    public DatabaseSchema loadDb(String dbName, LoadListener listener) {
         this.connect(dbName);
         DatabaseSchema schema = new DatabaseSchema(dbName);
 
         if (!this.isConnected()) {
             LOGGER.severe("Impossible de charger la BD : pas de connexion.");
+            listener.onError(new SQLException("Pas de connexion à " + dbName));
             return schema;
         }
 
@@ -102,17 +108,22 @@ public class MsSqlDb extends SqlDb {
             DatabaseMetaData meta = this.connection.getMetaData();
             String catalog = this.connection.getCatalog(); // devrait être le nom de la base
 
+            List<TableRef> refs = new ArrayList<>();
             try (ResultSet tablesRs = meta.getTables(catalog, null, "%", new String[]{"TABLE"})) {
                 while (tablesRs.next()) {
                     String tableName = tablesRs.getString("TABLE_NAME");
                     if (tableName == null || tableName.trim().isEmpty()) continue;
-                    Table table = buildTable(meta, catalog, tableName);
-                    schema.addTable(table);
+                    refs.add(new TableRef(null, tableName));
                 }
             }
 
+            for (Table table : this.buildTables(this.connection, dbName, catalog, refs, this::buildTable, listener)) {
+                schema.addTable(table);
+            }
+
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Erreur pendant la lecture du schema MSSQL", e);
+            listener.onError(e);
         }
 
         return schema;
@@ -121,7 +132,8 @@ public class MsSqlDb extends SqlDb {
     /**
      * Construit un objet Table en utilisant DatabaseMetaData (colonnes, PK, FK).
      */
-    private Table buildTable(DatabaseMetaData meta, String catalog, String tableName) throws SQLException {
+    private Table buildTable(DatabaseMetaData meta, String catalog, TableRef ref) throws SQLException {
+        String tableName = ref.name();
         Table table = new Table(tableName);
 
         // Primary keys
@@ -151,7 +163,7 @@ public class MsSqlDb extends SqlDb {
                     fullType += "(" + columnSize + ")";
                 }
 
-                Column column = new Column(colName, __SqlType.get(fullType, DbType.MsSql));
+                Column column = new Column(colName, fullType, DbType.MsSql);
                 if ("NO".equalsIgnoreCase(isNullable)) {
                     column.isNotNull = true;
                 }
@@ -222,107 +234,17 @@ public class MsSqlDb extends SqlDb {
         return rows;
     }
 
+    /**
+     * Exécute un script SQL avec scriptRunner (découpage au fil de la lecture, requêtes envoyées par lots).
+     * Les USE sont ignorés : la connexion est déjà sur la bonne base.
+     */
     @Override
-    public boolean executeSqlScript(String sqlScript) {
-        if (!isConnected()) {
+    public boolean executeSqlScript(String sqlScript, int from) {
+        if (!this.isConnected()) {
             LOGGER.warning("executeSqlScript: pas de connexion active.");
             return false;
         }
 
-        // retirer commentaires multi-lignes /* ... */
-        sqlScript = sqlScript.replaceAll("(?s)/\\*.*?\\*/", " ");
-        sqlScript = sqlScript.replace("\r\n", "\n").replace("\r", "\n");
-
-        List<String> statements = new ArrayList<>();
-        String delimiter = ";";
-        StringBuilder current = new StringBuilder();
-
-        try (BufferedReader br = new BufferedReader(new StringReader(sqlScript))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String trimmed = line.trim();
-                if (trimmed.isEmpty()) continue;
-                if (trimmed.startsWith("--") || trimmed.startsWith("#")) continue;
-                if (trimmed.toUpperCase(Locale.ROOT).startsWith("USE ")) continue;
-
-                // Support pour DELIMITER si utilisé (rare sur MSSQL, mais pas gênant)
-                if (trimmed.toUpperCase(Locale.ROOT).startsWith("DELIMITER ")) {
-                    delimiter = trimmed.substring("DELIMITER ".length());
-                    continue;
-                }
-
-                // Support pour 'GO' sur une ligne (séparateur de batch MSSQL / sqlcmd / SSMS)
-                if (trimmed.equalsIgnoreCase("GO")) {
-                    String stmt = current.toString().trim();
-                    if (!stmt.isEmpty()) statements.add(stmt);
-                    current.setLength(0);
-                    continue;
-                }
-
-                current.append(line).append("\n");
-                String curStr = current.toString();
-
-                if (delimiter.length() == 1) {
-                    if (curStr.trim().endsWith(delimiter)) {
-                        String stmt = curStr.trim();
-                        stmt = stmt.substring(0, stmt.length() - delimiter.length()).trim();
-                        if (!stmt.isEmpty()) statements.add(stmt);
-                        current.setLength(0);
-                    }
-                } else {
-                    if (curStr.endsWith(delimiter + "\n") || curStr.endsWith(delimiter)) {
-                        int idx = curStr.lastIndexOf(delimiter);
-                        String stmt = (idx >= 0) ? curStr.substring(0, idx).trim() : curStr.trim();
-                        if (!stmt.isEmpty()) statements.add(stmt);
-                        current.setLength(0);
-                    }
-                }
-            }
-
-            if (current.length() > 0) {
-                String leftover = current.toString().trim();
-                if (!leftover.isEmpty()) statements.add(leftover);
-            }
-        } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Erreur lecture du script SQL", e);
-            return false;
-        }
-
-        if (statements.isEmpty()) {
-            LOGGER.info("Aucun statement trouvé dans le script.");
-            return true;
-        }
-
-        boolean success = true;
-        try (Statement stmt = this.connection.createStatement()) {
-            boolean prevAutoCommit = this.connection.getAutoCommit();
-            try {
-                this.connection.setAutoCommit(false);
-                for (String s : statements) {
-                    if (s == null || s.trim().isEmpty()) continue;
-                    stmt.execute(s);
-                }
-                this.connection.commit();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Erreur lors de l'exécution du script SQL", e);
-                success = false;
-                try {
-                    this.connection.rollback();
-                    LOGGER.warning("Transaction annulée (rollback).");
-                } catch (SQLException rbe) {
-                    LOGGER.log(Level.SEVERE, "Rollback a échoué", rbe);
-                }
-            } finally {
-                try {
-                    this.connection.setAutoCommit(prevAutoCommit);
-                } catch (SQLException ignore) { }
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Erreur sur Statement lors du script", e);
-            success = false;
-        }
-
-        if (success) LOGGER.info("Script exécuté avec succès.");
-        return success;
+        return this.runScript(this.connection, sqlScript, DbType.MsSql, from);
     }
 }
\ No newline at end of file
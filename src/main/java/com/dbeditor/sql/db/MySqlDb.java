@@ -1,16 +1,15 @@
 package com.dbeditor.sql.db;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.StringReader;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -25,14 +24,39 @@ import com.dbeditor.model.DatabaseSchema;
 import com.dbeditor.model.ForeignKey;
 import com.dbeditor.model.Table;
 import com.dbeditor.model.mcd.CardinalityValue;
-import com.dbeditor.model.type.__SqlType;
 import com.dbeditor.sql.DbType;
 
 public class MySqlDb extends SqlDb {
     private static final Logger LOGGER = Logger.getLogger(MySqlDb.class.getName());
 
+    /**
+     * Requêtes information_schema utilisées pour lire tout le catalogue en une fois.
+     * Les colonnes arrivent triées par table puis par position, la clé primaire est lue via COLUMN_KEY.
+     * Le type est lu tel quel via COLUMN_TYPE (ex : "decimal(10,2)", "int unsigned", "enum('a','b')").
+     */
+    private static final String CATALOG_COLUMNS_QUERY =
+        "SELECT c.TABLE_NAME, c.COLUMN_NAME, c.COLUMN_TYPE, " +
+        "c.IS_NULLABLE, c.COLUMN_KEY, c.EXTRA " +
+        "FROM information_schema.COLUMNS c " +
+        "JOIN information_schema.TABLES t ON t.TABLE_SCHEMA = c.TABLE_SCHEMA AND t.TABLE_NAME = c.TABLE_NAME " +
+        "WHERE c.TABLE_SCHEMA = ? AND t.TABLE_TYPE = 'BASE TABLE' " +
+        "ORDER BY c.TABLE_NAME, c.ORDINAL_POSITION";
+    private static final String CATALOG_COUNT_QUERY =
+        "SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = ? AND TABLE_TYPE = 'BASE TABLE'";
+    private static final String CATALOG_FOREIGN_KEYS_QUERY =
+        "SELECT k.TABLE_NAME, k.CONSTRAINT_NAME, k.COLUMN_NAME, k.REFERENCED_TABLE_NAME, k.REFERENCED_COLUMN_NAME " +
+        "FROM information_schema.KEY_COLUMN_USAGE k " +
+        "WHERE k.TABLE_SCHEMA = ? AND k.REFERENCED_TABLE_NAME IS NOT NULL " +
+        "ORDER BY k.TABLE_NAME, k.CONSTRAINT_NAME, k.ORDINAL_POSITION";
+
     private Connection connection;
 
+    /**
+     * Si true, loadDb lit le catalogue complet via information_schema (nombre fixe de requêtes).
+     * Le chargement table par table via DatabaseMetaData ne sert plus que de repli.
+     */
+    public boolean bulkIntrospection = true;
+
     public MySqlDb(String dbHost, String dbUser, String dbPassword, String dbPort) {
         this.dbHost = dbHost;
         this.dbUser = dbUser;
@@ -44,21 +68,16 @@ public class MySqlDb extends SqlDb {
      * Connecte au serveur MySQL et sélectionne la base passée en paramètre.
      * L'URL contient des paramètres recommandés (serverTimezone, allowPublicKeyRetrieval, useSSL).
      */
+    @Override
     public void connect(String dbName) {
         if (isConnected()) {
             LOGGER.info("Déjà connecté.");
             return;
         }
 
-        String url = String.format(
-            "jdbc:mysql://%s:%s/%s?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC",
-            this.dbHost, this.dbPort, dbName);
-
         try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            this.connection = DriverManager.getConnection(url, this.dbUser, this.dbPassword);
-            this.connection.setAutoCommit(true); // comportement par défaut ; transactionnel au besoin
-            LOGGER.info("Connexion établie vers " + url);
+            this.connection = this.openConnection(dbName);
+            LOGGER.info("Connexion établie vers " + this.getUrl(dbName));
         } catch (ClassNotFoundException e) {
             LOGGER.log(Level.SEVERE, "Driver JDBC introuvable", e);
         } catch (SQLException e) {
@@ -66,6 +85,21 @@ public class MySqlDb extends SqlDb {
         }
     }
 
+    @Override
+    protected Connection openConnection(String dbName) throws SQLException, ClassNotFoundException {
+        Class.forName("com.mysql.cj.jdbc.Driver");
+        Connection c = DriverManager.getConnection(this.getUrl(dbName), this.dbUser, this.dbPassword);
+        c.setAutoCommit(true); // comportement par défaut ; transactionnel au besoin
+        return c;
+    }
+
+    private String getUrl(String dbName) {
+        return String.format(
+            "jdbc:mysql://%s:%s/%s?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC",
+            this.dbHost, this.dbPort, dbName);
+    }
+
+    @Override
     public void deconnect() {
         if (this.connection == null) return;
         try {
@@ -89,30 +123,51 @@ public class MySqlDb extends SqlDb {
     }
 
     @Override
-    public DatabaseSchema loadDb(String dbName) {
+    public DatabaseSchema loadDb(String dbName, LoadListener listener) {
         DatabaseSchema schema = new DatabaseSchema(dbName);
 
         this.connect(dbName);
         if (!this.isConnected()) {
             LOGGER.severe("Impossible de charger la BD : pas de connexion.");
+            listener.onError(new SQLException("Pas de connexion à " + dbName));
             return schema;
         }
 
         try {
-            DatabaseMetaData meta = this.connection.getMetaData();
             String catalog = this.connection.getCatalog();
 
+            if (this.bulkIntrospection) {
+                try {
+                    this.loadCatalog(catalog, schema, listener);
+                    return schema;
+                } catch (SQLException e) {
+                    // des tables ont déjà été transmises : le repli les transmettrait une 2e fois
+                    if (schema.getTableCount() > 0) {
+                        LOGGER.log(Level.SEVERE, "Lecture via information_schema interrompue, schema incomplet", e);
+                        listener.onError(e);
+                        return schema;
+                    }
+                    LOGGER.log(Level.WARNING, "Lecture via information_schema impossible, repli sur DatabaseMetaData", e);
+                }
+            }
+
+            DatabaseMetaData meta = this.connection.getMetaData();
+            List<TableRef> refs = new ArrayList<>();
             try (ResultSet tablesRs = meta.getTables(catalog, null, "%", new String[]{"TABLE"})) {
                 while (tablesRs.next()) {
                     String tableName = tablesRs.getString("TABLE_NAME");
                     if (tableName == null || tableName.trim().isEmpty()) continue;
-                    Table table = this.buildTable(meta, catalog, tableName);
-                    schema.addTable(table);
+                    refs.add(new TableRef(null, tableName));
                 }
             }
 
+            for (Table table : this.buildTables(this.connection, dbName, catalog, refs, this::buildTable, listener)) {
+                schema.addTable(table);
+            }
+
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Erreur pendant la lecture du schema", e);
+            listener.onError(e);
         } finally {
             this.deconnect();
         }
@@ -120,10 +175,102 @@ public class MySqlDb extends SqlDb {
         return schema;
     }
 
+    /**
+     * Construit toutes les tables du catalogue en 3 requêtes information_schema :
+     * le nombre de tables, les FK puis les colonnes (avec les PK).
+     * Les colonnes arrivent triées par table : chaque table est transmise dès que sa dernière colonne est lue.
+     */
+    private void loadCatalog(String catalog, DatabaseSchema schema, LoadListener listener) throws SQLException {
+        try (PreparedStatement ps = this.connection.prepareStatement(CATALOG_COUNT_QUERY)) {
+            ps.setString(1, catalog);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) listener.onTotal(rs.getInt(1));
+            }
+        }
+
+        // nom de la table -> ses FK, ajoutées quand la table est complète
+        Map<String, List<ForeignKey>> foreignKeys = new HashMap<>();
+        try (PreparedStatement ps = this.connection.prepareStatement(CATALOG_FOREIGN_KEYS_QUERY)) {
+            ps.setString(1, catalog);
+            try (ResultSet fkRs = ps.executeQuery()) {
+                while (fkRs.next()) {
+                    String tableName = fkRs.getString("TABLE_NAME");
+                    String fkName = fkRs.getString("CONSTRAINT_NAME");
+                    String fkColumn = fkRs.getString("COLUMN_NAME");
+                    String pkTable = fkRs.getString("REFERENCED_TABLE_NAME");
+                    String pkColumn = fkRs.getString("REFERENCED_COLUMN_NAME");
+
+                    if (tableName == null || fkColumn == null || pkTable == null) continue;
+
+                    foreignKeys.computeIfAbsent(tableName, k -> new ArrayList<>()).add(new ForeignKey(
+                        fkName != null ? fkName : (tableName + "_" + fkColumn + "_fk"),
+                        fkColumn,
+                        pkTable,
+                        pkColumn,
+                        CardinalityValue._0N_ // TODO: les cardinalités
+                    ));
+                }
+            }
+        }
+
+        if (listener.isCancelled()) return;
+
+        try (PreparedStatement ps = this.connection.prepareStatement(CATALOG_COLUMNS_QUERY)) {
+            ps.setString(1, catalog);
+            try (ResultSet cols = ps.executeQuery()) {
+                Table table = null;
+                while (cols.next()) {
+                    String tableName = cols.getString("TABLE_NAME");
+                    if (tableName == null || tableName.trim().isEmpty()) continue;
+
+                    // les lignes sont triées par table : un changement de nom termine la table précédente
+                    if (table == null || !table.name.equals(tableName)) {
+                        if (table != null) {
+                            this.endCatalogTable(table, foreignKeys, schema, listener);
+                            if (listener.isCancelled()) return;
+                        }
+                        table = new Table(tableName);
+                    }
+
+                    String colName = cols.getString("COLUMN_NAME");
+                    Column column = new Column(colName, cols.getString("COLUMN_TYPE"), DbType.MySql);
+                    if ("NO".equalsIgnoreCase(cols.getString("IS_NULLABLE"))) {
+                        column.isNotNull = true;
+                    }
+                    if ("PRI".equalsIgnoreCase(cols.getString("COLUMN_KEY"))) {
+                        column.isPrimaryKey = true;
+                    }
+                    String extra = cols.getString("EXTRA");
+                    if (extra != null && extra.toLowerCase(Locale.ROOT).contains("auto_increment")) {
+                        column.isAutoIncrementing = true;
+                    }
+
+                    table.addColumn(column);
+                }
+                if (table != null) this.endCatalogTable(table, foreignKeys, schema, listener);
+            }
+        }
+        LOGGER.info(() -> schema.getTableCount() + " tables chargées via information_schema.");
+    }
+
+    /**
+     * Ajoute ses FK à une table dont toutes les colonnes ont été lues, puis la transmet
+     */
+    private void endCatalogTable(Table table, Map<String, List<ForeignKey>> foreignKeys, DatabaseSchema schema, LoadListener listener) {
+        for (ForeignKey fk : foreignKeys.getOrDefault(table.name, List.of())) {
+            // addForeignKey a besoin que la colonne soit déjà référencée dans la table
+            if (table.hasAttribut(fk.columnName)) table.addForeignKey(fk);
+        }
+        schema.addTable(table);
+        listener.onTable(table);
+    }
+
     /**
      * Construit un objet Table en utilisant DatabaseMetaData (colonnes, PK, FK).
+     * Utilisé en repli quand la lecture via information_schema échoue.
      */
-    private Table buildTable(DatabaseMetaData meta, String catalog, String tableName) throws SQLException {
+    private Table buildTable(DatabaseMetaData meta, String catalog, TableRef ref) throws SQLException {
+        String tableName = ref.name();
         Table table = new Table(tableName);
 
         // Récupérer les primary keys d'abord pour marquer les colonnes
@@ -141,6 +288,7 @@ public class MySqlDb extends SqlDb {
                 String colName = cols.getString("COLUMN_NAME");
                 String typeName = cols.getString("TYPE_NAME");
                 int columnSize = cols.getInt("COLUMN_SIZE");
+                int decimalDigits = cols.getInt("DECIMAL_DIGITS");
                 String isNullable = cols.getString("IS_NULLABLE"); // "YES" / "NO"
                 String isAuto = null;
                 try {
@@ -150,12 +298,15 @@ public class MySqlDb extends SqlDb {
                     // si absent, on l'ignore
                 }
 
+                // TYPE_NAME n'a pas de modificateurs : ils vont après le premier mot (ex : "INT UNSIGNED" -> "INT(10) UNSIGNED")
                 String fullType = typeName;
                 if (columnSize > 0) {
-                    fullType += "(" + columnSize + ")";
+                    String modifiers = "(" + columnSize + (decimalDigits > 0 ? ", " + decimalDigits : "") + ")";
+                    int space = typeName.indexOf(' ');
+                    fullType = space < 0 ? typeName + modifiers : typeName.substring(0, space) + modifiers + typeName.substring(space);
                 }
 
-                Column column = new Column(colName, __SqlType.get(fullType, DbType.MySql));
+                Column column = new Column(colName, fullType, DbType.MySql);
                 if ("NO".equalsIgnoreCase(isNullable)) {
                     column.isNotNull = true;
                 }
@@ -228,100 +379,16 @@ public class MySqlDb extends SqlDb {
     }
 
     /**
-     * Exécute un script SQL en découpant correctement les statements (supporte DELIMITER).
-     * Retourne true si tout s'est bien passé.
+     * Exécute un script SQL avec scriptRunner (découpage au fil de la lecture, requêtes envoyées par lots).
+     * Les USE sont ignorés : la connexion est déjà sur la bonne base.
      */
-    public boolean executeSqlScript(String sqlScript) {
-        if (!isConnected()) {
+    @Override
+    public boolean executeSqlScript(String sqlScript, int from) {
+        if (!this.isConnected()) {
             LOGGER.warning("executeSqlScript: pas de connexion active.");
             return false;
         }
 
-        // retirer commentaires multi-lignes /* ... */
-        sqlScript = sqlScript.replaceAll("(?s)/\\*.*?\\*/", " ");
-        sqlScript = sqlScript.replace("\r\n", "\n").replace("\r", "\n");
-
-        List<String> statements = new ArrayList<>();
-        String delimiter = ";";
-        StringBuilder current = new StringBuilder();
-
-        try (BufferedReader br = new BufferedReader(new StringReader(sqlScript))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String trimmed = line.trim();
-                if (trimmed.isEmpty()) continue;
-                if (trimmed.startsWith("--") || trimmed.startsWith("#")) continue;
-                if (trimmed.toUpperCase(Locale.ROOT).startsWith("USE ")) continue;
-
-                if (trimmed.toUpperCase(Locale.ROOT).startsWith("DELIMITER ")) {
-                    delimiter = trimmed.substring("DELIMITER ".length());
-                    continue;
-                }
-
-                current.append(line).append("\n");
-                String curStr = current.toString();
-
-                if (delimiter.length() == 1) {
-                    if (curStr.trim().endsWith(delimiter)) {
-                        String stmt = curStr.trim();
-                        stmt = stmt.substring(0, stmt.length() - delimiter.length()).trim();
-                        if (!stmt.isEmpty()) statements.add(stmt);
-                        current.setLength(0);
-                    }
-                } else {
-                    if (curStr.endsWith(delimiter + "\n") || curStr.endsWith(delimiter)) {
-                        int idx = curStr.lastIndexOf(delimiter);
-                        String stmt = (idx >= 0) ? curStr.substring(0, idx).trim() : curStr.trim();
-                        if (!stmt.isEmpty()) statements.add(stmt);
-                        current.setLength(0);
-                    }
-                }
-            }
-
-            if (current.length() > 0) {
-                String leftover = current.toString().trim();
-                if (!leftover.isEmpty()) statements.add(leftover);
-            }
-        } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Erreur lecture du script SQL", e);
-            return false;
-        }
-
-        if (statements.isEmpty()) {
-            LOGGER.info("Aucun statement trouvé dans le script.");
-            return true;
-        }
-
-        boolean success = true;
-        try (Statement stmt = this.connection.createStatement()) {
-            boolean prevAutoCommit = this.connection.getAutoCommit();
-            try {
-                this.connection.setAutoCommit(false);
-                for (String s : statements) {
-                    if (s == null || s.trim().isEmpty()) continue;
-                    stmt.execute(s);
-                }
-                this.connection.commit();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Erreur lors de l'exécution du script SQL", e);
-                success = false;
-                try {
-                    this.connection.rollback();
-                    LOGGER.warning("Transaction annulée (rollback).");
-                } catch (SQLException rbe) {
-                    LOGGER.log(Level.SEVERE, "Rollback a échoué", rbe);
-                }
-            } finally {
-                try {
-                    this.connection.setAutoCommit(prevAutoCommit);
-                } catch (SQLException ignore) { }
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Erreur sur Statement lors du script", e);
-            success = false;
-        }
-
-        if (success) LOGGER.info("Script exécuté avec succès.");
-        return success;
+        return this.runScript(this.connection, sqlScript, DbType.MySql, from);
     }
 }
@@ -1,17 +1,30 @@
 package com.dbeditor.sql.db;
 
+import java.sql.SQLException;
+
 import com.dbeditor.model.DatabaseSchema;
 
 public class OracleSqlDb extends SqlDb {
 
     @Override
-    public DatabaseSchema loadDb(String dbName) {
+    public void connect(String dbName) {
+        // TODO
+    }
+
+    @Override
+    public void deconnect() {
+        // TODO
+    }
+
+    @Override
+    public DatabaseSchema loadDb(String dbName, LoadListener listener) {
         // TODO
+        listener.onError(new SQLException("Lecture d'une bdd Oracle non supportée"));
         return new DatabaseSchema("");
     }
     
     @Override
-    public boolean executeSqlScript(String sqlScript) {
+    public boolean executeSqlScript(String sqlScript, int from) {
         // TODO
         return false;
     }
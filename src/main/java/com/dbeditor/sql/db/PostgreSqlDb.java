@@ -1,8 +1,5 @@
 package com.dbeditor.sql.db;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.StringReader;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
@@ -14,6 +11,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
@@ -24,7 +22,6 @@ import com.dbeditor.model.DatabaseSchema;
 import com.dbeditor.model.ForeignKey;
 import com.dbeditor.model.Table;
 import com.dbeditor.model.mcd.CardinalityValue;
-import com.dbeditor.model.type.__SqlType;
 import com.dbeditor.sql.DbType;
 
 public class PostgreSqlDb extends SqlDb {
@@ -43,19 +40,16 @@ public class PostgreSqlDb extends SqlDb {
      * Connecte au serveur PostgreSQL et sélectionne la base passée en paramètre.
      * URL JDBC PostgreSQL : jdbc:postgresql://host:port/dbname
      */
+    @Override
     public void connect(String dbName) {
         if (isConnected()) {
             LOGGER.info("Déjà connecté.");
             return;
         }
 
-        String url = String.format("jdbc:postgresql://%s:%s/%s", this.dbHost, this.dbPort, dbName);
-
         try {
-            Class.forName("org.postgresql.Driver");
-            this.connection = DriverManager.getConnection(url, this.dbUser, this.dbPassword);
-            this.connection.setAutoCommit(true);
-            LOGGER.info("Connexion PostgreSQL établie vers " + url);
+            this.connection = this.openConnection(dbName);
+            LOGGER.info("Connexion PostgreSQL établie vers " + this.getUrl(dbName));
         } catch (ClassNotFoundException e) {
             LOGGER.log(Level.SEVERE, "Driver JDBC PostgreSQL introuvable. Ajoute le driver 'org.postgresql:postgresql' au classpath.", e);
         } catch (SQLException e) {
@@ -63,6 +57,19 @@ public class PostgreSqlDb extends SqlDb {
         }
     }
 
+    @Override
+    protected Connection openConnection(String dbName) throws SQLException, ClassNotFoundException {
+        Class.forName("org.postgresql.Driver");
+        Connection c = DriverManager.getConnection(this.getUrl(dbName), this.dbUser, this.dbPassword);
+        c.setAutoCommit(true);
+        return c;
+    }
+
+    private String getUrl(String dbName) {
+        return String.format("jdbc:postgresql://%s:%s/%s", this.dbHost, this.dbPort, dbName);
+    }
+
+    @Override
     public void deconnect() {
         if (this.connection == null) return;
         try {
@@ -86,10 +93,11 @@ public class PostgreSqlDb extends SqlDb {
     }
 
     @Override
-    public DatabaseSchema loadDb(String dbName) {
+    public DatabaseSchema loadDb(String dbName, LoadListener listener) {
         connect(dbName);
         if (!isConnected()) {
             LOGGER.severe("Impossible de charger la BD : pas de connexion.");
+            listener.onError(new SQLException("Pas de connexion à " + dbName));
             return new DatabaseSchema(dbName);
         }
 
@@ -100,6 +108,7 @@ public class PostgreSqlDb extends SqlDb {
             String catalog = this.connection.getCatalog(); // Should be the DB name
 
             // Récupère toutes les tables utilisateur (on filtre les schémas système)
+            List<TableRef> refs = new ArrayList<>();
             try (ResultSet tablesRs = meta.getTables(catalog, null, "%", new String[]{"TABLE"})) {
                 while (tablesRs.next()) {
                     String tableName = tablesRs.getString("TABLE_NAME");
@@ -111,13 +120,17 @@ public class PostgreSqlDb extends SqlDb {
                         continue;
                     }
 
-                    Table table = buildTable(meta, catalog, tableSchema, tableName);
-                    schema.addTable(table);
+                    refs.add(new TableRef(tableSchema, tableName));
                 }
             }
 
+            for (Table table : this.buildTables(this.connection, dbName, catalog, refs, this::buildTable, listener)) {
+                schema.addTable(table);
+            }
+
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Erreur pendant la lecture du schema PostgreSQL", e);
+            listener.onError(e);
         }
 
         return schema;
@@ -127,7 +140,9 @@ public class PostgreSqlDb extends SqlDb {
      * Construit un objet Table en utilisant DatabaseMetaData (colonnes, PK, FK).
      * Pour Postgres on récupère aussi la valeur DEFAULT afin de détecter les serial/nextval -> auto-increment.
      */
-    private Table buildTable(DatabaseMetaData meta, String catalog, String schemaPattern, String tableName) throws SQLException {
+    private Table buildTable(DatabaseMetaData meta, String catalog, TableRef ref) throws SQLException {
+        String schemaPattern = ref.schema();
+        String tableName = ref.name();
         Table table = new Table(tableName);
 
         // Primary keys
@@ -162,7 +177,7 @@ public class PostgreSqlDb extends SqlDb {
                     fullType += "(" + columnSize + ")";
                 }
 
-                Column column = new Column(colName, __SqlType.get(fullType, DbType.PostgreSql));
+                Column column = new Column(colName, fullType, DbType.PostgreSql);
                 if ("NO".equalsIgnoreCase(isNullable)) {
                     column.isNotNull = true;
                 }
@@ -171,7 +186,7 @@ public class PostgreSqlDb extends SqlDb {
                 }
 
                 // Détection auto-increment : soit IS_AUTOINCREMENT = YES soit default contient nextval(
-                if ("YES".equalsIgnoreCase(isAuto) || (columnDef != null && columnDef.toLowerCase().contains("nextval("))) {
+                if ("YES".equalsIgnoreCase(isAuto) || (columnDef != null && columnDef.toLowerCase(Locale.ROOT).contains("nextval("))) {
                     column.isAutoIncrementing = true;
                 }
 
@@ -239,195 +254,15 @@ public class PostgreSqlDb extends SqlDb {
     }
 
     /**
-     * Exécute un script SQL en découpant correctement les statements.
-     *
-     * Ce parser traite :
-     *  - les commentaires -- et /* ... *\/ (les commentaires multi-lignes sont retirés en pré-traitement)
-     *  - les littéraux '...' (les ; à l'intérieur ne terminent pas une instruction)
-     *  - les dollar-quoted strings $tag$ ... $tag$ (important pour les fonctions PL/pgSQL)
-     *
-     * Retourne true si tout s'est bien passé.
+     * Exécute un script SQL avec scriptRunner (découpage au fil de la lecture, requêtes envoyées par lots).
      */
-    public boolean executeSqlScript(String sqlScript) {
-        if (!isConnected()) {
+    @Override
+    public boolean executeSqlScript(String sqlScript, int from) {
+        if (!this.isConnected()) {
             LOGGER.warning("executeSqlScript: pas de connexion active.");
             return false;
         }
 
-        // Supprime les commentaires multi-lignes /* ... */
-        sqlScript = sqlScript.replaceAll("(?s)/\\*.*?\\*/", " ");
-        sqlScript = sqlScript.replace("\r\n", "\n").replace("\r", "\n");
-
-        List<String> statements = new ArrayList<>();
-        // StringBuilder current = new StringBuilder();
-
-        // Parser caractère par caractère pour gérer correctement ' " et $tag$
-        try (BufferedReader br = new BufferedReader(new StringReader(sqlScript))) {
-            int ch;
-            boolean inSingleQuote = false;
-            boolean inDoubleQuote = false;
-            boolean inLineComment = false;
-            String dollarTag = null; // si non-null: on est dans un dollar-quote $tag$
-            // Deque<Integer> prevChars = new ArrayDeque<>(2); // pour gérer lookbehind (ex: --)
-            StringBuilder buffer = new StringBuilder(); // pour construire la ligne/statement
-
-            while ((ch = br.read()) != -1) {
-                char c = (char) ch;
-                buffer.append(c);
-
-                // gestion des commentaires en ligne (-- jusqu'à la fin de ligne)
-                if (inLineComment) {
-                    if (c == '\n') {
-                        inLineComment = false;
-                        // on garde le newline dans buffer (important pour détection de fin de statement)
-                    } else {
-                        // ignore le contenu du commentaire (mais on le laisse dans buffer ; on le filtrera ensuite)
-                        continue;
-                    }
-                } else if (dollarTag != null) {
-                    // on est dans un dollar-quoted string, cherchons la fin $tag$
-                    int tagLen = dollarTag.length();
-                    // si buffer se termine par dollarTag, on quitte
-                    if (buffer.length() >= tagLen) {
-                        String tail = buffer.substring(buffer.length() - tagLen);
-                        if (tail.equals(dollarTag)) {
-                            // sortie du dollar-quote
-                            dollarTag = null;
-                        }
-                    }
-                    // ajoute le caractère et continue
-                    continue;
-                } else if (inSingleQuote) {
-                    if (c == '\'') {
-                        // check for escaped single quote by doubling ('')
-                        br.mark(1);
-                        int next = br.read();
-                        if (next == '\'') {
-                            // escaped quote, include it and remain in single quote
-                            buffer.append('\'');
-                            continue;
-                        } else if (next != -1) {
-                            // not an escaped quote, roll back and end single quote
-                            br.reset();
-                        }
-                        inSingleQuote = false;
-                    }
-                    continue;
-                } else if (inDoubleQuote) {
-                    if (c == '"') {
-                        inDoubleQuote = false;
-                    }
-                    continue;
-                } else {
-                    // pas dans de quote ni commentaire
-                    // détecter début de commentaire en ligne
-                    if (c == '-') {
-                        // regarde le précédent caractère dans buffer (s'il existe)
-                        int len = buffer.length();
-                        if (len >= 2 && buffer.charAt(len - 2) == '-') {
-                            // on vient d'avoir "--"
-                            inLineComment = true;
-                            // on supprime ces deux tirets du buffer pour ne pas les propager
-                            // (on peut aussi les garder ; ils seront ignorés ensuite)
-                            continue;
-                        }
-                    } else if (c == '\'') {
-                        inSingleQuote = true;
-                        continue;
-                    } else if (c == '"') {
-                        inDoubleQuote = true;
-                        continue;
-                    } else if (c == '$') {
-                        // possible début de $tag$ ; il faut lire jusqu'au prochain $ pour capturer le tag
-                        // on regarde le rest of stream to build tag (peek)
-                        br.mark(1000); // marque large
-                        StringBuilder tagBuilder = new StringBuilder();
-                        tagBuilder.append('$');
-                        int nextChar;
-                        boolean validTag = false;
-                        while ((nextChar = br.read()) != -1) {
-                            char nc = (char) nextChar;
-                            tagBuilder.append(nc);
-                            if (nc == '$') {
-                                validTag = true;
-                                break;
-                            }
-                            // limite la taille du tag raisonnablement
-                            if (tagBuilder.length() > 100) break;
-                        }
-                        if (validTag) {
-                            // début d'un dollar-quote
-                            dollarTag = tagBuilder.toString(); // ex: $$ ou $tag$
-                            // ajoute le tag dans buffer
-                            buffer.append(tagBuilder.substring(1)); // on avait déjà ajouté first '$'
-                            continue;
-                        } else {
-                            // pas un dollar-tag, on revient en arrière
-                            br.reset();
-                        }
-                    } else if (c == ';') {
-                        // fin d'un statement (on n'est pas dans de quote)
-                        // on récupère la requête courante
-                        String stmt = buffer.toString().trim();
-                        if (!stmt.isEmpty()) {
-                            // retire le point-virgule final
-                            if (stmt.endsWith(";")) {
-                                stmt = stmt.substring(0, stmt.length() - 1).trim();
-                            }
-                            if (!stmt.isEmpty()) statements.add(stmt);
-                        }
-                        buffer.setLength(0);
-                        continue;
-                    }
-                }
-            } // fin lecture
-
-            // ce qui reste dans buffer après la boucle
-            String leftover = buffer.toString().trim();
-            if (!leftover.isEmpty()) {
-                statements.add(leftover);
-            }
-
-        } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Erreur lecture du script SQL", e);
-            return false;
-        }
-
-        if (statements.isEmpty()) {
-            LOGGER.info("Aucun statement trouvé dans le script.");
-            return true;
-        }
-
-        boolean success = true;
-        try (Statement stmt = this.connection.createStatement()) {
-            boolean prevAutoCommit = this.connection.getAutoCommit();
-            try {
-                this.connection.setAutoCommit(false);
-                for (String s : statements) {
-                    if (s == null || s.trim().isEmpty()) continue;
-                    stmt.execute(s);
-                }
-                this.connection.commit();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Erreur lors de l'exécution du script SQL", e);
-                success = false;
-                try {
-                    this.connection.rollback();
-                    LOGGER.warning("Transaction annulée (rollback).");
-                } catch (SQLException rbe) {
-                    LOGGER.log(Level.SEVERE, "Rollback a échoué", rbe);
-                }
-            } finally {
-                try {
-                    this.connection.setAutoCommit(prevAutoCommit);
-                } catch (SQLException ignore) {}
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Erreur sur Statement lors du script", e);
-            success = false;
-        }
-
-        if (success) LOGGER.info("Script exécuté avec succès.");
-        return success;
+        return this.runScript(this.connection, sqlScript, DbType.PostgreSql, from);
     }
 }
\ No newline at end of file
@@ -1,24 +1,290 @@
 package com.dbeditor.sql.db;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 import com.dbeditor.model.DatabaseSchema;
+import com.dbeditor.model.Table;
+import com.dbeditor.sql.DbType;
 
 public abstract class SqlDb {
+    private static final Logger LOGGER = Logger.getLogger(SqlDb.class.getName());
+
+    public static final int DEFAULT_PARALLELISM = 4;
 
     public String dbHost;
     public String dbUser;
     public String dbPassword;
     public String dbPort;
 
+    /**
+     * Nombre de connexions utilisées en parallèle pour lire les tables (1 = séquentiel)
+     */
+    public int parallelism = DEFAULT_PARALLELISM;
+
+    /**
+     * Options d'exécution des scripts (taille des lots, transaction, arrêt sur erreur)
+     */
+    public final SqlScriptRunner scriptRunner = new SqlScriptRunner();
+
+    /**
+     * Bilan du dernier script exécuté (null si le script n'a pas pu être lu ou lancé)
+     */
+    public SqlScriptRunner.Result lastScriptResult;
+
+    /**
+     * Suivi d'un chargement : tables reçues au fur et à mesure, progression et annulation.
+     * Les méthodes sont appelées depuis le thread qui charge la bdd.
+     */
+    public interface LoadListener {
+        LoadListener NONE = new LoadListener() {};
+
+        /**
+         * Nombre total de tables à charger, dès qu'il est connu
+         */
+        default void onTotal(int total) {}
+
+        /**
+         * Une table vient d'être construite (dans l'ordre de chargement)
+         */
+        default void onTable(Table table) {}
+
+        /**
+         * Si true, le chargement s'arrête et renvoie les tables déjà construites
+         */
+        default boolean isCancelled() { return false; }
+
+        /**
+         * Le chargement n'a pas pu se faire en entier (pas de connexion, erreur de lecture) :
+         * le schema renvoyé est vide ou incomplet
+         */
+        default void onError(SQLException e) {}
+    }
+
+    /**
+     * Ouvre la connexion vers la bdd, ne fait rien si elle est déjà ouverte
+     * @param dbName nom de la bdd
+     */
+    public abstract void connect(String dbName);
+
+    /**
+     * Ferme la connexion si elle est ouverte
+     */
+    public abstract void deconnect();
+
     /**
      * Renvoie les schema de la bdd chargés à partir de la bdd
      * @param dbName nom de la bdd
      */
-    public abstract DatabaseSchema loadDb(String dbName);
-    
+    public DatabaseSchema loadDb(String dbName) {
+        return this.loadDb(dbName, LoadListener.NONE);
+    }
+
+    /**
+     * Renvoie les schema de la bdd chargés à partir de la bdd,
+     * en prévenant listener à chaque table construite
+     * @param dbName nom de la bdd
+     * @param listener suivi du chargement
+     */
+    public abstract DatabaseSchema loadDb(String dbName, LoadListener listener);
+
+    /**
+     * Comme loadDb, mais lève l'erreur au lieu de renvoyer un schema vide ou incomplet.
+     * À utiliser avant de modifier la bdd : un schema incomplet donnerait un script de migration faux
+     * @param dbName nom de la bdd
+     */
+    public DatabaseSchema loadDbStrict(String dbName) throws SQLException {
+        List<SQLException> errors = new ArrayList<>();
+        DatabaseSchema schema = this.loadDb(dbName, new LoadListener() {
+            @Override
+            public void onError(SQLException e) {
+                errors.add(e);
+            }
+        });
+
+        if (!errors.isEmpty()) throw errors.get(0);
+        return schema;
+    }
+
     /**
      * Exécute un script SQL.
      * Retourne true si tout s'est bien passé.
      * @param sqlScript tout le script sql a éxécuté
      */
-    public abstract boolean executeSqlScript(String sqlScript);
-}
\ No newline at end of file
+    public boolean executeSqlScript(String sqlScript) {
+        return this.executeSqlScript(sqlScript, 0);
+    }
+
+    /**
+     * Exécute un script SQL à partir de la requête from (voir SqlScriptRunner).
+     * Le bilan est gardé dans lastScriptResult, pour reprendre après une erreur.
+     * Retourne true si tout s'est bien passé.
+     * @param sqlScript tout le script sql a éxécuté
+     * @param from indice de la première requête à exécuter
+     */
+    public abstract boolean executeSqlScript(String sqlScript, int from);
+
+    /**
+     * Exécute le script avec scriptRunner et garde le bilan
+     * @param connection connexion ouverte
+     * @param sqlScript tout le script sql a éxécuté
+     * @param dbType règles de découpage du script
+     * @param from indice de la première requête à exécuter
+     */
+    protected boolean runScript(Connection connection, String sqlScript, DbType dbType, int from) {
+        try {
+            this.lastScriptResult = this.scriptRunner.run(connection, new StringReader(sqlScript), dbType, from);
+        } catch (SQLException | IOException e) {
+            LOGGER.log(Level.SEVERE, "Erreur lors de l'exécution du script SQL", e);
+            this.lastScriptResult = null;
+            return false;
+        }
+
+        if (this.lastScriptResult.isSuccess()) LOGGER.info("Script exécuté avec succès.");
+        return this.lastScriptResult.isSuccess();
+    }
+
+    /* ============================================================================================================================= */
+
+    /**
+     * Référence d'une table à charger (schema peut être null selon la bdd)
+     */
+    protected record TableRef(String schema, String name) {}
+
+    /**
+     * Construit une table à partir des métadonnées d'une connexion
+     */
+    @FunctionalInterface
+    protected interface TableBuilder {
+        Table build(DatabaseMetaData meta, String catalog, TableRef ref) throws SQLException;
+    }
+
+    /**
+     * Ouvre une nouvelle connexion vers la bdd, utilisée par le chargement parallèle.
+     * @param dbName nom de la bdd
+     */
+    protected Connection openConnection(String dbName) throws SQLException, ClassNotFoundException {
+        throw new SQLException("Connexion supplémentaire non supportée pour " + this.getClass().getSimpleName());
+    }
+
+    /**
+     * Construit toutes les tables en répartissant les lectures sur 'parallelism' connexions.
+     * La connexion principale fait partie du pool, les autres sont ouvertes puis fermées ici.
+     * Les tables sont renvoyées dans l'ordre de refs, la fusion dans le schema reste donc au thread appelant.
+     * @param main connexion déjà ouverte
+     * @param dbName nom de la bdd (pour ouvrir les connexions supplémentaires)
+     * @param catalog catalogue passé aux métadonnées
+     * @param refs tables à charger
+     * @param builder construction d'une table
+     * @param listener prévenu de chaque table, dans l'ordre de refs
+     */
+    protected List<Table> buildTables(Connection main, String dbName, String catalog, List<TableRef> refs, TableBuilder builder, LoadListener listener) throws SQLException {
+        List<Table> tables = new ArrayList<>(refs.size());
+        int n = Math.max(1, Math.min(this.parallelism, refs.size()));
+        listener.onTotal(refs.size());
+
+        if (n == 1) {
+            DatabaseMetaData meta = main.getMetaData();
+            for (TableRef ref : refs) {
+                if (listener.isCancelled()) break;
+                Table table = builder.build(meta, catalog, ref);
+                tables.add(table);
+                listener.onTable(table);
+            }
+            return tables;
+        }
+
+        // pool de connexions : la principale + celles qu'on arrive à ouvrir
+        List<Connection> extra = new ArrayList<>();
+        BlockingQueue<Connection> pool = new ArrayBlockingQueue<>(n);
+        pool.add(main);
+        for (int i = 1; i < n; i++) {
+            try {
+                Connection c = this.openConnection(dbName);
+                extra.add(c);
+                pool.add(c);
+            } catch (SQLException | ClassNotFoundException e) {
+                LOGGER.log(Level.WARNING, "Connexion supplémentaire impossible, chargement avec " + pool.size() + " connexion(s)", e);
+                break;
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(pool.size(), r -> {
+            Thread t = new Thread(r, "sqldb-loader");
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            List<Future<Table>> futures = new ArrayList<>(refs.size());
+            for (TableRef ref : refs) {
+                futures.add(executor.submit(() -> {
+                    Connection c = pool.take();
+                    try {
+                        return builder.build(c.getMetaData(), catalog, ref);
+                    } finally {
+                        pool.add(c);
+                    }
+                }));
+            }
+
+            for (Future<Table> f : futures) {
+                if (listener.isCancelled()) {
+                    futures.forEach(ft -> ft.cancel(true));
+                    break;
+                }
+                Table table = f.get();
+                tables.add(table);
+                listener.onTable(table);
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException se) throw se;
+            throw new SQLException("Erreur pendant le chargement parallèle des tables", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Chargement des tables interrompu", e);
+        } finally {
+            executor.shutdownNow();
+            // les tâches en cours utilisent encore les connexions (la principale comprise)
+            awaitTermination(executor);
+            for (Connection c : extra) {
+                try {
+                    c.close();
+                } catch (SQLException ignore) {}
+            }
+        }
+
+        return tables;
+    }
+
+    /**
+     * Attend la fin des tâches en cours (une requête de métadonnées ne s'arrête pas forcément sur une interruption).
+     * Une interruption pendant l'attente est remise une fois les tâches terminées
+     */
+    private static void awaitTermination(ExecutorService executor) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(10, TimeUnit.SECONDS)) break;
+                LOGGER.warning("Chargement des tables : attente de la fin des requêtes en cours...");
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+}
@@ -0,0 +1,341 @@
+package com.dbeditor.sql.db;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import com.dbeditor.sql.DbType;
+import com.dbeditor.sql.file.parser.SqlStatementReader;
+
+/**
+ * Exécute un script SQL sur une connexion, au fil de la lecture du script.
+ * <ul>
+ *  <li>le découpage est fait par SqlStatementReader, selon les règles de la bdd</li>
+ *  <li>les requêtes qui ne renvoient pas de résultat et qui se suivent sont envoyées par lots (addBatch/executeBatch)</li>
+ *  <li>le temps de chaque requête ou lot est mesuré</li>
+ *  <li>en cas d'erreur on s'arrête (et on annule la transaction si transactional) ou on continue (continueOnError)</li>
+ * </ul>
+ * Les requêtes sont numérotées à partir de 0 dans l'ordre du script (sans les USE de MySql et MsSql),
+ * un script arrêté peut donc être repris après la requête en échec.
+ */
+public class SqlScriptRunner {
+    private static final Logger LOGGER = Logger.getLogger(SqlScriptRunner.class.getName());
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /**
+     * Premiers mots des requêtes qui peuvent être mises dans un lot
+     */
+    private static final Set<String> BATCHABLE = Set.of(
+        "INSERT", "UPDATE", "DELETE", "REPLACE", "MERGE", "UPSERT",
+        "CREATE", "ALTER", "DROP", "TRUNCATE", "RENAME", "COMMENT", "GRANT", "REVOKE"
+    );
+
+    /**
+     * Blocs de code : ils restent seuls (MsSql exige d'ailleurs qu'un CREATE PROCEDURE soit seul dans son lot)
+     */
+    private static final Pattern PROGRAM_BLOCK = Pattern.compile(
+        "CREATE( OR (REPLACE|ALTER))?( (NON)?EDITIONABLE)? (PROCEDURE|FUNCTION|PACKAGE|TRIGGER|TYPE|VIEW|RULE)\\b.*"
+    );
+
+    /**
+     * Nombre maximum de requêtes par lot (1 = pas de lot)
+     */
+    public int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * Tout le script dans une seule transaction, annulée à la première erreur.
+     * Les requêtes qui valident d'elles-mêmes ne sont pas annulées : sur MySql (et Oracle) chaque
+     * CREATE / ALTER / DROP / RENAME est validé aussitôt, un script de migration n'y est donc pas atomique
+     */
+    public boolean transactional = true;
+
+    /**
+     * Continue après une requête en échec.
+     * Chaque requête est alors validée dès son exécution (autocommit), transactional est ignoré
+     */
+    public boolean continueOnError = false;
+
+    /**
+     * Au-delà de cette durée, une requête exécutée seule est signalée dans les logs
+     */
+    public long slowMillis = 1000;
+
+    public Listener listener = Listener.NONE;
+
+    /**
+     * Suivi de l'exécution, appelé sur le thread qui exécute le script
+     */
+    public interface Listener {
+        Listener NONE = new Listener() {};
+
+        /**
+         * count requêtes à partir de first ont été exécutées en nanos nanosecondes
+         * (count = 1 pour une requête seule, sinon le lot entier)
+         */
+        default void onExecuted(int first, int count, long nanos) {}
+
+        /**
+         * La requête index a échoué
+         */
+        default void onFailed(int index, String sql, SQLException e) {}
+    }
+
+    /**
+     * Requête en échec
+     */
+    public record Failure(int index, String sql, SQLException error) {}
+
+    /**
+     * Bilan d'une exécution
+     * @param executed nombre de requêtes exécutées sans erreur
+     * @param failures requêtes en échec, dans l'ordre du script
+     * @param committed false si la transaction a été annulée
+     * @param nanos durée totale
+     */
+    public record Result(int executed, List<Failure> failures, boolean committed, long nanos) {
+        public boolean isSuccess() {
+            return this.failures.isEmpty();
+        }
+
+        /**
+         * Indice de la première requête en échec, -1 si aucune
+         */
+        public int failedIndex() {
+            return this.failures.isEmpty() ? -1 : this.failures.get(0).index();
+        }
+    }
+
+    /**
+     * Exécute le script à partir de la requête from (0 pour tout le script).
+     * Pour reprendre un script arrêté (et non annulé) après l'erreur : from = result.failedIndex() + 1
+     * @param connection connexion ouverte, son autocommit est remis à l'identique à la fin
+     * @param script script à lire, fermé à la fin
+     * @param dbType règles de découpage du script
+     * @param from indice de la première requête à exécuter
+     */
+    public Result run(Connection connection, Reader script, DbType dbType, int from) throws SQLException, IOException {
+        return new Execution(connection, dbType).run(script, from);
+    }
+
+    /**
+     * Premier mot en majuscule de la requête ("" si elle ne commence pas par un mot)
+     */
+    private static String keyword(String sql) {
+        int i = 0;
+        while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) i++;
+        int start = i;
+        while (i < sql.length() && Character.isLetter(sql.charAt(i))) i++;
+        return sql.substring(start, i).toUpperCase(Locale.ROOT);
+    }
+
+    private static boolean isBatchable(String sql, String keyword) {
+        if (!BATCHABLE.contains(keyword)) return false;
+        if (!keyword.equals("CREATE")) return true;
+
+        // début de la requête, espaces réduits
+        String head = sql.strip();
+        head = head.substring(0, Math.min(head.length(), 96)).replaceAll("\\s+", " ").toUpperCase(Locale.ROOT);
+        return !PROGRAM_BLOCK.matcher(head).matches();
+    }
+
+    /* ============================================================================================================================= */
+
+    /**
+     * État d'une exécution (le runner lui-même ne garde que les options)
+     */
+    private final class Execution {
+        private final Connection connection;
+        private final DbType dbType;
+        private final boolean autoCommit;
+
+        private final List<String> batch = new ArrayList<>();
+        private int batchFirst;
+        private final List<Failure> failures = new ArrayList<>();
+        private int executed = 0;
+        private int batches = 0;
+
+        private Execution(Connection connection, DbType dbType) {
+            this.connection = connection;
+            this.dbType = dbType;
+            this.autoCommit = continueOnError || !transactional;
+        }
+
+        private Result run(Reader script, int from) throws SQLException, IOException {
+            long start = System.nanoTime();
+            boolean useBatches = batchSize > 1 && this.connection.getMetaData().supportsBatchUpdates();
+            boolean prevAutoCommit = this.connection.getAutoCommit();
+            boolean committed = true;
+
+            this.connection.setAutoCommit(this.autoCommit);
+            try (SqlStatementReader reader = new SqlStatementReader(script, this.dbType);
+                 Statement stmt = this.connection.createStatement()) {
+
+                // la connexion est déjà sur la bonne base
+                if (this.dbType == DbType.MySql || this.dbType == DbType.MsSql) {
+                    reader.setFilter(kw -> !kw.equals("USE"));
+                }
+
+                int index = -1;
+                String sql;
+                boolean go = true;
+                while (go && (sql = reader.next()) != null) {
+                    index++;
+                    if (index < from || sql.isBlank()) continue;
+
+                    if (useBatches && isBatchable(sql, keyword(sql))) {
+                        if (this.batch.isEmpty()) this.batchFirst = index;
+                        this.batch.add(sql);
+                        stmt.addBatch(sql);
+                        if (this.batch.size() >= batchSize) go = this.flush(stmt);
+                        continue;
+                    }
+
+                    go = this.flush(stmt) && this.execute(stmt, index, sql);
+                }
+                if (go) this.flush(stmt);
+
+                if (!this.autoCommit) {
+                    if (this.failures.isEmpty()) {
+                        this.connection.commit();
+                    } else {
+                        this.rollback();
+                        committed = false;
+                    }
+                }
+            } catch (SQLException | IOException | RuntimeException e) {
+                if (!this.autoCommit) this.rollback();
+                throw e;
+            } finally {
+                try {
+                    this.connection.setAutoCommit(prevAutoCommit);
+                } catch (SQLException ignore) {}
+            }
+
+            long nanos = System.nanoTime() - start;
+            LOGGER.info(() -> this.executed + " requête(s) exécutée(s) en " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms ("
+                + this.batches + " lot(s), " + this.failures.size() + " erreur(s))");
+            return new Result(this.executed, List.copyOf(this.failures), committed, nanos);
+        }
+
+        /**
+         * Exécute une requête seule
+         * @return false s'il faut s'arrêter
+         */
+        private boolean execute(Statement stmt, int index, String sql) {
+            long t0 = System.nanoTime();
+            try {
+                stmt.execute(sql);
+                this.done(index, 1, t0);
+                if (System.nanoTime() - t0 > TimeUnit.MILLISECONDS.toNanos(slowMillis)) {
+                    LOGGER.info(() -> "Requête " + index + " lente (" + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0) + " ms) : " + abbreviate(sql));
+                }
+                return true;
+            } catch (SQLException e) {
+                this.fail(index, sql, e);
+                return continueOnError;
+            }
+        }
+
+        /**
+         * Exécute le lot en attente.
+         * Si une requête du lot échoue et que continueOnError est vrai, la suite du lot est renvoyée.
+         * @return false s'il faut s'arrêter
+         */
+        private boolean flush(Statement stmt) throws SQLException {
+            if (this.batch.isEmpty()) return true;
+
+            boolean go = true;
+            int offset = 0;
+            while (offset < this.batch.size()) {
+                if (offset > 0) {
+                    for (String sql : this.batch.subList(offset, this.batch.size())) stmt.addBatch(sql);
+                }
+
+                int first = this.batchFirst + offset;
+                int remaining = this.batch.size() - offset;
+                long t0 = System.nanoTime();
+                try {
+                    stmt.executeBatch();
+                    this.batches++;
+                    this.done(first, remaining, t0);
+                    offset = this.batch.size();
+                } catch (BatchUpdateException e) {
+                    stmt.clearBatch();
+                    this.batches++;
+                    int[] counts = e.getUpdateCounts();
+                    int n = counts == null ? 0 : counts.length;
+
+                    if (n >= remaining) {
+                        // le pilote a exécuté tout le lot malgré les erreurs
+                        int ok = 0;
+                        for (int j = 0; j < remaining; j++) {
+                            if (counts[j] == Statement.EXECUTE_FAILED) {
+                                this.fail(first + j, this.batch.get(offset + j), e);
+                            } else {
+                                ok++;
+                            }
+                        }
+                        this.done(first, ok, t0);
+                        offset = this.batch.size();
+                    } else {
+                        // le pilote s'est arrêté à la première erreur
+                        if (n > 0) this.done(first, n, t0);
+                        this.fail(first + n, this.batch.get(offset + n), e);
+                        offset += n + 1;
+                    }
+
+                    if (!continueOnError) {
+                        go = false;
+                        break;
+                    }
+                }
+            }
+
+            stmt.clearBatch();
+            this.batch.clear();
+            return go;
+        }
+
+        private void done(int first, int count, long t0) {
+            long nanos = System.nanoTime() - t0;
+            this.executed += count;
+            listener.onExecuted(first, count, nanos);
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Requête(s) " + first + (count > 1 ? " à " + (first + count - 1) : "") + " : "
+                    + TimeUnit.NANOSECONDS.toMicros(nanos) + " µs");
+            }
+        }
+
+        private void fail(int index, String sql, SQLException e) {
+            this.failures.add(new Failure(index, sql, e));
+            listener.onFailed(index, sql, e);
+            LOGGER.log(Level.SEVERE, "Erreur sur la requête " + index + " : " + abbreviate(sql), e);
+        }
+
+        private void rollback() {
+            try {
+                this.connection.rollback();
+                LOGGER.warning("Transaction annulée (rollback).");
+            } catch (SQLException rbe) {
+                LOGGER.log(Level.SEVERE, "Rollback a échoué", rbe);
+            }
+        }
+    }
+
+    private static String abbreviate(String sql) {
+        String s = sql.strip().replaceAll("\\s+", " ");
+        return s.length() > 120 ? s.substring(0, 117) + "..." : s;
+    }
+}
@@ -1,68 +1,227 @@
 package com.dbeditor.sql.file.exporter;
 
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.List;
+import java.util.function.Predicate;
 
 import com.dbeditor.model.Column;
 import com.dbeditor.model.DatabaseSchema;
 import com.dbeditor.model.ForeignKey;
+import com.dbeditor.model.SchemaDiff;
+import com.dbeditor.model.SchemaDiff.ColumnChange;
+import com.dbeditor.model.SchemaDiff.Rename;
+import com.dbeditor.model.SchemaDiff.TableDiff;
 import com.dbeditor.model.Table;
 import com.dbeditor.sql.DbType;
 import com.dbeditor.util.DbManager;
+import com.dbeditor.util.DbManager.TableOrder;
 
 public class MySqlExporter extends SqlExporter {
-        
+
     @Override
-    public void exportToSQL(DatabaseSchema schema, String filepath) {
-        try (FileWriter writer = new FileWriter(filepath)) {
-            writer.write(this.createSql(schema));
-        } catch (IOException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
+    public void writeSql(DatabaseSchema schema, Appendable sql) throws IOException {
+        sql.append("DROP DATABASE IF EXISTS ").append(schema.name).append(";\n");
+        sql.append("CREATE DATABASE ").append(schema.name).append(";\n");
+        sql.append("USE ").append(schema.name).append(";\n\n");
+
+        // les FK qui forment un cycle sont ajoutées après la création de toutes les tables
+        // une table vide (association pas encore reliée) ne peut pas être créée
+        TableOrder order = DbManager.orderTables(schema.getTablesView().stream().filter(t -> !t.isEmpty()).toList());
+        for (Table table : order.tables()) {
+            this.writeCreateTable(table, schema, fk -> !order.isDeferred(fk), sql);
+        }
+
+        for (Table table : order.tables()) {
+            for (ForeignKey fk : table.getForeignKeysView()) {
+                if (order.isDeferred(fk)) this.writeAddForeignKey(table.name, fk, sql);
+            }
         }
     }
 
     @Override
-    public String createSql(DatabaseSchema schema) {
-        StringBuilder sql = new StringBuilder();
-
-        sql.append("DROP DATABASE IF EXISTS %s;\n".formatted(schema.name)); 
-        sql.append("CREATE DATABASE %s;\n".formatted(schema.name)); 
-        sql.append("USE %s;\n\n".formatted(schema.name));
-
-        List<Table> orderedTables = DbManager.sortTables(schema.getTables());
-        for (Table table : orderedTables) {
-            sql.append("CREATE TABLE %s (\n".formatted(table.name));
-            
-            for (int i = 0; i < table.getColumns().size(); i++) {
-                Column col = table.getColumns().get(i);
-                sql.append("\t%s %s".formatted(col.name, col.type.getRepr(DbType.MySql)));
-                
-                if (col.isPrimaryKey) sql.append(" PRIMARY KEY");
-                if (col.isAutoIncrementing) sql.append(" AUTO_INCREMENT");
-                if (col.isNotNull) sql.append(" NOT NULL");
-                if (col.isUnique) sql.append(" UNIQUE");
-                
-                if (i < table.getColumns().size() - 1 || !table.getForeignKeys().isEmpty()) {
-                    sql.append(",");
-                }
-                sql.append("\n");
+    public void writeMigration(SchemaDiff diff, Appendable sql) throws IOException {
+        // clés étrangères retirées ou modifiées, et celles des tables supprimées :
+        // une table encore référencée ne peut pas être supprimée
+        for (Table table : diff.getDroppedTables()) {
+            for (ForeignKey fk : table.getForeignKeysView()) {
+                this.writeDropForeignKey(table.name, fk, sql);
             }
-            
-            for (int i = 0; i < table.getForeignKeys().size(); i++) {
-                ForeignKey fk = table.getForeignKeys().get(i);
-                sql.append("\tCONSTRAINT %s FOREIGN KEY(%s) REFERENCES %s(%s)".formatted(fk.fkName, fk.columnName, fk.referencedTable, fk.referencedColumn));
-                
-                if (i < table.getForeignKeys().size() - 1) {
-                    sql.append(",");
-                }
-                sql.append("\n");
+        }
+        for (TableDiff td : diff.getChangedTables()) {
+            for (ForeignKey fk : td.droppedForeignKeys()) {
+                this.writeDropForeignKey(td.from().name, fk, sql);
+            }
+        }
+
+        for (Rename rename : diff.getRenamedTables()) {
+            sql.append("RENAME TABLE ").append(rename.from().name).append(" TO ").append(rename.to().name).append(";\n");
+        }
+
+        for (Table table : diff.getDroppedTables()) {
+            sql.append("DROP TABLE ").append(table.name).append(";\n");
+        }
+
+        // les FK des nouvelles tables sont ajoutées à la fin (elles peuvent référencer une autre nouvelle table)
+        for (Table table : diff.getAddedTables()) {
+            this.writeCreateTable(table, diff.to, fk -> false, sql);
+        }
+
+        for (TableDiff td : diff.getChangedTables()) {
+            this.writeAlterTable(td, diff.to, sql);
+        }
+
+        for (Table table : diff.getAddedTables()) {
+            for (ForeignKey fk : table.getForeignKeysView()) {
+                this.writeAddForeignKey(table.name, fk, sql);
             }
-            
-            sql.append(");\n\n");
         }
+        for (TableDiff td : diff.getChangedTables()) {
+            for (ForeignKey fk : td.addedForeignKeys()) {
+                this.writeAddForeignKey(td.to().name, fk, sql);
+            }
+        }
+    }
+
+    /**
+     * CREATE TABLE avec les colonnes, la clé primaire et les FK acceptées par inline
+     */
+    private void writeCreateTable(Table table, DatabaseSchema schema, Predicate<ForeignKey> inline, Appendable sql) throws IOException {
+        sql.append("CREATE TABLE ").append(table.name).append(" (\n");
+
+        // une seule colonne de clé primaire : écrite sur la colonne, sinon en contrainte à la fin
+        List<String> primaryKey = SchemaDiff.primaryKey(table);
+        boolean inlinePk = primaryKey.size() == 1 && table.getColumn(primaryKey.get(0)) != null;
+
+        // un séparateur avant chaque élément sauf le premier
+        String sep = "";
+        for (Column col : table.getColumnsView()) {
+            sql.append(sep).append('\t');
+            this.writeColumn(col, inlinePk && col.isPrimaryKey, col.isUnique, sql);
+            sep = ",\n";
+        }
+
+        // les colonnes des FK ne sont pas dans les colonnes de la table
+        for (ForeignKey fk : table.getForeignKeysView()) {
+            if (table.getColumn(fk.columnName) != null) continue;
+
+            Column col = foreignKeyColumn(fk, schema);
+            if (col == null) continue;
+
+            sql.append(sep).append('\t');
+            this.writeColumn(col, false, false, sql);
+            sep = ",\n";
+        }
+
+        if (!inlinePk && !primaryKey.isEmpty()) {
+            sql.append(sep).append("\tPRIMARY KEY (").append(String.join(", ", primaryKey)).append(')');
+            sep = ",\n";
+        }
+
+        for (ForeignKey fk : table.getForeignKeysView()) {
+            if (!inline.test(fk)) continue;
+
+            sql.append(sep).append('\t');
+            this.writeConstraint(fk, sql);
+            sep = ",\n";
+        }
+
+        sql.append("\n);\n\n");
+    }
+
+    /**
+     * Un seul ALTER TABLE pour toutes les modifications de colonnes et de clé primaire d'une table
+     * (les FK sont retirées avant et ajoutées après)
+     */
+    private void writeAlterTable(TableDiff td, DatabaseSchema schema, Appendable sql) throws IOException {
+        StringBuilder clauses = new StringBuilder();
+
+        if (td.primaryKeyChanged() && !SchemaDiff.primaryKey(td.from()).isEmpty()) {
+            clauses.append(",\n\tDROP PRIMARY KEY");
+        }
+
+        for (String name : td.droppedColumns()) {
+            clauses.append(",\n\tDROP COLUMN ").append(name);
+        }
+
+        for (ColumnChange change : td.modifiedColumns()) {
+            Column from = change.from(), to = change.to();
+            if (!from.hasSameType(to) || from.isNotNull != to.isNotNull || from.isAutoIncrementing != to.isAutoIncrementing) {
+                clauses.append(",\n\tMODIFY COLUMN ");
+                this.writeColumn(to, false, false, clauses);
+            }
+            // MySql nomme l'index UNIQUE d'une colonne avec le nom de la colonne
+            if (to.isUnique && !from.isUnique) {
+                clauses.append(",\n\tADD UNIQUE (").append(to.name).append(')');
+            } else if (!to.isUnique && from.isUnique) {
+                clauses.append(",\n\tDROP INDEX ").append(to.name);
+            }
+        }
+
+        for (Column col : td.addedColumns()) {
+            clauses.append(",\n\tADD COLUMN ");
+            this.writeColumn(col, false, col.isUnique, clauses);
+        }
+
+        for (ForeignKey fk : td.addedForeignKeys()) {
+            if (td.from().hasAttribut(fk.columnName)) continue;
+
+            Column col = foreignKeyColumn(fk, schema);
+            if (col == null) continue;
+            clauses.append(",\n\tADD COLUMN ");
+            this.writeColumn(col, false, false, clauses);
+        }
+
+        if (td.primaryKeyChanged()) {
+            List<String> primaryKey = SchemaDiff.primaryKey(td.to());
+            if (!primaryKey.isEmpty()) {
+                clauses.append(",\n\tADD PRIMARY KEY (").append(String.join(", ", primaryKey)).append(')');
+            }
+        }
+
+        if (clauses.length() == 0) return;
+
+        // sans la première virgule
+        sql.append("ALTER TABLE ").append(td.to().name).append(clauses, 1, clauses.length()).append(";\n");
+    }
+
+    private void writeColumn(Column col, boolean primaryKey, boolean unique, Appendable sql) throws IOException {
+        sql.append(col.name).append(' ').append(col.getTypeRepr(DbType.MySql));
+
+        if (primaryKey) sql.append(" PRIMARY KEY");
+        if (col.isAutoIncrementing) sql.append(" AUTO_INCREMENT");
+        if (col.isNotNull) sql.append(" NOT NULL");
+        if (unique) sql.append(" UNIQUE");
+    }
+
+    /**
+     * Colonne d'une FK, du type de la colonne référencée, null si elle est introuvable
+     */
+    private static Column foreignKeyColumn(ForeignKey fk, DatabaseSchema schema) {
+        Table target = schema.getTable(fk.referencedTable);
+        Column referenced = target == null ? null : target.getColumn(fk.referencedColumn);
+        if (referenced == null) return null;
+
+        Column col = new Column(fk.columnName, referenced.type);
+        col.typeName = referenced.typeName;
+        col.isPrimaryKey = fk.isPrimaryKey;
+        col.isNotNull = fk.isPrimaryKey;
+        return col;
+    }
+
+    private void writeAddForeignKey(String tableName, ForeignKey fk, Appendable sql) throws IOException {
+        sql.append("ALTER TABLE ").append(tableName).append(" ADD ");
+        this.writeConstraint(fk, sql);
+        sql.append(";\n");
+    }
+
+    private void writeDropForeignKey(String tableName, ForeignKey fk, Appendable sql) throws IOException {
+        sql.append("ALTER TABLE ").append(tableName).append(" DROP FOREIGN KEY ").append(fk.fkName).append(";\n");
+    }
 
-        return sql.toString();
+    private void writeConstraint(ForeignKey fk, Appendable sql) throws IOException {
+        sql.append("CONSTRAINT ").append(fk.fkName)
+           .append(" FOREIGN KEY(").append(fk.columnName)
+           .append(") REFERENCES ").append(fk.referencedTable)
+           .append('(').append(fk.referencedColumn).append(')');
     }
-}
\ No newline at end of file
+}
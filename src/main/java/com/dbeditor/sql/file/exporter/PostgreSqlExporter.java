@@ -1,18 +1,20 @@
 package com.dbeditor.sql.file.exporter;
 
+import java.io.IOException;
+
 import com.dbeditor.model.DatabaseSchema;
+import com.dbeditor.model.SchemaDiff;
 
 public class PostgreSqlExporter extends SqlExporter {
     
     @Override
-    public void exportToSQL(DatabaseSchema schema, String filepath) {
+    public void writeSql(DatabaseSchema schema, Appendable out) throws IOException {
         // TODO
     }
 
     @Override
-    public String createSql(DatabaseSchema schema) {
+    public void writeMigration(SchemaDiff diff, Appendable out) throws IOException {
         // TODO
-        return "";
     }
 
 }
\ No newline at end of file
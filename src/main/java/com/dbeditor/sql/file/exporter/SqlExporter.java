@@ -1,19 +1,91 @@
 package com.dbeditor.sql.file.exporter;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 import com.dbeditor.model.DatabaseSchema;
+import com.dbeditor.model.SchemaDiff;
 
 public abstract class SqlExporter {
-    
+    private static final Logger LOGGER = Logger.getLogger(SqlExporter.class.getName());
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Écrit le script sql au fur et à mesure, sans le construire en entier en mémoire
+     * @param schema schema de la bdd
+     * @param out destination (Writer, StringBuilder...)
+     */
+    public abstract void writeSql(DatabaseSchema schema, Appendable out) throws IOException;
+
+    /**
+     * Écrit uniquement les requêtes qui font passer la bdd de diff.from à diff.to
+     * (CREATE/DROP des tables ajoutées ou supprimées, ALTER TABLE des tables modifiées)
+     * @param diff différences entre le schema de la bdd et le schema modifié
+     * @param out destination (Writer, StringBuilder...)
+     */
+    public abstract void writeMigration(SchemaDiff diff, Appendable out) throws IOException;
+
+    /**
+     * Écrit le script sql en UTF-8 dans un channel (fichier, socket...), le channel n'est pas fermé
+     * @param schema schema de la bdd
+     * @param channel destination
+     */
+    public void writeSql(DatabaseSchema schema, WritableByteChannel channel) throws IOException {
+        Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.writeSql(schema, writer);
+        writer.flush();
+    }
+
     /**
      * Permet de faire un export de la bdd si elle est valide
      * @param schema schema de la bdd
      * @param filepath chemin de sauvegarde
      */
-    public abstract void exportToSQL(DatabaseSchema schema, String filepath);
-    
+    public void exportToSQL(DatabaseSchema schema, String filepath) {
+        try (Writer writer = Files.newBufferedWriter(Path.of(filepath), StandardCharsets.UTF_8)) {
+            this.writeSql(schema, writer);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Erreur lors de l'export de la bdd vers " + filepath, e);
+        }
+    }
+
     /**
      * Créer le script sql
      * @param schema schema de la bdd
      */
-    public abstract String createSql(DatabaseSchema schema);
-}
\ No newline at end of file
+    public String createSql(DatabaseSchema schema) {
+        StringBuilder sql = new StringBuilder();
+        try {
+            this.writeSql(schema, sql);
+        } catch (IOException e) {
+            // impossible avec un StringBuilder
+            throw new UncheckedIOException(e);
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Créer le script de migration (vide si les schema sont identiques)
+     * @param diff différences entre le schema de la bdd et le schema modifié
+     */
+    public String createMigrationSql(SchemaDiff diff) {
+        StringBuilder sql = new StringBuilder();
+        try {
+            this.writeMigration(diff, sql);
+        } catch (IOException e) {
+            // impossible avec un StringBuilder
+            throw new UncheckedIOException(e);
+        }
+        return sql.toString();
+    }
+}
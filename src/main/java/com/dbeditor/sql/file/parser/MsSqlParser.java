@@ -1,13 +1,38 @@
 package com.dbeditor.sql.file.parser;
 
+import java.util.Locale;
+
 import com.dbeditor.model.DatabaseSchema;
+import com.dbeditor.sql.DbType;
+
+import net.sf.jsqlparser.parser.CCJSqlParser;
 
 public class MsSqlParser extends SqlParser {
     
     @Override
-    public DatabaseSchema loadFromFile(String filePath) {
-        // TODO
-        return new DatabaseSchema("");
+    protected DbType getDbType() {
+        return DbType.MsSql;
+    }
+
+    @Override
+    protected boolean keepStatement(String keyword) {
+        return super.keepStatement(keyword) || keyword.equals("USE");
+    }
+
+    @Override
+    protected boolean handleStatement(String sql, DatabaseSchema schema) {
+        // USE [db]
+        if (sql.toUpperCase(Locale.ROOT).startsWith("USE ")) {
+            schema.name = unquote(sql.substring(4).trim());
+            return true;
+        }
+        return super.handleStatement(sql, schema);
+    }
+
+    @Override
+    protected void configure(CCJSqlParser parser) {
+        // identifiants [dbo].[table]
+        parser.withSquareBracketQuotation(true);
     }
     
 }
\ No newline at end of file
@@ -1,13 +1,12 @@
 package com.dbeditor.sql.file.parser;
 
-import com.dbeditor.model.DatabaseSchema;
+import com.dbeditor.sql.DbType;
 
 public class OracleParser extends SqlParser {
     
     @Override
-    public DatabaseSchema loadFromFile(String filePath) {
-        // TODO
-        return new DatabaseSchema("");
+    protected DbType getDbType() {
+        return DbType.Oracle;
     }
     
 }
\ No newline at end of file
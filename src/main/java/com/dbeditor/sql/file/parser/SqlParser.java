@@ -1,14 +1,380 @@
 package com.dbeditor.sql.file.parser;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.dbeditor.model.Column;
 import com.dbeditor.model.DatabaseSchema;
+import com.dbeditor.model.ForeignKey;
+import com.dbeditor.model.Table;
+import com.dbeditor.model.mcd.CardinalityValue;
+import com.dbeditor.model.type.__SqlType;
+import com.dbeditor.sql.DbType;
+
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.parser.CCJSqlParser;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.alter.Alter;
+import net.sf.jsqlparser.statement.alter.AlterExpression;
+import net.sf.jsqlparser.statement.create.table.ColDataType;
+import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
+import net.sf.jsqlparser.statement.create.table.CreateTable;
+import net.sf.jsqlparser.statement.create.table.ForeignKeyIndex;
+import net.sf.jsqlparser.statement.create.table.Index;
 
+/**
+ * Lecture d'un fichier sql, commune à toutes les bdd :
+ * découpage en flux (SqlStatementReader), analyse des CREATE / ALTER TABLE en parallèle (ParsePipeline)
+ * puis construction du schema dans l'ordre du fichier.
+ * Chaque bdd précise ses règles via getDbType et les méthodes protected.
+ */
 public abstract class SqlParser {
+    private static final Logger LOGGER = Logger.getLogger(SqlParser.class.getName());
+
+    /**
+     * Nombre de threads utilisés pour analyser les requêtes (1 = séquentiel)
+     */
+    public int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Bdd lue par ce parser (découpage des requêtes et types des colonnes)
+     */
+    protected abstract DbType getDbType();
 
     /**
      * fonction pour récupérer une bdd
      * @param filePath chemin de stockage du fichier contenant la bdd
      * @return le schema de la bdd
      */
-    public abstract DatabaseSchema loadFromFile(String filePath);
-    
-}
\ No newline at end of file
+    public DatabaseSchema loadFromFile(String filePath) {
+        DatabaseSchema schema = new DatabaseSchema("");
+        schema.type = this.getDbType();
+
+        // lecture requête par requête : les INSERT (données) ne sont jamais stockés
+        // l'analyse se fait en parallèle, les modifications sont appliquées dans l'ordre du fichier
+        try (SqlStatementReader reader = SqlStatementReader.open(Path.of(filePath), this.getDbType());
+             ParsePipeline<Consumer<DatabaseSchema>> pipeline = new ParsePipeline<>(this.parallelism, this::parseStatement, change -> change.accept(schema))) {
+            reader.setFilter(this::keepStatement);
+
+            String sql;
+            while ((sql = reader.next()) != null) {
+                if (this.handleStatement(sql, schema)) continue;
+                pipeline.submit(sql);
+            }
+            pipeline.finish();
+
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "", e);
+            return null;
+        }
+
+        return schema;
+    }
+
+    /**
+     * Choisit les requêtes lues selon leur premier mot (en majuscule),
+     * les autres sont sautées sans être stockées
+     */
+    protected boolean keepStatement(String keyword) {
+        return keyword.equals("CREATE") || keyword.equals("ALTER");
+    }
+
+    /**
+     * Traite directement une requête sans l'envoyer à JSqlParser (USE, CREATE DATABASE...)
+     * @return true si la requête est traitée
+     */
+    protected boolean handleStatement(String sql, DatabaseSchema schema) {
+        // ---- Skip unsupported statements ----
+        return sql.toUpperCase(Locale.ROOT).matches("^(CREATE|DROP)\\s+(DATABASE|SCHEMA)(?s).*");
+    }
+
+    /**
+     * Options de JSqlParser propres à la bdd
+     */
+    protected void configure(CCJSqlParser parser) {}
+
+    /**
+     * Analyse une requête, appelée depuis les threads du pipeline :
+     * ne crée que des objets neufs (Table, Column) et des types partagés immuables (__SqlType.get),
+     * le schema n'est modifié que par la modification rendue, sur le thread qui lit le fichier
+     * @return la modification à appliquer au schema, null si la requête ne change rien
+     */
+    private Consumer<DatabaseSchema> parseStatement(String sql) {
+        try {
+            Statement stmt = CCJSqlParserUtil.parse(sql, this::configure);
+
+            if (stmt instanceof CreateTable createTable) {
+                Table table = this.getTable(createTable);
+                return schema -> schema.addTable(table);
+            }
+            if (stmt instanceof Alter alter) {
+                return schema -> this.applyAlter(alter, schema);
+            }
+
+        } catch (JSQLParserException ignored) {
+            // Skip unsupported statements
+        }
+        return null;
+    }
+
+    /**
+     * permet de créer une table avec tout ce qu'elle possède
+     * @param createTable sortie du stmt
+     * @return la table créer
+     */
+    protected Table getTable(CreateTable createTable) {
+        Table table = new Table(unquote(createTable.getTable().getName()));
+        /* ---- Columns ---- */
+        if (createTable.getColumnDefinitions() != null) {
+            for (ColumnDefinition col : createTable.getColumnDefinitions()) {
+                String type = typeOf(col.getColDataType());
+                Column column = new Column(unquote(col.getColumnName()), null);
+
+                // SERIAL (PostgreSql) = entier auto incrémenté
+                String upperType = col.getColDataType().getDataType().toUpperCase(Locale.ROOT);
+                if (upperType.endsWith("SERIAL")) {
+                    column.isAutoIncrementing = true;
+                    type = switch (upperType) {
+                        case "BIGSERIAL" -> "BIGINT";
+                        case "SMALLSERIAL" -> "SMALLINT";
+                        default -> "INT";
+                    };
+                }
+                column.type = this.getType(type);
+                // type inconnu : son écriture est gardée pour l'affichage et l'export
+                if (column.type == null) column.typeName = type;
+
+                List<String> specs = new ArrayList<>();
+                if (col.getColumnSpecs() != null) {
+                    for (String spec : col.getColumnSpecs()) specs.add(spec.toUpperCase(Locale.ROOT));
+                }
+
+                if(specs.contains("PRIMARY") && specs.contains("KEY")) {
+                    column.isPrimaryKey = true;
+                    column.isUnique = true;
+                    column.isNotNull = true;
+                }
+
+                if(specs.contains("AUTO_INCREMENT") || specs.contains("IDENTITY") || specs.stream().anyMatch(spec -> spec.startsWith("IDENTITY("))) {
+                    column.isAutoIncrementing = true;
+                }
+
+                if(specs.contains("NOT") && specs.contains("NULL")) {
+                    column.isNotNull = true;
+                }
+
+                if(specs.contains("UNIQUE")) {
+                    column.isUnique = true;
+                }
+
+                table.addColumn(column);
+            }
+        }
+
+        /* ---- Primary / foreign keys ---- */
+        if (createTable.getIndexes() != null) {
+            for (Index idx : createTable.getIndexes()) {
+                this.applyIndex(table, idx);
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Applique un ALTER TABLE (ajout de clé primaire ou étrangère) à une table déjà lue
+     */
+    private void applyAlter(Alter alter, DatabaseSchema schema) {
+        Table table = schema.getTable(unquote(alter.getTable().getName()));
+        if (table == null || alter.getAlterExpressions() == null) return;
+
+        for (AlterExpression expr : alter.getAlterExpressions()) {
+            if (expr.getIndex() != null) {
+                this.applyIndex(table, expr.getIndex());
+            } else if (expr.getFkSourceTable() != null) {
+                addForeignKey(table, null, expr.getFkColumns(), expr.getFkSourceTable(), expr.getFkSourceColumns());
+            } else if (expr.getPkColumns() != null) {
+                setPrimaryKey(table, expr.getPkColumns());
+            }
+        }
+    }
+
+    private void applyIndex(Table table, Index idx) {
+        if (idx instanceof ForeignKeyIndex fk) {
+            addForeignKey(table, fk.getName(), fk.getColumnsNames(), fk.getTable().getName(), fk.getReferencedColumnNames());
+        } else if (idx.getType() != null && idx.getType().toUpperCase(Locale.ROOT).contains("PRIMARY")) {
+            setPrimaryKey(table, idx.getColumnsNames());
+        }
+    }
+
+    private __SqlType getType(String type) {
+        try {
+            return __SqlType.get(type, this.getDbType());
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Type non reconnu : " + type, e);
+            return null;
+        }
+    }
+
+    /* ============================================================================================================================= */
+
+    /**
+     * Ajoute une clé étrangère (la première colonne seulement, comme le reste de l'application)
+     */
+    private static void addForeignKey(Table table, String fkName, List<String> columns, String refTable, List<String> refColumns) {
+        if (columns == null || columns.isEmpty() || refTable == null) return;
+
+        String columnName = unquote(columns.get(0));
+        // la colonne doit exister pour Table.addForeignKey
+        if (!table.hasAttribut(columnName)) return;
+
+        String refName = unquote(refTable);
+        String refColumn = (refColumns == null || refColumns.isEmpty()) ? null : unquote(refColumns.get(0));
+
+        if(fkName == null || fkName.isEmpty()) {
+            fkName = "fk_" + table.name.toLowerCase(Locale.ROOT) + "_" + refName.toLowerCase(Locale.ROOT);
+        }
+
+        // TODO: les cardinalités
+        table.addForeignKey(new ForeignKey(unquote(fkName), columnName, refName, refColumn, CardinalityValue._0N_));
+    }
+
+    private static void setPrimaryKey(Table table, List<String> columns) {
+        if (columns == null) return;
+
+        for (String name : columns) {
+            String columnName = unquote(name);
+            Column column = table.getColumn(columnName);
+            if (column != null) {
+                column.isPrimaryKey = true;
+                column.isNotNull = true;
+                if (columns.size() == 1) column.isUnique = true;
+            }
+
+            ForeignKey fk = table.getForeignKey(columnName);
+            if (fk != null) fk.isPrimaryKey = true;
+        }
+    }
+
+    /**
+     * Type complet avec ses arguments, ex : VARCHAR(255)
+     */
+    private static String typeOf(ColDataType type) {
+        List<String> args = type.getArgumentsStringList();
+        if (args == null || args.isEmpty()) return type.getDataType();
+        return type.getDataType() + "(" + String.join(", ", args) + ")";
+    }
+
+    /**
+     * Retire les délimiteurs d'un identifiant : `nom`, "nom", [nom]
+     */
+    protected static String unquote(String name) {
+        if (name == null || name.length() < 2) return name;
+
+        char first = name.charAt(0);
+        char last = name.charAt(name.length() - 1);
+        if ((first == '`' && last == '`') || (first == '"' && last == '"') || (first == '[' && last == ']')) {
+            return name.substring(1, name.length() - 1);
+        }
+        return name;
+    }
+
+    /**
+     * Analyse des requêtes sur plusieurs threads pendant que le thread appelant continue de lire le fichier.
+     * Les résultats sont rendus au consumer, sur le thread appelant, dans l'ordre de soumission.
+     * Le nombre de requêtes en attente est borné pour ne pas garder tout le fichier en mémoire.
+     * @param <T> résultat de l'analyse d'une requête (null = rien à ajouter)
+     */
+    protected static final class ParsePipeline<T> implements AutoCloseable {
+        private final Function<String, T> parse;
+        private final Consumer<T> consumer;
+        private final ExecutorService executor;
+        private final Deque<Future<T>> inFlight = new ArrayDeque<>();
+        private final int window;
+
+        /**
+         * @param parallelism nombre de threads
+         * @param parse analyse d'une requête, appelée depuis plusieurs threads
+         * @param consumer reçoit les résultats dans l'ordre
+         */
+        public ParsePipeline(int parallelism, Function<String, T> parse, Consumer<T> consumer) {
+            this.parse = parse;
+            this.consumer = consumer;
+            this.window = Math.max(1, parallelism) * 4;
+            this.executor = parallelism <= 1 ? null : Executors.newFixedThreadPool(parallelism, r -> {
+                Thread t = new Thread(r, "sql-parser");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        /**
+         * Ajoute une requête à analyser
+         */
+        public void submit(String sql) {
+            if (this.executor == null) {
+                this.accept(this.parseSafely(sql));
+                return;
+            }
+
+            this.inFlight.add(this.executor.submit(() -> this.parseSafely(sql)));
+            while (this.inFlight.size() >= this.window) {
+                this.consumeHead();
+            }
+        }
+
+        /**
+         * Attend et transmet tous les résultats restants
+         */
+        public void finish() {
+            while (!this.inFlight.isEmpty()) {
+                this.consumeHead();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (this.executor != null) this.executor.shutdownNow();
+        }
+
+        private T parseSafely(String sql) {
+            try {
+                return this.parse.apply(sql);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Requête ignorée, erreur pendant l'analyse", e);
+                return null;
+            }
+        }
+
+        private void consumeHead() {
+            Future<T> f = this.inFlight.poll();
+            try {
+                this.accept(f.get());
+            } catch (ExecutionException e) {
+                LOGGER.log(Level.WARNING, "Requête ignorée, erreur pendant l'analyse", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.inFlight.forEach(ft -> ft.cancel(true));
+                this.inFlight.clear();
+            }
+        }
+
+        private void accept(T result) {
+            if (result != null) this.consumer.accept(result);
+        }
+    }
+}
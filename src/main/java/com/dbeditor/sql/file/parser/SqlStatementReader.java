@@ -0,0 +1,495 @@
+package com.dbeditor.sql.file.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import com.dbeditor.sql.DbType;
+
+/**
+ * Découpe un script SQL en requêtes au fil de la lecture, sans charger tout le fichier.
+ * <ul>
+ *  <li>les délimiteurs dans les chaînes et les commentaires sont ignorés</li>
+ *  <li>les commentaires sont remplacés par un espace</li>
+ *  <li>une requête dont le premier mot est refusé par le filtre est parcourue sans être stockée
+ *  (ex : les INSERT d'un dump), la mémoire reste bornée par la plus grande requête gardée</li>
+ * </ul>
+ * Règles propres à chaque bdd :
+ * <ul>
+ *  <li>MySql : `...`, échappement par \, commentaires #, commande DELIMITER</li>
+ *  <li>PostgreSql : chaînes $tag$...$tag$, commentaires imbriqués, données d'un COPY ... FROM stdin sautées</li>
+ *  <li>MsSql : [...], commentaires imbriqués, GO seul sur une ligne termine la requête</li>
+ *  <li>Oracle : / seul sur une ligne termine la requête</li>
+ * </ul>
+ * Pour MsSql et Oracle, les ; d'un bloc (procédure, fonction, trigger, BEGIN...) ne terminent pas la requête,
+ * seul GO ou / le fait. BEGIN TRAN / TRANSACTION / DISTRIBUTED et BEGIN TRY / CATCH ne sont pas des blocs :
+ * leurs requêtes restent séparées par les ;
+ */
+public class SqlStatementReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int LINE_MAX = 16;
+    private static final int HEAD_MAX = 64;
+    private static final int TAIL_MAX = 16;
+
+    private static final Pattern PROGRAM_BLOCK = Pattern.compile(
+        "(CREATE( OR (REPLACE|ALTER))?( (NON)?EDITIONABLE)? (PROCEDURE|FUNCTION|PACKAGE|TRIGGER|TYPE)|ALTER (PROCEDURE|FUNCTION|TRIGGER)|DECLARE" +
+        "|BEGIN(?! (TRAN|TRANSACTION|DISTRIBUTED|TRY|CATCH)\\b))\\b"
+    );
+
+    private static final int NORMAL = 0;
+    private static final int QUOTE = 1;
+    private static final int DOLLAR_QUOTE = 2;
+    private static final int LINE_COMMENT = 3;
+    private static final int BLOCK_COMMENT = 4;
+
+    /* ---- règles de la bdd ---- */
+    private final boolean backtickQuotes;
+    private final boolean backslashEscapes;
+    private final boolean hashComments;
+    private final boolean delimiterCommand;
+    private final boolean dollarQuotes;
+    private final boolean bracketQuotes;
+    private final boolean nestedComments;
+    private final String lineTerminator; // null si aucun
+
+    /* ---- lecture ---- */
+    private final Reader in;
+    private final char[] buf = new char[BUFFER_SIZE];
+    private int pos = 0;
+    private int len = 0;
+
+    private String delimiter = ";";
+    private Predicate<String> filter = kw -> true;
+
+    /* ---- requête en cours ---- */
+    private final StringBuilder statement = new StringBuilder();
+    private final StringBuilder keyword = new StringBuilder();
+    private final StringBuilder head = new StringBuilder(); // premiers mots, en majuscule
+    private boolean decided; // premier mot connu
+    private boolean keep;
+    private int state;
+    private char quote;
+    private String tag;
+    private int depth;
+    private int match; // nombre de caractères du délimiteur déjà lus
+    private boolean copy; // requête COPY (PostgreSql)
+    private final StringBuilder tail = new StringBuilder(); // derniers caractères d'un COPY, sans espace
+
+    /* ---- ligne en cours ---- */
+    private final StringBuilder line = new StringBuilder();
+    private boolean lineDirty = false; // la ligne contient autre chose que du texte simple
+    private int lineStart = 0; // taille de la requête au début de la ligne
+
+    /**
+     * Lecture avec les règles MySql
+     */
+    public SqlStatementReader(Reader in) {
+        this(in, DbType.MySql);
+    }
+
+    public SqlStatementReader(Reader in, DbType dbType) {
+        this.in = in;
+        this.backtickQuotes = dbType == DbType.MySql;
+        this.backslashEscapes = dbType == DbType.MySql;
+        this.hashComments = dbType == DbType.MySql;
+        this.delimiterCommand = dbType == DbType.MySql;
+        this.dollarQuotes = dbType == DbType.PostgreSql;
+        this.bracketQuotes = dbType == DbType.MsSql;
+        this.nestedComments = dbType == DbType.PostgreSql || dbType == DbType.MsSql;
+        this.lineTerminator = switch (dbType) {
+            case MsSql -> "GO";
+            case Oracle -> "/";
+            default -> null;
+        };
+        this.reset();
+    }
+
+    /**
+     * Ouvre un fichier en UTF-8 (les octets invalides, fréquents dans les données d'un dump, sont remplacés)
+     * @param path chemin du fichier
+     * @param dbType règles de découpage
+     */
+    public static SqlStatementReader open(Path path, DbType dbType) throws IOException {
+        return new SqlStatementReader(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8), dbType);
+    }
+
+    /**
+     * Choisit les requêtes à garder selon leur premier mot (en majuscule, "" si la requête ne commence pas par un mot)
+     * @param filter true pour garder la requête
+     */
+    public void setFilter(Predicate<String> filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Renvoie la requête suivante gardée par le filtre, sans le délimiteur,
+     * null à la fin du fichier
+     */
+    public String next() throws IOException {
+        int c;
+        while ((c = this.read()) != -1) {
+            char ch = (char) c;
+
+            switch (this.state) {
+                case LINE_COMMENT -> {
+                    if (ch != '\n') continue;
+                    this.state = NORMAL; // le retour à la ligne est traité normalement
+                }
+                case BLOCK_COMMENT -> {
+                    this.blockComment(ch);
+                    continue;
+                }
+                case QUOTE -> {
+                    this.quoted(ch);
+                    continue;
+                }
+                case DOLLAR_QUOTE -> {
+                    this.dollarQuoted(ch);
+                    continue;
+                }
+                default -> {}
+            }
+
+            String stmt = this.normal(ch);
+            if (stmt != null) return stmt;
+        }
+
+        // dernière requête sans délimiteur
+        if (this.state == NORMAL && this.isTerminatorLine()) this.dropLine();
+        String stmt = this.end();
+        return stmt;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+
+    /* ============================================================================================================================= */
+
+    /**
+     * Traite un caractère hors chaîne et hors commentaire
+     * @return la requête si ce caractère la termine, null sinon
+     */
+    private String normal(char ch) throws IOException {
+        // fin de ligne : GO ou / seul sur la ligne termine la requête
+        if (ch == '\n') {
+            boolean terminator = this.isTerminatorLine();
+            this.line.setLength(0);
+            this.lineDirty = false;
+            if (terminator) {
+                this.dropLine();
+                return this.end();
+            }
+        }
+
+        // début d'un commentaire
+        boolean lineComment = (ch == '#' && this.hashComments) || (ch == '-' && this.peek() == '-');
+        boolean blockComment = ch == '/' && this.peek() == '*';
+        if (lineComment || blockComment) {
+            if (blockComment) {
+                this.read();
+                this.depth = 1;
+                this.lineDirty = true;
+            }
+            this.state = lineComment ? LINE_COMMENT : BLOCK_COMMENT;
+            this.match = 0;
+            this.decideIfWord();
+            return null;
+        }
+
+        if (ch != '\n') this.trackLine(ch);
+        if (this.lineTerminator != null) this.trackHead(ch);
+
+        // délimiteur
+        if (ch == this.delimiter.charAt(this.match) && !this.isProgramBlock()) {
+            this.match++;
+            if (this.match < this.delimiter.length()) {
+                this.append(ch);
+                return null;
+            }
+
+            if (!this.decided) this.keep = this.keyword.length() > 0 && this.decide();
+            if (this.keep) this.statement.setLength(this.statement.length() - (this.match - 1));
+
+            boolean copyData = this.copy && this.tail.toString().endsWith("FROMSTDIN");
+            String stmt = this.end();
+            if (copyData) this.skipCopyData();
+            return stmt;
+        }
+        this.match = (ch == this.delimiter.charAt(0) && this.delimiter.length() > 1) ? 1 : 0;
+        if (this.copy) this.trackTail(ch);
+
+        // premier mot de la requête
+        if (!this.decided) {
+            if (Character.isLetterOrDigit(ch) || ch == '_') {
+                this.keyword.append(ch);
+                this.statement.append(ch);
+                return null;
+            }
+            if (this.keyword.length() == 0 && Character.isWhitespace(ch)) return null;
+
+            if (this.delimiterCommand && this.keyword.toString().equalsIgnoreCase("DELIMITER")) {
+                this.readDelimiter(ch);
+                this.reset();
+                return null;
+            }
+
+            this.decideIfWord();
+            if (!this.decided) {
+                this.keep = this.decide();
+                this.decided = true;
+            }
+        }
+
+        // début d'une chaîne
+        if (ch == '\'' || ch == '"' || (ch == '`' && this.backtickQuotes) || (ch == '[' && this.bracketQuotes)) {
+            this.state = QUOTE;
+            this.quote = (ch == '[') ? ']' : ch;
+            this.lineDirty = true;
+        } else if (ch == '$' && this.dollarQuotes) {
+            this.append(ch);
+            this.lineDirty = true;
+            this.openDollarQuote();
+            return null;
+        }
+
+        this.append(ch);
+        return null;
+    }
+
+    private void quoted(char ch) throws IOException {
+        this.append(ch);
+        if (ch == '\\' && this.backslashEscapes && this.quote != '`') {
+            int n = this.read();
+            if (n != -1) this.append((char) n);
+        } else if (ch == this.quote) {
+            this.state = NORMAL;
+        }
+    }
+
+    private void blockComment(char ch) throws IOException {
+        if (ch == '/' && this.nestedComments && this.peek() == '*') {
+            this.read();
+            this.depth++;
+        } else if (ch == '*' && this.peek() == '/') {
+            this.read();
+            if (--this.depth == 0) {
+                this.state = NORMAL;
+                if (this.statement.length() > 0) this.append(' ');
+            }
+        }
+    }
+
+    /**
+     * Après un $ : $tag$ ouvre une chaîne, sinon ($1, ...) rien de spécial
+     */
+    private void openDollarQuote() throws IOException {
+        StringBuilder t = new StringBuilder();
+        int c;
+        while ((c = this.read()) != -1 && (Character.isLetterOrDigit(c) || c == '_')) {
+            t.append((char) c);
+            this.append((char) c);
+        }
+
+        if (c == '$' && (t.length() == 0 || !Character.isDigit(t.charAt(0)))) {
+            this.append('$');
+            this.tag = t.toString();
+            this.state = DOLLAR_QUOTE;
+        } else if (c != -1) {
+            this.unread();
+        }
+    }
+
+    /**
+     * Dans une chaîne $tag$ : seule la même balise la ferme
+     */
+    private void dollarQuoted(char ch) throws IOException {
+        this.append(ch);
+        if (ch != '$') return;
+
+        for (int i = 0; i < this.tag.length(); i++) {
+            int c = this.read();
+            if (c == -1) return;
+            if (c != this.tag.charAt(i)) {
+                this.unread(); // peut être le début de la vraie balise
+                return;
+            }
+            this.append((char) c);
+        }
+
+        int c = this.read();
+        if (c == '$') {
+            this.append('$');
+            this.state = NORMAL;
+        } else if (c != -1) {
+            this.unread();
+        }
+    }
+
+    /**
+     * Termine la requête en cours
+     * @return la requête, null si elle est vide ou ignorée
+     */
+    private String end() {
+        if (!this.decided) this.keep = this.keyword.length() > 0 && this.decide();
+        String stmt = this.keep ? this.statement.toString().trim() : "";
+        this.reset();
+        return stmt.isEmpty() ? null : stmt;
+    }
+
+    private void reset() {
+        this.statement.setLength(0);
+        this.keyword.setLength(0);
+        this.head.setLength(0);
+        this.decided = false;
+        this.keep = true;
+        this.state = NORMAL;
+        this.match = 0;
+        this.lineStart = 0;
+        this.copy = false;
+        this.tail.setLength(0);
+    }
+
+    private void append(char ch) {
+        if (this.keep) this.statement.append(ch);
+    }
+
+    private boolean decide() {
+        String kw = this.keyword.toString().toUpperCase(Locale.ROOT);
+        this.copy = this.dollarQuotes && kw.equals("COPY");
+        return this.filter.test(kw);
+    }
+
+    /**
+     * Le premier mot est fini : on choisit de garder ou non la requête
+     */
+    private void decideIfWord() {
+        if (this.decided || this.keyword.length() == 0) return;
+        this.keep = this.decide();
+        this.decided = true;
+        if (!this.keep) this.statement.setLength(0);
+    }
+
+    /* ---- ligne en cours (GO, /) ---- */
+
+    private void trackLine(char ch) {
+        if (this.lineTerminator == null || this.lineDirty) return;
+        if (this.line.length() == 0) this.lineStart = this.statement.length();
+        if (this.line.length() < LINE_MAX) this.line.append(ch);
+        else this.lineDirty = true;
+    }
+
+    private boolean isTerminatorLine() {
+        return this.lineTerminator != null && !this.lineDirty
+            && this.line.toString().trim().equalsIgnoreCase(this.lineTerminator);
+    }
+
+    /**
+     * Retire la ligne GO ou / de la requête
+     */
+    private void dropLine() {
+        // si rien n'a été lu avant, le "mot" lu est le terminateur lui-même
+        if (!this.decided) this.keyword.setLength(0);
+        if (this.keep) this.statement.setLength(Math.min(this.lineStart, this.statement.length()));
+        this.line.setLength(0);
+    }
+
+    /* ---- blocs (procédures, triggers...) ---- */
+
+    private void trackHead(char ch) {
+        if (this.head.length() >= HEAD_MAX) return;
+        if (Character.isLetterOrDigit(ch) || ch == '_') {
+            this.head.append(Character.toUpperCase(ch));
+        } else if (this.head.length() > 0 && this.head.charAt(this.head.length() - 1) != ' ') {
+            this.head.append(' ');
+        }
+    }
+
+    private boolean isProgramBlock() {
+        return this.lineTerminator != null && PROGRAM_BLOCK.matcher(this.head).lookingAt();
+    }
+
+    /* ---- COPY ... FROM stdin (PostgreSql) ---- */
+
+    private void trackTail(char ch) {
+        if (Character.isWhitespace(ch)) return;
+        this.tail.append(Character.toUpperCase(ch));
+        if (this.tail.length() > TAIL_MAX) this.tail.delete(0, this.tail.length() - TAIL_MAX);
+    }
+
+    /**
+     * Saute les lignes de données qui suivent un COPY ... FROM stdin, jusqu'à la ligne \.
+     */
+    private void skipCopyData() throws IOException {
+        int c;
+        while ((c = this.read()) != -1 && c != '\n') {}
+
+        StringBuilder l = new StringBuilder();
+        boolean longLine = false;
+        while ((c = this.read()) != -1) {
+            if (c == '\n') {
+                if (!longLine && l.toString().trim().equals("\\.")) break;
+                l.setLength(0);
+                longLine = false;
+            } else if (l.length() < 4) {
+                l.append((char) c);
+            } else {
+                longLine = true;
+            }
+        }
+        this.line.setLength(0);
+        this.lineDirty = false;
+    }
+
+    /**
+     * Lit la fin de la ligne "DELIMITER xx"
+     * @param first caractère lu juste après le mot DELIMITER
+     */
+    private void readDelimiter(char first) throws IOException {
+        StringBuilder d = new StringBuilder();
+        int c = first;
+        while (c != -1 && c != '\n') {
+            d.append((char) c);
+            c = this.read();
+        }
+        String newDelimiter = d.toString().trim();
+        if (!newDelimiter.isEmpty()) this.delimiter = newDelimiter;
+    }
+
+    /* ---- tampon ---- */
+
+    private int read() throws IOException {
+        if (this.pos == this.len && !this.fill()) return -1;
+        return this.buf[this.pos++];
+    }
+
+    private int peek() throws IOException {
+        if (this.pos == this.len && !this.fill()) return -1;
+        return this.buf[this.pos];
+    }
+
+    /**
+     * Remet le dernier caractère lu (toujours possible juste après read)
+     */
+    private void unread() {
+        this.pos--;
+    }
+
+    private boolean fill() throws IOException {
+        int n;
+        do {
+            n = this.in.read(this.buf, 0, this.buf.length);
+        } while (n == 0);
+        this.pos = 0;
+        this.len = Math.max(n, 0);
+        return n > 0;
+    }
+}
@@ -0,0 +1,52 @@
+package com.dbeditor.util;
+
+import java.sql.SQLException;
+
+import com.dbeditor.model.DatabaseSchema;
+import com.dbeditor.model.SchemaDiff;
+import com.dbeditor.sql.db.SqlDb;
+import com.dbeditor.sql.file.exporter.SqlExporter;
+
+import javafx.concurrent.Task;
+
+/**
+ * Prépare la mise à jour d'une bdd hors du thread JavaFX : lecture complète de la bdd (SqlDb.loadDbStrict),
+ * différences avec le schema puis script de migration.
+ * Rien n'est exécuté : le script est montré à l'utilisateur avant d'être lancé par DbSaveTask.
+ */
+public class DbDiffTask extends Task<DbDiffTask.Migration> {
+
+    /**
+     * @param diff différences entre la bdd et le schema
+     * @param script requêtes qui font passer la bdd au schema (vide si diff est vide)
+     */
+    public record Migration(SchemaDiff diff, String script) {}
+
+    private final SqlDb db;
+    private final SqlExporter exporter;
+    private final String dbName;
+    private final DatabaseSchema schema;
+
+    /**
+     * @param db bdd à mettre à jour
+     * @param exporter écrit le script de migration pour cette bdd
+     * @param dbName nom de la bdd
+     * @param schema schema à enregistrer, qui ne doit plus être modifié (voir DatabaseSchema.copy)
+     */
+    public DbDiffTask(SqlDb db, SqlExporter exporter, String dbName, DatabaseSchema schema) {
+        this.db = db;
+        this.exporter = exporter;
+        this.dbName = dbName;
+        this.schema = schema;
+    }
+
+    @Override
+    protected Migration call() throws SQLException {
+        this.updateMessage("Lecture de " + this.dbName);
+        // une bdd lue en partie donnerait un script faux : toute erreur de lecture arrête l'enregistrement
+        SchemaDiff diff = new SchemaDiff(this.db.loadDbStrict(this.dbName), this.schema);
+        if (diff.isEmpty()) return new Migration(diff, "");
+
+        return new Migration(diff, this.exporter.createMigrationSql(diff));
+    }
+}
@@ -0,0 +1,130 @@
+package com.dbeditor.util;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.dbeditor.model.DatabaseSchema;
+import com.dbeditor.model.Table;
+import com.dbeditor.sql.db.SqlDb;
+
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+
+/**
+ * Charge une bdd hors du thread JavaFX.
+ * Les tables sont transmises par lots au thread JavaFX au fur et à mesure,
+ * un seul Platform.runLater est en attente à la fois pour ne pas saturer la file d'évènements.
+ */
+public class DbLoadTask extends Task<DatabaseSchema> {
+    private final SqlDb db;
+    private final String dbName;
+    private final Consumer<List<Table>> onTables;
+
+    private final List<Table> pending = new ArrayList<>();
+    private boolean flushScheduled = false;
+
+    /**
+     * Vrai une fois finish appelé : plus aucune table n'est transmise
+     */
+    private boolean finished = false;
+
+    /**
+     * Vrai si la bdd a signalé une erreur de lecture (LoadListener.onError)
+     */
+    private volatile boolean loadError = false;
+
+    /**
+     * @param db bdd à lire
+     * @param dbName nom de la bdd
+     * @param onTables reçoit chaque lot de tables, sur le thread JavaFX
+     */
+    public DbLoadTask(SqlDb db, String dbName, Consumer<List<Table>> onTables) {
+        this.db = db;
+        this.dbName = dbName;
+        this.onTables = onTables;
+    }
+
+    @Override
+    protected DatabaseSchema call() {
+        this.updateMessage("Connexion à " + this.dbName);
+
+        return this.db.loadDb(this.dbName, new SqlDb.LoadListener() {
+            private int total = -1;
+            private int loaded = 0;
+
+            @Override
+            public void onTotal(int total) {
+                this.total = total;
+                updateProgress(0, total);
+                updateMessage("Chargement de " + total + " tables");
+            }
+
+            @Override
+            public void onTable(Table table) {
+                this.loaded++;
+                if (this.total > 0) updateProgress(this.loaded, this.total);
+                push(table);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return DbLoadTask.this.isCancelled();
+            }
+
+            @Override
+            public void onError(SQLException e) {
+                loadError = true;
+            }
+        });
+    }
+
+    /**
+     * Vrai si des tables peuvent manquer : chargement annulé, en échec ou interrompu par une erreur de lecture
+     */
+    public boolean isIncomplete() {
+        return this.loadError || this.getState() != State.SUCCEEDED;
+    }
+
+    /**
+     * Transmet les dernières tables reçues puis arrête toute transmission :
+     * les tables poussées après (le thread de chargement peut encore tourner après une annulation) sont oubliées.
+     * Doit être appelé sur le thread JavaFX, avant que les vues finalisent leur chargement (endLoad)
+     */
+    public void finish() {
+        this.flush();
+        synchronized (this.pending) {
+            this.finished = true;
+            this.pending.clear();
+        }
+    }
+
+    /**
+     * Transmet au thread JavaFX les tables reçues et pas encore envoyées.
+     * Doit être appelé sur le thread JavaFX
+     */
+    private void flush() {
+        List<Table> batch;
+        synchronized (this.pending) {
+            this.flushScheduled = false;
+            if (this.finished || this.pending.isEmpty()) return;
+            batch = new ArrayList<>(this.pending);
+            this.pending.clear();
+        }
+        this.onTables.accept(batch);
+    }
+
+    private void push(Table table) {
+        // annulé : les tables déjà reçues sont gardées, les suivantes non
+        if (this.isCancelled()) return;
+
+        synchronized (this.pending) {
+            if (this.finished) return;
+            this.pending.add(table);
+            if (this.flushScheduled) return;
+            this.flushScheduled = true;
+        }
+        Platform.runLater(this::flush);
+    }
+}
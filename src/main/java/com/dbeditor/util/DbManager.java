@@ -1,16 +1,23 @@
 package com.dbeditor.util;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.dbeditor.model.ForeignKey;
 import com.dbeditor.model.Table;
 import com.dbeditor.sql.DbType;
+import com.dbeditor.sql.db.MsSqlDb;
 import com.dbeditor.sql.db.MySqlDb;
+import com.dbeditor.sql.db.PostgreSqlDb;
 import com.dbeditor.sql.db.SqlDb;
 import com.dbeditor.sql.file.exporter.MsSqlExporter;
 import com.dbeditor.sql.file.exporter.MySqlExporter;
@@ -61,19 +68,36 @@ public class DbManager {
         }
     }
 
-    public void setMysqlDbData(Map<String, Object> data) {
-        this.sqlDb.put(DbType.MySql, new MySqlDb(
-            (String) data.get("host"),
-            (String) data.get("user"),
-            (String) data.get("password"),
-            (String) data.get("port")
-        ));
+    /**
+     * Configure la connexion d'une bdd à partir de sa section des préférences (voir JsonManager).
+     * Oracle n'a pas encore de connexion : rien n'est fait
+     */
+    public void setSqlDbData(DbType type, Map<String, Object> data) {
+        String host = (String) data.get("host");
+        String user = (String) data.get("user");
+        String password = (String) data.get("password");
+        String port = (String) data.get("port");
+
+        SqlDb db = switch (type) {
+            case MySql -> new MySqlDb(host, user, password, port);
+            case MsSql -> new MsSqlDb(host, user, password, port);
+            case PostgreSql -> new PostgreSqlDb(host, user, password, port);
+            default -> null;
+        };
+        if(db == null) return;
+
+        if(data.get("parallelism") instanceof Integer p && p > 0) {
+            db.parallelism = p;
+        }
+        this.sqlDb.put(type, db);
         
         List<String> t = new ArrayList<>();
-        for(Map<String, Object> table : (List<Map<String, Object>>) data.get("databases")) {
-            t.add((String) table.get("name"));
+        if(data.get("databases") instanceof List<?> databases) {
+            for(Object table : databases) {
+                if(table instanceof Map<?, ?> map) t.add((String) map.get("name"));
+            }
         }
-        this.sqlTypeDatabases.put(DbType.MySql, t);
+        this.sqlTypeDatabases.put(type, t);
     }
 
     public SqlDb getSqlDb(DbType type) { return this.sqlDb.get(type); }
@@ -83,70 +107,171 @@ public class DbManager {
 
     /* ============================================================================================================================= */
 
+    /**
+     * Ordre de création des tables
+     * @param tables toutes les tables, les tables référencées passent avant celles qui les référencent
+     * @param cycles tables qui se référencent en boucle (composantes fortement connexes de plus d'une table)
+     * @param deferredForeignKeys FK qui forment les cycles : à ajouter après la création des tables (ALTER TABLE)
+     */
+    public record TableOrder(List<Table> tables, List<List<Table>> cycles, Set<ForeignKey> deferredForeignKeys) {
+        public boolean isDeferred(ForeignKey fk) {
+            return this.deferredForeignKeys.contains(fk);
+        }
+    }
+
     /**
      * Permet de trier les tables dans l'ordre de création pour la bdd
-     * Renvoie une erreur si il y a un problème
+     * (voir orderTables pour les cycles)
      * @param tables
      * @return
      */
     public static List<Table> sortTables(Collection<Table> tables) {
-        List<Table> res = new ArrayList<>();
-        List<Table> toAdd = new ArrayList<>(tables);
-
-        // 1 - On ajoute toutes les tables sans FK
-        Iterator<Table> it = toAdd.iterator();
-        while(it.hasNext()) {
-            Table t = it.next();
-            if(t.getForeignKeys().isEmpty()) {
-                res.add(t);
-                it.remove();
+        return orderTables(tables).tables();
+    }
+
+    /**
+     * Trie les tables dans l'ordre de création, en O(tables + FK).
+     * Les cycles sont trouvés avec Tarjan, leurs FK internes sont mises de côté
+     * puis le reste est trié avec Kahn (ordre d'entrée conservé quand c'est possible).
+     * Les FK vers une table absente et vers la table elle-même sont ignorées.
+     */
+    public static TableOrder orderTables(Collection<Table> tables) {
+        List<Table> list = new ArrayList<>(tables);
+        int n = list.size();
+
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < n; i++) index.put(list.get(i).name, i);
+
+        // adj[i] : tables référencées par i
+        int[][] adj = new int[n][];
+        for (int i = 0; i < n; i++) {
+            Table t = list.get(i);
+            int[] targets = new int[t.getForeignKeyCount()];
+            int k = 0;
+            for (ForeignKey fk : t.getForeignKeysView()) {
+                Integer j = index.get(fk.referencedTable);
+                if (j != null && j != i) targets[k++] = j;
+            }
+            adj[i] = Arrays.copyOf(targets, k);
+        }
+
+        /* ---- 1 - composantes fortement connexes (Tarjan itératif) ---- */
+        int[] comp = stronglyConnectedComponents(adj);
+        int[] compSize = new int[n];
+        for (int i = 0; i < n; i++) compSize[comp[i]]++;
+
+        Set<ForeignKey> deferred = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<Integer, List<Table>> cycles = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            if (compSize[comp[i]] < 2) continue;
+
+            Table t = list.get(i);
+            cycles.computeIfAbsent(comp[i], c -> new ArrayList<>()).add(t);
+            for (ForeignKey fk : t.getForeignKeysView()) {
+                Integer j = index.get(fk.referencedTable);
+                if (j != null && j != i && comp[j] == comp[i]) deferred.add(fk);
+            }
+        }
+
+        /* ---- 2 - tri topologique sans les FK des cycles (Kahn) ---- */
+        int[] remaining = new int[n];
+        int[] dependentCount = new int[n];
+        for (int i = 0; i < n; i++) {
+            for (int j : adj[i]) {
+                if (comp[i] == comp[j] && compSize[comp[i]] > 1) continue;
+                remaining[i]++;
+                dependentCount[j]++;
+            }
+        }
+        int[][] dependents = new int[n][];
+        for (int j = 0; j < n; j++) dependents[j] = new int[dependentCount[j]];
+        int[] fill = new int[n];
+        for (int i = 0; i < n; i++) {
+            for (int j : adj[i]) {
+                if (comp[i] == comp[j] && compSize[comp[i]] > 1) continue;
+                dependents[j][fill[j]++] = i;
+            }
+        }
+
+        List<Table> res = new ArrayList<>(n);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            if (remaining[i] == 0) queue.add(i);
+        }
+        while (!queue.isEmpty()) {
+            int j = queue.poll();
+            res.add(list.get(j));
+            for (int i : dependents[j]) {
+                if (--remaining[i] == 0) queue.add(i);
             }
         }
 
-        // 2 - On ajoute les tables dont toutes les FK sont déjà dans res
-        boolean added;
-        do {
-            added = false;
-            it = toAdd.iterator();
-            while(it.hasNext()) {
-                Table t = it.next();
-                boolean allFKResolved = true;
+        return new TableOrder(res, new ArrayList<>(cycles.values()), deferred);
+    }
 
-                for(ForeignKey fk : t.getForeignKeys()) {
-                    String refTable = fk.referencedTable;
+    /**
+     * Tarjan sans récursion (pas de StackOverflow sur les longues chaînes de FK)
+     * @return numéro de composante de chaque sommet
+     */
+    private static int[] stronglyConnectedComponents(int[][] adj) {
+        int n = adj.length;
+        int[] order = new int[n];
+        int[] low = new int[n];
+        int[] comp = new int[n];
+        boolean[] onStack = new boolean[n];
+        Arrays.fill(order, -1);
 
-                    // si c'est notre table actuelle : on passe
-                    if(refTable.equals(t.name)) continue;
+        int[] stack = new int[n];
+        int sp = 0;
+        int[] callNode = new int[n];
+        int[] callEdge = new int[n];
+        int counter = 0;
+        int compCount = 0;
 
-                    boolean fkFound = false;
-                    for(Table r : res) {
-                        if(refTable.equals(r.name)) {
+        for (int s = 0; s < n; s++) {
+            if (order[s] != -1) continue;
 
-                            fkFound = true;
-                            break;
-                        }
-                    }
+            int csp = 0;
+            callNode[csp] = s;
+            callEdge[csp++] = 0;
+            order[s] = low[s] = counter++;
+            stack[sp++] = s;
+            onStack[s] = true;
 
-                    if(!fkFound) {
-                        allFKResolved = false;
-                        break;
+            while (csp > 0) {
+                int v = callNode[csp - 1];
+                if (callEdge[csp - 1] < adj[v].length) {
+                    int w = adj[v][callEdge[csp - 1]++];
+                    if (order[w] == -1) {
+                        order[w] = low[w] = counter++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        callNode[csp] = w;
+                        callEdge[csp++] = 0;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], order[w]);
                     }
+                    continue;
                 }
 
-                if(allFKResolved) {
-                    res.add(t);
-                    it.remove();
-                    added = true;
+                // v terminé
+                csp--;
+                if (csp > 0) {
+                    int u = callNode[csp - 1];
+                    low[u] = Math.min(low[u], low[v]);
+                }
+                if (low[v] == order[v]) {
+                    int w;
+                    do {
+                        w = stack[--sp];
+                        onStack[w] = false;
+                        comp[w] = compCount;
+                    } while (w != v);
+                    compCount++;
                 }
             }
+        }
 
-            // Si aucune table n'a été ajoutée, on a une FK circulaire
-            if(!added && !toAdd.isEmpty()) {
-                throw new IllegalStateException("FK circulaire détectée : " + toAdd);
-            }
-
-        } while(!toAdd.isEmpty());
-
-        return res;
+        return comp;
     }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.dbeditor.util;
+
+import com.dbeditor.sql.db.SqlDb;
+
+import javafx.concurrent.Task;
+
+/**
+ * Exécute hors du thread JavaFX un script de migration préparé par DbDiffTask et accepté par l'utilisateur
+ * (pas de DROP DATABASE).
+ * La mise à jour n'est pas atomique sur MySql : chaque requête DDL y est validée aussitôt,
+ * après une erreur les requêtes déjà exécutées restent appliquées (voir SqlDb.lastScriptResult).
+ */
+public class DbSaveTask extends Task<Void> {
+    private final SqlDb db;
+    private final String dbName;
+    private final String script;
+
+    /**
+     * @param db bdd à mettre à jour
+     * @param dbName nom de la bdd
+     * @param script script de migration (DbDiffTask.Migration.script)
+     */
+    public DbSaveTask(SqlDb db, String dbName, String script) {
+        this.db = db;
+        this.dbName = dbName;
+        this.script = script;
+    }
+
+    @Override
+    protected Void call() {
+        this.updateMessage("Mise à jour de " + this.dbName);
+        this.db.connect(this.dbName);
+        try {
+            if (!this.db.executeSqlScript(this.script)) {
+                throw new IllegalStateException("Le script de mise à jour de " + this.dbName + " a échoué");
+            }
+        } finally {
+            this.db.deconnect();
+        }
+        return null;
+    }
+}
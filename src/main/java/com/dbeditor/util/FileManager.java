@@ -38,7 +38,7 @@ public class FileManager {
             this.lastUsedDirectory = fileDir.getParentFile(); // Mémoriser le dossier
             
             DatabaseSchema schema = parser.loadFromFile(fileDir.getAbsolutePath());
-            if (schema != null && !schema.getTables().isEmpty()) {
+            if (schema != null && schema.getTableCount() > 0) {
                 return schema;
             } else {
                 LOGGER.log(Level.SEVERE, "Erreur lors du chargement de la base de données");
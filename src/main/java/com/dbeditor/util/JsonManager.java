@@ -12,6 +12,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.dbeditor.sql.DbType;
+import com.dbeditor.sql.db.SqlDb;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -19,6 +20,8 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 /**
  * TODO : ajouté un type de "profil" de les types de bdd et pouvoir activer/désactiver les bdd chosis
  * <br>
+ * Une section par bdd dans "db_type" : "mysql", "postgresql", "mssql" (voir DB_KEYS)
+ * <br>
  * "mysql" : [
  *     {
  *         "name" : "xampp",
@@ -26,6 +29,7 @@ import com.fasterxml.jackson.databind.SerializationFeature;
  *         "user" : "root",
  *         "password" : "",
  *         "port" : "3306",
+ *         "parallelism" : 4,
  *         "databases" : [
  *             {
  *                 "name" : "ecogestum",
@@ -67,6 +71,15 @@ public class JsonManager {
 
     private final static Path PATH_TO_FILE_USER_DATA = Paths.get(System.getProperty("user.dir"), "src", "main", "resources", "userPreferences.json");
 
+    /**
+     * Section de chaque bdd dans "db_type"
+     */
+    private static final Map<DbType, String> DB_KEYS = Map.of(
+        DbType.MySql, "mysql",
+        DbType.PostgreSql, "postgresql",
+        DbType.MsSql, "mssql"
+    );
+
     /**
      * Charge toutes les préférences de l'utilisateur au lancement de l'application.
      * Si le fichier n'existe il est créé
@@ -99,8 +112,11 @@ public class JsonManager {
         T_M.getPersoTheme().loadColor((Map<String, String>) root.get("perso_theme"));
 
         Map<String, Map<String, Object>> db = (Map<String, Map<String, Object>>) root.get("db_type");
-        Map<String, Object> mysql = db.get("mysql");
-        D_M.setMysqlDbData(mysql);
+        for (Map.Entry<DbType, String> key : DB_KEYS.entrySet()) {
+            // section absente des anciens fichiers
+            Map<String, Object> data = db.get(key.getValue());
+            if (data != null) D_M.setSqlDbData(key.getKey(), data);
+        }
     }
 
     /**
@@ -127,19 +143,25 @@ public class JsonManager {
         root.put("perso_theme", themes);
 
         Map<String, Map<String, Object>> db = new HashMap<>();
-        Map<String, Object> mysql = new HashMap<>();
-        mysql.put("host", "localhost");
-        mysql.put("user", "root");
-        mysql.put("password", "");
-        mysql.put("port", "3306");
-        List<Map<String, String>> tables = new ArrayList<>();
-        for(String t : D_M.getSqlTypeDatabases(DbType.MySql)) {
-            Map<String, String> map = new HashMap<>();
-            map.put("name", t);
-            tables.add(map);
+        for (Map.Entry<DbType, String> key : DB_KEYS.entrySet()) {
+            SqlDb sqlDb = D_M.getSqlDb(key.getKey());
+            if (sqlDb == null) continue;
+
+            Map<String, Object> data = new HashMap<>();
+            data.put("host", sqlDb.dbHost);
+            data.put("user", sqlDb.dbUser);
+            data.put("password", sqlDb.dbPassword);
+            data.put("port", sqlDb.dbPort);
+            data.put("parallelism", sqlDb.parallelism);
+            List<Map<String, String>> tables = new ArrayList<>();
+            for(String t : D_M.getSqlTypeDatabases(key.getKey())) {
+                Map<String, String> map = new HashMap<>();
+                map.put("name", t);
+                tables.add(map);
+            }
+            data.put("databases", tables);
+            db.put(key.getValue(), data);
         }
-        mysql.put("databases", tables);
-        db.put("mysql", mysql);
         root.put("db_type", db);
 
         try {
@@ -174,13 +196,9 @@ public class JsonManager {
         root.put("perso_theme", themes);
 
         Map<String, Map<String, Object>> db = new HashMap<>();
-        Map<String, Object> mysql = new HashMap<>();
-        mysql.put("host", "localhost");
-        mysql.put("user", "root");
-        mysql.put("password", "");
-        mysql.put("port", "3306");
-        mysql.put("databases", new ArrayList<Map<String, String>>());
-        db.put("mysql", mysql);
+        db.put("mysql", defaultDbData("root", "3306"));
+        db.put("postgresql", defaultDbData("postgres", "5432"));
+        db.put("mssql", defaultDbData("sa", "1433"));
         root.put("db_type", db);
 
         try {
@@ -190,5 +208,19 @@ public class JsonManager {
             LOGGER.log(Level.SEVERE, "Erreur lors de l'écriture du fichier JSON", e);
         }
     }
+
+    /**
+     * Section d'une bdd en local, sans bdd connue
+     */
+    private static Map<String, Object> defaultDbData(String user, String port) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("host", "localhost");
+        data.put("user", user);
+        data.put("password", "");
+        data.put("port", port);
+        data.put("parallelism", SqlDb.DEFAULT_PARALLELISM);
+        data.put("databases", new ArrayList<Map<String, String>>());
+        return data;
+    }
     
 }
\ No newline at end of file
@@ -1,6 +1,10 @@
 package com.dbeditor.util;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.dbeditor.theme.DarkTheme;
@@ -8,7 +12,17 @@ import com.dbeditor.theme.LightTheme;
 import com.dbeditor.theme.PersoTheme;
 import com.dbeditor.theme.Theme;
 
+import javafx.scene.Scene;
+
+/**
+ * Thème courant.<br>
+ * Le visuel est décrit une fois pour toutes dans /css/model.css avec des couleurs nommées (-pl-*).
+ * Le thème ne fait que donner une valeur à ces couleurs, dans une petite feuille de style posée sur les scènes (install) :
+ * changer de thème remplace cette feuille, sans toucher aux nodes.
+ */
 public class ThemeManager {
+    private static final String MODEL_CSS = ThemeManager.class.getResource("/css/model.css").toExternalForm();
+
     private static ThemeManager instance;
     public static ThemeManager getInstance() {
         if (instance == null) {
@@ -29,6 +43,8 @@ public class ThemeManager {
     private int id;
     private final Map<Integer, Theme> themes;
     private Theme theme = new DarkTheme();
+    private final List<Scene> scenes = new ArrayList<>();
+    private String themeStylesheet;
 
     public Theme getTheme() {
         return this.theme;
@@ -37,6 +53,58 @@ public class ThemeManager {
     public void changeTheme(int id) {
         this.id = id;
         this.theme = this.themes.get(id);
+        this.refresh();
+    }
+
+    /**
+     * Ajoute les feuilles de style de l'application et du thème courant à la scène
+     */
+    public void install(Scene scene) {
+        if (this.scenes.contains(scene)) return;
+
+        this.scenes.add(scene);
+        scene.getStylesheets().addAll(MODEL_CSS, this.getThemeStylesheet());
+    }
+
+    /**
+     * Remplace la feuille du thème sur les scènes si ses couleurs ont changé
+     * (changement de thème ou modification du thème perso)
+     */
+    public void refresh() {
+        String old = this.themeStylesheet;
+        this.themeStylesheet = null;
+        String css = this.getThemeStylesheet();
+        if (css.equals(old)) return;
+
+        for (Scene scene : this.scenes) {
+            int i = scene.getStylesheets().indexOf(old);
+            if (i >= 0) {
+                scene.getStylesheets().set(i, css);
+            } else {
+                scene.getStylesheets().add(css);
+            }
+        }
+    }
+
+    /**
+     * Feuille de style (URL data:) qui définit les couleurs du thème courant sur .root
+     */
+    private String getThemeStylesheet() {
+        if (this.themeStylesheet == null) {
+            String css = ".root {"
+                + " -pl-background: " + this.theme.getBackgroundColor() + ";"
+                + " -pl-card: " + this.theme.getCardColor() + ";"
+                + " -pl-border: " + this.theme.getBorderColor() + ";"
+                + " -pl-selection: " + this.theme.getSelectionBorderColor() + ";"
+                + " -pl-header: " + this.theme.getHeaderColor() + ";"
+                + " -pl-text: " + this.theme.getTextColor() + ";"
+                + " -pl-secondary-text: " + this.theme.getSecondaryTextColor() + ";"
+                + " -pl-toolbar: " + this.theme.getToolbarColor() + ";"
+                + " -pl-toolbar-border: " + this.theme.getToolbarBorderColor() + ";"
+                + " }";
+            this.themeStylesheet = "data:text/css;base64," + Base64.getEncoder().encodeToString(css.getBytes(StandardCharsets.UTF_8));
+        }
+        return this.themeStylesheet;
     }
 
     public PersoTheme getPersoTheme() {